@@ -51,6 +51,7 @@ public interface BaseXAndroid {
 	public void deleteDatabase(String name) throws IOException;
 	public void addSource(String path, String file_name) throws BaseXException, IOException;
 	public String executeXQuery(String query) throws BaseXException, IOException;
+	public XQueryCursor query(String query) throws IOException;
 	public String find(String name) throws BaseXException, IOException;
 	public List<String> getDatabases() throws IOException;
 	public List<String> getUsers() throws IOException;
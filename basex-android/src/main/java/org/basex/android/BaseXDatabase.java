@@ -147,6 +147,15 @@ public class BaseXDatabase implements BaseXAndroid{
 		return "";
 	}
 
+	@Override
+	public XQueryCursor query(String query) throws IOException {
+		if(basexContext != null)
+			return new XQueryCursor(query, basexContext);
+		else
+			Log.e("BaseXDatabase", "No context");
+		return null;
+	}
+
 	@Override
 	public String listDB(String name) throws IOException {
 		if(basexContext != null)
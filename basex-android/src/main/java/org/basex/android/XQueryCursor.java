@@ -0,0 +1,177 @@
+package org.basex.android;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.basex.core.BaseXException;
+import org.basex.core.Context;
+import org.basex.core.ProcException;
+import org.basex.core.Text;
+import org.basex.io.out.ArrayOutput;
+import org.basex.io.serial.Serializer;
+import org.basex.query.QueryException;
+import org.basex.query.QueryProcessor;
+import org.basex.query.iter.Iter;
+import org.basex.query.value.item.Item;
+import org.basex.query.value.type.Type;
+
+/**
+ * Iterates over the results of an XQuery expression. Items are evaluated and
+ * serialized one by one when they are requested. If the cursor is closed
+ * before all items have been returned, the rest of the query will not be
+ * evaluated.
+ *
+ * The databases addressed by the query are locked until the last item has
+ * been returned or {@link #close()} has been called, so a cursor should
+ * always be closed in a finally block.
+ *
+ * The locks are owned by the thread that requests the first item, so a cursor
+ * is confined to this thread: once evaluation has started, {@link #hasNext()},
+ * {@link #next()} and {@link #close()} must not be called by any other thread.
+ * Otherwise, an {@link IllegalStateException} is thrown.
+ */
+public class XQueryCursor implements Closeable {
+
+	private final Context context;
+	private final QueryProcessor qp;
+	private final ArrayOutput output = new ArrayOutput();
+
+	private Serializer serializer = null;
+	private Iter iter = null;
+	private Item item = null;
+	private Type type = null;
+	private boolean registered = false;
+	private boolean closed = false;
+	private Thread owner = null;
+
+	XQueryCursor(String query, Context context) {
+		this.context = context;
+		qp = new QueryProcessor(query, context);
+	}
+
+	/**
+	 * Binds a value to an external variable. Variables must be bound
+	 * before the first item is requested.
+	 */
+	public XQueryCursor bind(String name, Object value) throws IOException {
+		return bind(name, value, null);
+	}
+
+	/**
+	 * Binds a value with the specified type to an external variable.
+	 */
+	public XQueryCursor bind(String name, Object value, String type) throws IOException {
+		check();
+		try {
+			qp.bind(name, value, type);
+		} catch(QueryException ex) {
+			throw new BaseXException(ex);
+		}
+		return this;
+	}
+
+	/**
+	 * Binds a value to the context item.
+	 */
+	public XQueryCursor context(Object value) throws IOException {
+		check();
+		try {
+			qp.context(value);
+		} catch(QueryException ex) {
+			throw new BaseXException(ex);
+		}
+		return this;
+	}
+
+	/**
+	 * Returns true if another item is available. The query will be
+	 * compiled and evaluated when this method is called for the first time.
+	 */
+	public boolean hasNext() throws IOException {
+		confined();
+		if(closed)
+			return false;
+		if(item != null)
+			return true;
+
+		try {
+			if(iter == null) {
+				owner = Thread.currentThread();
+				qp.parse();
+				context.register(qp);
+				registered = true;
+				iter = qp.iter();
+				serializer = Serializer.get(output, qp.ctx.serParams());
+			}
+			item = iter.next();
+		} catch(QueryException ex) {
+			close();
+			throw new BaseXException(ex);
+		} catch(ProcException ex) {
+			close();
+			throw new BaseXException(Text.TIMEOUT_EXCEEDED);
+		}
+		if(item == null)
+			close();
+		return item != null;
+	}
+
+	/**
+	 * Returns the next serialized item, or null if no more items are available.
+	 */
+	public String next() throws IOException {
+		if(!hasNext())
+			return null;
+
+		final Item it = item;
+		item = null;
+		type = it.type;
+		output.reset();
+		serializer.reset();
+		try {
+			serializer.serialize(it);
+		} catch(IOException ex) {
+			close();
+			throw ex;
+		}
+		return output.toString();
+	}
+
+	/**
+	 * Returns the type of the item that has last been returned by {@link #next()}.
+	 */
+	public Type type() {
+		return type;
+	}
+
+	/**
+	 * Closes the cursor and releases the database locks.
+	 */
+	@Override
+	public void close() {
+		confined();
+		if(closed)
+			return;
+		closed = true;
+		item = null;
+		qp.close();
+		if(registered) {
+			context.unregister(qp);
+			registered = false;
+		}
+	}
+
+	/**
+	 * Rejects calls from other threads than the one that started the evaluation,
+	 * as the database locks are bound to this thread.
+	 */
+	private void confined() {
+		if(owner != null && owner != Thread.currentThread())
+			throw new IllegalStateException("Cursor must be used by the thread that evaluated the query.");
+	}
+
+	private void check() throws BaseXException {
+		if(iter != null || closed)
+			throw new BaseXException("Values must be bound before the query is evaluated.");
+	}
+}
@@ -1,10 +1,12 @@
 package org.basex.build;
 
+import static org.basex.util.Token.*;
+
 import java.io.*;
 
-import org.basex.build.xml.*;
 import org.basex.core.*;
 import org.basex.io.*;
+import org.basex.io.in.*;
 import org.basex.io.parse.csv.*;
 
 /**
@@ -14,32 +16,46 @@ import org.basex.io.parse.csv.*;
  * <p>The parser provides some options, which can be specified via the
  * {@link MainOptions#CSVPARSER} option.</p>
  *
+ * <p>The input is streamed, and the node events are directly passed on to the
+ * builder.</p>
+ *
  * @author BaseX Team 2005-13, BSD License
  * @author Christian Gruen
  */
-public final class CsvParser extends XMLParser {
+public final class CsvParser extends Parser {
+  /** Parser options. */
+  private final CsvParserOptions copts;
+  /** Input (assigned during parsing). */
+  private NewlineInput input;
+
   /**
    * Constructor.
    * @param source document source
    * @param opts database options
-   * @throws IOException I/O exception
    */
-  public CsvParser(final IO source, final MainOptions opts) throws IOException {
-    super(toXML(source, opts.get(MainOptions.CSVPARSER)), opts);
+  public CsvParser(final IO source, final MainOptions opts) {
+    super(source, opts);
+    copts = opts.get(MainOptions.CSVPARSER);
   }
 
-  /**
-   * Converts CSV data to XML.
-   * @param io input
-   * @param copts parsing options
-   * @return parser
-   * @throws IOException I/O exception
-   */
-  public static IOContent toXML(final IO io, final CsvParserOptions copts) throws IOException {
-    final CsvStringConverter conv = new CsvStringConverter(copts);
-    conv.convert(io);
-    final IOContent xml = new IOContent(conv.finish().string());
-    xml.name(io.name());
-    return xml;
+  @Override
+  public void parse(final Builder build) throws IOException {
+    input = new NewlineInput(src).encoding(copts.get(CsvParserOptions.ENCODING));
+    try {
+      build.openDoc(token(target + src.name()));
+      new CsvBuilderConverter(copts, build, options.get(MainOptions.CHOP)).convert(input);
+      build.closeDoc();
+    } finally {
+      input.close();
+      input = null;
+    }
+  }
+
+  @Override
+  public double prog() {
+    final NewlineInput in = input;
+    if(in == null) return 0;
+    final double l = in.length();
+    return l <= 0 ? 0 : in.size() / l;
   }
 }
@@ -4,19 +4,25 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.*;
 import java.util.zip.*;
 
 import org.basex.core.*;
 import org.basex.core.MainOptions.MainParser;
 import org.basex.core.cmd.*;
+import org.basex.data.*;
 import org.basex.io.*;
+import org.basex.io.serial.*;
+import org.basex.query.value.node.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
 /**
  * This class recursively scans files and directories and parses all
- * relevant files.
+ * relevant files. If more than one parser thread is specified, documents are
+ * parsed in parallel into main memory, and the resulting node events are
+ * passed on to the builder in the original order of the documents.
  *
  * @author BaseX Team 2005-13, BSD License
  * @author Christian Gruen
@@ -43,6 +49,13 @@ public final class DirParser extends Parser {
   private final boolean rawParser;
   /** Database path for storing binary files. */
   private final IOFile rawPath;
+  /** Number of parser threads. */
+  private final int threads;
+
+  /** Documents that are parsed in parallel. */
+  private final ArrayDeque<Doc> docs = new ArrayDeque<Doc>();
+  /** Parser threads (only assigned if documents are parsed in parallel). */
+  private ExecutorService pool;
 
   /** Last source. */
   private IO lastSrc;
@@ -66,6 +79,7 @@ public final class DirParser extends Parser {
     addRaw = options.get(MainOptions.ADDRAW);
     dtd = options.get(MainOptions.DTD);
     rawParser = options.get(MainOptions.PARSER) == MainParser.RAW;
+    threads = options.get(MainOptions.PARSETHREADS);
 
     filter = !source.isDir() && !source.isArchive() ? null :
       Pattern.compile(IOFile.regex(opts.get(MainOptions.CREATEFILTER)));
@@ -78,7 +92,16 @@ public final class DirParser extends Parser {
   public void parse(final Builder build) throws IOException {
     build.meta.filesize = 0;
     build.meta.original = src.path();
-    parse(build, src);
+    // parse documents in parallel if a directory or archive is specified
+    if(threads > 1 && filter != null) pool = Executors.newFixedThreadPool(threads);
+    try {
+      parse(build, src);
+      while(!docs.isEmpty()) add(build, docs.poll());
+    } finally {
+      if(pool != null) pool.shutdownNow();
+      pool = null;
+      docs.clear();
+    }
   }
 
   /**
@@ -157,6 +180,10 @@ public final class DirParser extends Parser {
         }
       } else {
         // store input as XML
+        if(pool != null) {
+          parseParallel(b, targ);
+          return;
+        }
         boolean ok = true;
         IO in = src;
         if(skipCorrupt) {
@@ -188,6 +215,57 @@ public final class DirParser extends Parser {
     }
   }
 
+  /**
+   * Parses the current source in a parser thread. If the maximum number of
+   * pending documents is exceeded, the first document is added to the builder.
+   * @param b builder instance
+   * @param targ target path
+   * @throws IOException I/O exception
+   */
+  private void parseParallel(final Builder b, final String targ) throws IOException {
+    // streams of archive entries are consumed by the calling thread
+    IO in = src;
+    if(in instanceof IOStream) {
+      in = new IOContent(src.read());
+      in.name(src.name());
+    }
+    final Doc doc = new Doc(in, targ);
+    doc.data = pool.submit(doc);
+    docs.add(doc);
+    // limit number of documents that are kept in main memory
+    while(docs.size() > threads << 1) add(b, docs.poll());
+  }
+
+  /**
+   * Adds a document that has been parsed in a parser thread.
+   * @param b builder instance
+   * @param doc document
+   * @throws IOException I/O exception
+   */
+  private void add(final Builder b, final Doc doc) throws IOException {
+    b.checkStop();
+    final MemData data;
+    try {
+      data = doc.data.get();
+    } catch(final InterruptedException ex) {
+      throw new IOException(ex);
+    } catch(final ExecutionException ex) {
+      final Throwable th = ex.getCause();
+      if(th instanceof RuntimeException) throw (RuntimeException) th;
+      if(!(th instanceof IOException)) throw Util.notExpected(th);
+      if(!skipCorrupt) throw (IOException) th;
+      Util.debug(th);
+      skipped.add(doc.in.path());
+      return;
+    }
+    // pass on node events of all documents to the builder (parsers may create more than one)
+    final IntList pres = data.resources.docs();
+    final int ps = pres.size();
+    for(int p = 0; p < ps; p++) new BuilderSerializer(b).serialize(new DBNode(data, pres.get(p)));
+    // dump debug data
+    if(Prop.debug && (++c & 0x3FF) == 0) Util.err(";");
+  }
+
   @Override
   public String info() {
     final TokenBuilder tb = new TokenBuilder();
@@ -221,4 +299,29 @@ public final class DirParser extends Parser {
   public void close() throws IOException {
     if(parser != null) parser.close();
   }
+
+  /** Document that is parsed in a parser thread. */
+  private final class Doc implements Callable<MemData> {
+    /** Input. */
+    final IO in;
+    /** Target path. */
+    final String targ;
+    /** Parsed document. */
+    Future<MemData> data;
+
+    /**
+     * Constructor.
+     * @param i input
+     * @param t target path
+     */
+    Doc(final IO i, final String t) {
+      in = i;
+      targ = t;
+    }
+
+    @Override
+    public MemData call() throws IOException {
+      return MemBuilder.build("", Parser.singleParser(in, options, targ));
+    }
+  }
 }
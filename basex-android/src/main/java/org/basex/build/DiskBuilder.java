@@ -9,12 +9,14 @@ import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.data.*;
 import org.basex.index.name.*;
+import org.basex.index.stats.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.*;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.util.*;
+import org.basex.util.hash.*;
 
 /**
  * This class creates a database instance on disk.
@@ -32,6 +34,9 @@ public final class DiskBuilder extends Builder {
     }
   };
 
+  /** Maximum number of dictionary entries. */
+  private static final int MAXDICT = 1 << 16;
+
   /** Database table. */
   private DataOutput tout;
   /** Database texts. */
@@ -41,6 +46,8 @@ public final class DiskBuilder extends Builder {
   /** Output stream for temporary values. */
   private DataOutput sout;
 
+  /** Dictionary of frequent attribute values. */
+  private final TokenSet dict = new TokenSet();
   /** Database context. */
   private final Context context;
   /** Debug counter. */
@@ -80,8 +87,14 @@ public final class DiskBuilder extends Builder {
     atts = new Names(md);
     try {
       tout = new DataOutput(new TableOutput(md, DATATBL));
-      xout = new DataOutput(md.dbfile(DATATXT), bs);
-      vout = new DataOutput(md.dbfile(DATAATV), bs);
+      if(md.compress) {
+        // texts and attribute values are compressed in blocks
+        xout = new DataOutput(new BlockOutput(md.dbfile(DATATXZ), bs));
+        vout = new DataOutput(new BlockOutput(md.dbfile(DATAATZ), bs));
+      } else {
+        xout = new DataOutput(md.dbfile(DATATXT), bs);
+        vout = new DataOutput(md.dbfile(DATAATV), bs);
+      }
       sout = new DataOutput(md.dbfile(DATATMP), bs);
 
       final Performance perf = Prop.debug ? new Performance() : null;
@@ -104,7 +117,7 @@ public final class DiskBuilder extends Builder {
     md.dbfile(DATATMP).delete();
 
     // return database instance
-    final DiskData data = new DiskData(md, tags, atts, path, ns);
+    final DiskData data = new DiskData(md, tags, atts, path, ns, dict);
     data.finishUpdate();
     return data;
   }
@@ -136,7 +149,7 @@ public final class DiskBuilder extends Builder {
   protected void addDoc(final byte[] value) throws IOException {
     tout.write1(Data.DOC);
     tout.write2(0);
-    tout.write5(textOff(value, true));
+    tout.write5(textOff(value, 0));
     tout.write4(0);
     tout.write4(meta.size++);
   }
@@ -161,7 +174,7 @@ public final class DiskBuilder extends Builder {
 
     tout.write1(dist << 3 | Data.ATTR);
     tout.write2(nm);
-    tout.write5(textOff(value, false));
+    tout.write5(textOff(value, nm));
     tout.write4(uri);
     tout.write4(meta.size++);
   }
@@ -170,7 +183,7 @@ public final class DiskBuilder extends Builder {
   protected void addText(final byte[] value, final int dist, final byte kind) throws IOException {
     tout.write1(kind);
     tout.write2(0);
-    tout.write5(textOff(value, true));
+    tout.write5(textOff(value, 0));
     tout.write4(dist);
     tout.write4(meta.size++);
   }
@@ -185,19 +198,29 @@ public final class DiskBuilder extends Builder {
   /**
    * Calculates the text offset and writes the text value.
    * @param value value to be inlined
-   * @param text text/attribute flag
+   * @param name name id of an attribute, or {@code 0} for texts
    * @return inline value or text position
    * @throws IOException I/O exception
    */
-  private long textOff(final byte[] value, final boolean text) throws IOException {
-    // inline integer values...
-    final long v = Token.toSimpleInt(value);
-    if(v != Integer.MIN_VALUE) return v | IO.OFFNUM;
+  private long textOff(final byte[] value, final int name) throws IOException {
+    // inline integers and short strings...
+    final long v = InlineText.inline(value);
+    if(v != -1) return v;
+
+    final boolean text = name == 0;
+    if(!text) {
+      // reference values of attributes with few distinct values via dictionary
+      int id = dict.id(value);
+      if(id == 0 && dict.size() < MAXDICT && atts.stat(name).type == StatsType.CATEGORY) {
+        id = dict.put(value);
+      }
+      if(id != 0) return InlineText.dict(id);
+    }
 
     // store text
     final DataOutput store = text ? xout : vout;
     final long off = store.size();
-    final byte[] val = COMP.get().pack(value);
+    final byte[] val = meta.compress ? value : COMP.get().pack(value);
     store.writeToken(val);
     return val == value ? off : off | IO.OFFCOMP;
   }
@@ -1,11 +1,16 @@
 package org.basex.build;
 
+import static org.basex.util.Token.*;
+
 import java.io.*;
 
 import org.basex.build.xml.*;
 import org.basex.core.*;
 import org.basex.io.*;
+import org.basex.io.in.*;
 import org.basex.io.parse.json.*;
+import org.basex.query.*;
+import org.basex.util.*;
 
 /**
  * This class parses files in the JSON format
@@ -14,17 +19,27 @@ import org.basex.io.parse.json.*;
  * <p>The parser provides some options, which can be specified via the
  * {@link MainOptions#JSONPARSER} option.</p>
  *
+ * <p>If type information is not merged, the node events are directly passed on to the
+ * builder. If the {@link JsonParserOptions#LINES} option is enabled, each line of the
+ * input is parsed as a separate document.</p>
+ *
  * @author BaseX Team 2005-13, BSD License
  * @author Christian Gruen
  */
-public final class JsonParser extends XMLParser {
+public final class JsonParser extends Parser {
+  /** Parser options. */
+  private final JsonParserOptions jopts;
+  /** Input (assigned during parsing). */
+  private NewlineInput input;
+  /** Current line (lines format). */
+  private int line;
+
   /**
    * Constructor.
    * @param source document source
    * @param opts database options
-   * @throws IOException I/O exception
    */
-  public JsonParser(final IO source, final MainOptions opts) throws IOException {
+  public JsonParser(final IO source, final MainOptions opts) {
     this(source, opts, opts.get(MainOptions.JSONPARSER));
   }
 
@@ -33,25 +48,82 @@ public final class JsonParser extends XMLParser {
    * @param source document source
    * @param opts database options
    * @param jopts parser options
-   * @throws IOException I/O exception
    */
-  public JsonParser(final IO source, final MainOptions opts, final JsonParserOptions jopts)
-      throws IOException {
-    super(toXML(source, jopts), opts);
+  public JsonParser(final IO source, final MainOptions opts, final JsonParserOptions jopts) {
+    super(source, opts);
+    this.jopts = jopts;
+  }
+
+  @Override
+  public void parse(final Builder build) throws IOException {
+    input = new NewlineInput(src).encoding(jopts.get(JsonParserOptions.ENCODING));
+    try {
+      if(jopts.get(JsonParserOptions.LINES)) {
+        final String name = target + src.name() + '/';
+        final TokenBuilder tb = new TokenBuilder();
+        while(true) {
+          final int ch = input.read();
+          if(ch != '\n' && ch != -1) {
+            tb.add(ch);
+            continue;
+          }
+          // parse non-empty line
+          line++;
+          final byte[] json = tb.finish();
+          if(!ws(json)) {
+            try {
+              parse(build, json, name + line);
+            } catch(final QueryIOException ex) {
+              throw new BuildException(det() + Text.COLS + ex.getLocalizedMessage());
+            }
+          }
+          if(ch == -1) break;
+          tb.reset();
+        }
+      } else {
+        parse(build, input.content(), target + src.name());
+      }
+    } finally {
+      input.close();
+      input = null;
+    }
   }
 
   /**
-   * Converts a JSON document to XML.
-   * @param io input
-   * @param options parser options
-   * @return parser
+   * Parses a single JSON document and passes it on to the builder.
+   * @param build builder
+   * @param json JSON input
+   * @param path path of the resulting document
    * @throws IOException I/O exception
    */
-  public static IOContent toXML(final IO io, final JsonParserOptions options) throws IOException {
-    final JsonConverter conv = JsonConverter.get(options);
-    conv.convert(io);
-    final IOContent xml = new IOContent(conv.finish().serialize().toArray());
-    xml.name(io.name());
-    return xml;
+  private void parse(final Builder build, final byte[] json, final String path)
+      throws IOException {
+
+    if(JsonBuilderConverter.supports(jopts)) {
+      build.openDoc(token(path));
+      new JsonBuilderConverter(jopts, build, options.get(MainOptions.CHOP)).
+        convert(json, src.path());
+      build.closeDoc();
+    } else {
+      // other formats, or merged type information: create intermediate tree
+      final JsonConverter conv = JsonConverter.get(jopts);
+      conv.convert(json, src.path());
+      final IOContent xml = new IOContent(conv.finish().serialize().toArray());
+      xml.name(path);
+      new XMLParser(xml, options).parse(build);
+    }
+  }
+
+  @Override
+  public String det() {
+    return line == 0 ? src.path() : Util.info(Text.SCANPOS_X_X, src.path(), line);
+  }
+
+  @Override
+  public double prog() {
+    final NewlineInput in = input;
+    if(in == null) return 0;
+    final double l = in.length();
+    return l <= 0 ? 0 : in.size() / l;
   }
 }
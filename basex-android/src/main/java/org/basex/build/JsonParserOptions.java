@@ -13,4 +13,6 @@ public final class JsonParserOptions extends JsonOptions {
   public static final StringOption ENCODING = new StringOption("encoding");
   /** Option: unescape special characters. */
   public static final BooleanOption UNESCAPE = new BooleanOption("unescape", true);
+  /** Option: parse each line as separate document (database parser only). */
+  public static final BooleanOption LINES = new BooleanOption("lines", false);
 }
@@ -101,8 +101,9 @@ public abstract class Parser extends Proc {
   public static SingleParser xmlParser(final IO in, final MainOptions options)
       throws IOException {
     // use internal or default XML parser
-    return options.get(MainOptions.INTPARSE) ? new XMLParser(in, options) :
-      new SAXWrapper(in, options);
+    if(!options.get(MainOptions.INTPARSE)) return new SAXWrapper(in, options);
+    return XMLBufferParser.supports(in) ? new XMLBufferParser(in, options) :
+      new XMLParser(in, options);
   }
 
   /**
@@ -113,11 +114,11 @@ public abstract class Parser extends Proc {
    * @return parser
    * @throws IOException I/O exception
    */
-  public static SingleParser singleParser(final IO in, final MainOptions options,
+  public static Parser singleParser(final IO in, final MainOptions options,
       final String target) throws IOException {
 
     // use file specific parser
-    final SingleParser p;
+    final Parser p;
     final MainParser mp = options.get(MainOptions.PARSER);
     switch(mp) {
       case HTML: p = new HtmlParser(in, options); break;
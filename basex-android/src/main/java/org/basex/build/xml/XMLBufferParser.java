@@ -0,0 +1,922 @@
+package org.basex.build.xml;
+
+import static org.basex.build.BuildText.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+import org.basex.build.*;
+import org.basex.build.BuildText.Type;
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class parses UTF-8 encoded XML documents without the character-wise decoding
+ * of the {@link XMLScanner}. The input is read into a byte buffer via a file channel,
+ * and names, texts and attribute values are sliced from the buffer:
+ * <ul>
+ * <li> texts and values are only copied once, or assembled in a token builder if they
+ *   contain references, CDATA sections or carriage returns;</li>
+ * <li> element and attribute names are interned, so each distinct name is only
+ *   created once.</li>
+ * </ul>
+ * Documents with a doctype declaration or a non-UTF-8 encoding are parsed by the
+ * {@link XMLParser}; see {@link #supports(IO)}.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class XMLBufferParser extends SingleParser {
+  /** Initial buffer size. */
+  private static final int BUFFER = 1 << 16;
+  /** Maximum number of bytes that are checked for a doctype declaration. */
+  private static final int HEAD = 1 << 12;
+  /** UTF-8 byte order mark. */
+  private static final byte[] BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+  /** Start of a CDATA section. */
+  private static final byte[] CDATA = token("<![CDATA[");
+  /** Start of a comment. */
+  private static final byte[] COMMENT = token("<!--");
+  /** End of a comment. */
+  private static final byte[] COMMENT_END = token("-->");
+  /** End of a processing instruction. */
+  private static final byte[] PI_END = token("?>");
+  /** XML declaration. */
+  private static final byte[] DECL = token("<?xml");
+  /** Encoding pseudo-attribute. */
+  private static final byte[] ENCODING = token("encoding");
+  /** Names of the predefined entities. */
+  private static final byte[][] ENTITIES = tokens("amp", "apos", "quot", "lt", "gt");
+  /** Values of the predefined entities. */
+  private static final byte[] VALUES = token("&'\"<>");
+  /** ASCII characters that may start a name. */
+  private static final boolean[] START = new boolean[128];
+  /** ASCII characters that may occur in a name. */
+  private static final boolean[] NAME = new boolean[128];
+
+  static {
+    for(int c = 0; c < 128; c++) {
+      START[c] = XMLToken.isStartChar(c);
+      NAME[c] = XMLToken.isChar(c);
+    }
+  }
+
+  /** Input channel ({@code null} if the complete input is buffered). */
+  private final ReadableByteChannel channel;
+  /** Strip namespaces. */
+  private final boolean stripNS;
+  /** Chop whitespaces. */
+  private final boolean chop;
+  /** Names of opened elements. */
+  private final TokenList tags = new TokenList();
+  /** Whitespace handling. */
+  private final BoolList chops = new BoolList();
+  /** Token builder for texts and values that need to be normalized. */
+  private final TokenBuilder tb = new TokenBuilder();
+  /** Number of input bytes. */
+  private final long length;
+
+  /** Input buffer. */
+  private byte[] buffer;
+  /** Current position in the buffer. */
+  private int pos;
+  /** Number of valid bytes in the buffer. */
+  private int end;
+  /** Start of the currently scanned slice ({@code -1} if no slice is scanned). */
+  private int mark = -1;
+  /** Number of bytes that have been discarded from the buffer. */
+  private long base;
+  /** Indicates if the input has been completely read. */
+  private boolean eof;
+
+  /** Interned names. */
+  private byte[][] names = new byte[1 << 8][];
+  /** Number of interned names. */
+  private int size;
+
+  /** Declared encoding. */
+  private String encoding = UTF8;
+  /** Root element was opened. */
+  private boolean root;
+  /** Closed root tag. */
+  private boolean closed;
+
+  /**
+   * Constructor.
+   * @param source document source
+   * @param opts database options
+   * @throws IOException I/O exception
+   */
+  public XMLBufferParser(final IO source, final MainOptions opts) throws IOException {
+    super(source, opts);
+    stripNS = opts.get(MainOptions.STRIPNS);
+    chop = opts.get(MainOptions.CHOP);
+    chops.push(chop);
+    length = source.length();
+    if(source instanceof IOFile) {
+      channel = new FileInputStream(((IOFile) source).file()).getChannel();
+      buffer = new byte[BUFFER];
+    } else {
+      channel = null;
+      buffer = source.read();
+      end = buffer.length;
+      eof = true;
+    }
+  }
+
+  /**
+   * Checks if the specified input can be parsed by this parser. This is the case if it
+   * is a file or main-memory content, if it is encoded in UTF-8 (or ASCII), and if no
+   * doctype declaration is found before the root element.
+   * @param source document source
+   * @return result of check
+   * @throws IOException I/O exception
+   */
+  public static boolean supports(final IO source) throws IOException {
+    final byte[] head;
+    if(source instanceof IOContent) {
+      head = source.read();
+    } else if(source instanceof IOFile) {
+      final RandomAccessFile raf = new RandomAccessFile(((IOFile) source).file(), "r");
+      try {
+        head = new byte[(int) Math.min(HEAD, raf.length())];
+        raf.readFully(head);
+      } finally {
+        raf.close();
+      }
+    } else {
+      return false;
+    }
+
+    final int hl = Math.min(head.length, HEAD);
+    int p = startsWith(head, BOM) ? BOM.length : 0;
+    // skip XML declaration
+    if(p + DECL.length < hl && at(head, p, DECL) && ws(head[p + DECL.length])) {
+      final int e = indexOf(head, p, hl, PI_END);
+      if(e == -1) return false;
+      final int i = indexOf(head, p, e, ENCODING);
+      if(i != -1) {
+        final int q = indexOf(head, i, e, '"') != -1 ? indexOf(head, i, e, '"') :
+          indexOf(head, i, e, '\'');
+        if(q == -1) return false;
+        final int qe = indexOf(head, q + 1, e, head[q]);
+        if(qe == -1) return false;
+        final String enc = string(Arrays.copyOfRange(head, q + 1, qe));
+        if(normEncoding(enc) != UTF8 && !enc.equalsIgnoreCase("US-ASCII") &&
+            !enc.equalsIgnoreCase("ASCII")) return false;
+      }
+      p = e + PI_END.length;
+    }
+    // skip comments and processing instructions
+    while(p < hl) {
+      final byte b = head[p];
+      if(b != '<') {
+        if(!ws(b)) return false;
+        p++;
+      } else if(p + 1 < hl && head[p + 1] == '?') {
+        p = indexOf(head, p, hl, PI_END);
+        if(p == -1) return false;
+        p += PI_END.length;
+      } else if(at(head, p, COMMENT)) {
+        p = indexOf(head, p + COMMENT.length, hl, COMMENT_END);
+        if(p == -1) return false;
+        p += COMMENT_END.length;
+      } else {
+        // reject doctype declarations and incomplete input
+        return p + 1 < hl && head[p + 1] != '!';
+      }
+    }
+    // empty or whitespace-only input: report errors via the default parser
+    return false;
+  }
+
+  @Override
+  public void parse() throws IOException {
+    if(fill(BOM.length) && at(BOM)) pos += BOM.length;
+    declaration();
+
+    while(pos < end || fill(1)) {
+      if(buffer[pos] != '<' || fill(CDATA.length) && at(CDATA)) {
+        text();
+      } else if(fill(COMMENT.length) && at(COMMENT)) {
+        pos += COMMENT.length;
+        comment();
+      } else {
+        final int c = fill(2) ? buffer[pos + 1] : 0;
+        if(c == '?') {
+          pos += 2;
+          pi();
+        } else if(c == '/') {
+          if(closed) throw new BuildException(MOREROOTS, det());
+          pos += 2;
+          closeElem();
+        } else if(c == '!') {
+          throw error(COMMDASH);
+        } else {
+          if(closed) throw new BuildException(MOREROOTS, det());
+          pos++;
+          openElem();
+        }
+      }
+    }
+    builder.encoding(encoding);
+
+    if(!tags.isEmpty()) throw new BuildException(DOCOPEN, det(), tags.pop());
+    if(!root) throw error(DOCEMPTY);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if(channel != null) channel.close();
+  }
+
+  /**
+   * Parses the optional XML declaration and adopts the declared encoding.
+   * @throws IOException I/O exception
+   */
+  private void declaration() throws IOException {
+    if(!fill(DECL.length + 1) || !at(DECL) || !ws(buffer[pos + DECL.length])) return;
+    pos += DECL.length;
+    while(true) {
+      space();
+      if(consume('?')) {
+        check('>');
+        return;
+      }
+      scanName();
+      final boolean enc = matches(ENCODING, 0, mark, pos);
+      mark = -1;
+      space();
+      check('=');
+      space();
+      final int q = next();
+      if(q != '"' && q != '\'') throw error(SCANQUOTE, (char) q);
+      mark = pos;
+      while(peek() != q) {
+        if(pos == end) throw error(UNCLOSED);
+        pos++;
+      }
+      if(enc) encoding = normEncoding(string(Arrays.copyOfRange(buffer, mark, pos)));
+      mark = -1;
+      pos++;
+    }
+  }
+
+  /**
+   * Parses a start tag or an empty-element tag.
+   * @throws IOException I/O exception
+   */
+  private void openElem() throws IOException {
+    scanName();
+    final byte[] en = intern(stripNS);
+    atts.clear();
+    nsp.clear();
+
+    while(true) {
+      final boolean s = space();
+      final int c = next();
+      if(c == '>') {
+        builder.openElem(en, atts, nsp);
+        tags.push(en);
+        boolean ch = chops.peek();
+        if(chop) {
+          final int a = atts.get(DataText.XML_SPACE);
+          if(a != -1) {
+            final byte[] v = atts.value(a);
+            if(eq(v, DataText.DEFAULT)) ch = true;
+            else if(eq(v, DataText.PRESERVE)) ch = false;
+          }
+        }
+        chops.push(ch);
+        root = true;
+        return;
+      }
+      if(c == '/') {
+        if(next() != '>') throw error(CLOSING);
+        builder.emptyElem(en, atts, nsp);
+        root = true;
+        if(tags.isEmpty()) closed = true;
+        return;
+      }
+      if(c == -1) throw error(UNCLOSED);
+      pos--;
+      if(!s) throw new BuildException(PARSEINV, det(), Type.WS.string, Type.ATTNAME.string);
+
+      // parse attribute
+      scanName();
+      final int ns = mark, ne = pos;
+      final boolean xmlns = matches(XMLNS, 0, ns, ne) || ne - ns > XMLNSC.length &&
+          matches(XMLNSC, 0, ns, ns + XMLNSC.length);
+      final byte[] an = xmlns ? null : intern(stripNS);
+      byte[] pref = null;
+      if(xmlns && !stripNS) {
+        if(ne - ns == XMLNS.length) {
+          pref = EMPTY;
+        } else {
+          // skip "xmlns:"; the remaining name is the declared prefix
+          mark = ns + XMLNSC.length;
+          pref = intern(false);
+        }
+      }
+      mark = -1;
+      space();
+      check('=');
+      space();
+      final int q = next();
+      if(q != '"' && q != '\'') throw error(SCANQUOTE, (char) q);
+      final byte[] av = value(q);
+      if(an != null) atts.add(an, av);
+      else if(pref != null) nsp.add(pref, av);
+    }
+  }
+
+  /**
+   * Parses an end tag.
+   * @throws IOException I/O exception
+   */
+  private void closeElem() throws IOException {
+    scanName();
+    final byte[] en = intern(stripNS);
+    space();
+    check('>');
+
+    if(tags.isEmpty()) throw new BuildException(OPEN, det(), en);
+    // names are interned: identical names are represented by the same array
+    final byte[] open = tags.pop();
+    if(open != en) throw new BuildException(CLOSINGELEM, det(), en, open);
+    chops.pop();
+    builder.closeElem();
+    if(tags.isEmpty()) closed = true;
+  }
+
+  /**
+   * Parses a text, which may contain references and CDATA sections.
+   * @throws IOException I/O exception
+   */
+  private void text() throws IOException {
+    mark = pos;
+    boolean slice = true;
+    while(true) {
+      // skip regular characters
+      final byte[] b = buffer;
+      final int s = pos, e = end;
+      int p = s;
+      while(p < e) {
+        final byte c = b[p];
+        if(c < 0 || c == '<' || c == '&' || c == '\r' || c == ']') break;
+        p++;
+      }
+      if(!slice) tb.add(b, s, p);
+      pos = p;
+      if(p == e) {
+        if(fill(1)) continue;
+        break;
+      }
+
+      final byte c = b[p];
+      if(c == '<') {
+        if(!fill(CDATA.length) || !at(CDATA)) break;
+        slice = slice && normalize();
+        pos += CDATA.length;
+        cdata();
+      } else if(c == '&') {
+        slice = slice && normalize();
+        pos++;
+        ref();
+      } else if(c == '\r') {
+        slice = slice && normalize();
+        newline('\n');
+      } else if(c == ']') {
+        if(fill(3) && buffer[pos + 1] == ']' && buffer[pos + 2] == '>') throw error(CONTCDATA);
+        if(!slice) tb.addByte(c);
+        pos++;
+      } else {
+        final int l = utf();
+        if(l > 0) {
+          if(!slice) tb.add(buffer, pos, pos + l);
+          pos += l;
+        } else {
+          slice = slice && normalize();
+          tb.add('?');
+          pos -= l;
+        }
+      }
+    }
+
+    // determine range of the text to be added
+    final byte[] b = slice ? buffer : tb.finish();
+    int s = slice ? mark : 0, e = slice ? pos : tb.size();
+    mark = -1;
+    if(tags.isEmpty()) {
+      for(int p = s; p < e; p++) {
+        if(!ws(b[p])) throw error(closed ? AFTERROOT : BEFOREROOT);
+      }
+      return;
+    }
+    if(chops.peek()) {
+      while(s < e && ws(b[s])) s++;
+      while(e > s && ws(b[e - 1])) e--;
+    }
+    if(s < e) builder.text(slice || s != 0 || e != b.length ? Arrays.copyOfRange(b, s, e) : b);
+  }
+
+  /**
+   * Parses an attribute value.
+   * @param q quote character
+   * @return value
+   * @throws IOException I/O exception
+   */
+  private byte[] value(final int q) throws IOException {
+    mark = pos;
+    boolean slice = true;
+    while(true) {
+      // skip regular characters
+      final byte[] b = buffer;
+      final int s = pos, e = end;
+      int p = s;
+      while(p < e) {
+        final byte c = b[p];
+        if(c < 0 || c == q || c == '&' || c == '<' || c == '\n' || c == '\r') break;
+        p++;
+      }
+      if(!slice) tb.add(b, s, p);
+      pos = p;
+      if(p == e) {
+        if(fill(1)) continue;
+        throw error(ATTCLOSE, (char) 0);
+      }
+
+      final byte c = b[p];
+      if(c == q) break;
+      if(c == '<') throw error(ATTCHAR, '<');
+      slice = slice && normalize();
+      if(c == '&') {
+        pos++;
+        ref();
+      } else if(c == '\n' || c == '\r') {
+        newline(' ');
+      } else {
+        final int l = utf();
+        if(l > 0) {
+          tb.add(buffer, pos, pos + l);
+          pos += l;
+        } else {
+          tb.add('?');
+          pos -= l;
+        }
+      }
+    }
+    final byte[] v = slice ? Arrays.copyOfRange(buffer, mark, pos) : tb.finish();
+    mark = -1;
+    pos++;
+    return v;
+  }
+
+  /**
+   * Parses a comment.
+   * @throws IOException I/O exception
+   */
+  private void comment() throws IOException {
+    mark = pos;
+    while(true) {
+      final int c = next();
+      if(c == -1) throw error(UNCLOSED);
+      if(c == '-' && consume('-')) break;
+    }
+    final int e = pos - 2;
+    final int c = next();
+    if(c != '>') throw error(WRONGCHAR, '>', (char) c);
+    builder.comment(copy(mark, e));
+    mark = -1;
+  }
+
+  /**
+   * Parses a processing instruction.
+   * @throws IOException I/O exception
+   */
+  private void pi() throws IOException {
+    scanName();
+    if(pos - mark == 3 && eq(lc(Arrays.copyOfRange(buffer, mark, pos)), XML)) {
+      throw error(PIRES);
+    }
+    final int c = peek();
+    if(c != '?' && !ws(c)) throw error(PITEXT);
+    while(true) {
+      final int ch = next();
+      if(ch == -1) throw error(UNCLOSED);
+      if(ch == '?' && consume('>')) break;
+    }
+    builder.pi(copy(mark, pos - 2));
+    mark = -1;
+  }
+
+  /**
+   * Parses the contents of a CDATA section and adds them to the token builder.
+   * @throws IOException I/O exception
+   */
+  private void cdata() throws IOException {
+    while(true) {
+      final int c = peek();
+      if(c == -1) throw error(UNCLOSED);
+      if(c == ']' && fill(3) && buffer[pos + 1] == ']' && buffer[pos + 2] == '>') {
+        pos += 3;
+        return;
+      }
+      if(c == '\r') {
+        newline('\n');
+      } else {
+        tb.addByte(buffer[pos++]);
+      }
+    }
+  }
+
+  /**
+   * Parses a character or entity reference and adds the result to the token builder.
+   * Invalid and unknown references are replaced with a question mark.
+   * @throws IOException I/O exception
+   */
+  private void ref() throws IOException {
+    if(consume('#')) {
+      final int r = consume('x') ? 16 : 10;
+      long n = 0;
+      int c = next(), l = 0;
+      for(; c != ';'; c = next(), l++) {
+        final int d = Character.digit(c, r);
+        if(d == -1) {
+          // skip remaining characters of an invalid reference
+          for(int i = l; i < 10 && c >= ' ' && c != ';'; i++) c = next();
+          tb.add('?');
+          return;
+        }
+        if(n <= Character.MAX_CODE_POINT) n = n * r + d;
+      }
+      tb.add(l != 0 && XMLToken.valid((int) n) ? (int) n : '?');
+      return;
+    }
+
+    // predefined entities
+    int e = 0;
+    for(byte b; fill(e + 1) && (b = buffer[pos + e]) >= 0 && NAME[b];) e++;
+    byte v = '?';
+    for(int i = 0; i < ENTITIES.length; i++) {
+      if(matches(ENTITIES[i], 0, pos, pos + e)) v = VALUES[i];
+    }
+    pos += e;
+    tb.addByte(consume(';') ? v : (byte) '?');
+  }
+
+  /**
+   * Skips a newline, a carriage return, or both, and adds the specified character to the
+   * token builder.
+   * @param ch character to be added
+   * @throws IOException I/O exception
+   */
+  private void newline(final char ch) throws IOException {
+    if(buffer[pos++] == '\r' && peek() == '\n') pos++;
+    tb.addByte((byte) ch);
+  }
+
+  /**
+   * Switches from slicing to the token builder by adding the bytes of the current slice.
+   * @return {@code false}
+   */
+  private boolean normalize() {
+    tb.reset();
+    tb.add(buffer, mark, pos);
+    mark = -1;
+    return false;
+  }
+
+  /**
+   * Returns a copy of the specified bytes. Carriage returns and invalid UTF-8
+   * sequences are normalized.
+   * @param s start position
+   * @param e end position
+   * @return copy
+   */
+  private byte[] copy(final int s, final int e) {
+    int p = s;
+    while(p < e) {
+      final byte b = buffer[p];
+      if(b == '\r') break;
+      if(b >= 0) {
+        p++;
+      } else {
+        final int l = utf(p, e);
+        if(l < 0) break;
+        p += l;
+      }
+    }
+    if(p == e) return Arrays.copyOfRange(buffer, s, e);
+
+    tb.reset();
+    tb.add(buffer, s, p);
+    while(p < e) {
+      final byte b = buffer[p];
+      if(b == '\r') {
+        if(p + 1 == e || buffer[p + 1] != '\n') tb.addByte((byte) '\n');
+        p++;
+      } else if(b >= 0) {
+        tb.addByte(b);
+        p++;
+      } else {
+        final int l = utf(p, e);
+        if(l > 0) tb.add(buffer, p, p + l);
+        else tb.add('?');
+        p += Math.abs(l);
+      }
+    }
+    return tb.finish();
+  }
+
+  /**
+   * Returns the length of the UTF-8 sequence at the current position.
+   * @return length, or negative number of bytes to be skipped if the sequence is invalid
+   * @throws IOException I/O exception
+   */
+  private int utf() throws IOException {
+    fill(4);
+    return utf(pos, end);
+  }
+
+  /**
+   * Returns the length of the UTF-8 sequence at the specified position.
+   * @param p position
+   * @param e end of valid bytes
+   * @return length, or negative number of bytes to be skipped if the sequence is invalid
+   */
+  private int utf(final int p, final int e) {
+    final byte b = buffer[p];
+    if((b & 0xFF) < 0xC0) return -1;
+    final int l = cl(b);
+    for(int i = 1; i < l; i++) {
+      if(p + i == e) return -i;
+      if(buffer[p + i] >= 0) return -i - 1;
+    }
+    return l;
+  }
+
+  /**
+   * Scans a name. Its start position is assigned to {@link #mark}.
+   * @throws IOException I/O exception
+   */
+  private void scanName() throws IOException {
+    mark = pos;
+    final int c = peek();
+    if(c == -1) throw error(UNCLOSED);
+    if(c < 0x80 && !START[c]) throw error(CHARACTER, (char) c);
+    while(pos < end || fill(1)) {
+      final byte b = buffer[pos];
+      if(b >= 0 && !NAME[b]) break;
+      pos++;
+    }
+  }
+
+  /**
+   * Returns an interned instance of the scanned name.
+   * @param local only return the part after the first colon, as done by the
+   *   {@link XMLParser} (the builder rejects names with a remaining undeclared prefix)
+   * @return name
+   */
+  private byte[] intern(final boolean local) {
+    int s = mark;
+    final int e = pos;
+    if(local) {
+      for(int p = s; p < e; p++) {
+        if(buffer[p] == ':') {
+          s = p + 1;
+          break;
+        }
+      }
+    }
+
+    final int m = names.length - 1;
+    int i = hash(buffer, s, e) & m;
+    for(byte[] n; (n = names[i]) != null; i = i + 1 & m) {
+      if(matches(n, 0, s, e)) return n;
+    }
+    final byte[] n = Arrays.copyOfRange(buffer, s, e);
+    names[i] = n;
+    if(++size << 1 > names.length) rehash();
+    return n;
+  }
+
+  /**
+   * Doubles the size of the name table.
+   */
+  private void rehash() {
+    final byte[][] old = names;
+    names = new byte[old.length << 1][];
+    final int m = names.length - 1;
+    for(final byte[] n : old) {
+      if(n == null) continue;
+      int i = hash(n, 0, n.length) & m;
+      while(names[i] != null) i = i + 1 & m;
+      names[i] = n;
+    }
+  }
+
+  /**
+   * Calculates the hash code of the specified range of an array.
+   * @param b array
+   * @param s start position
+   * @param e end position
+   * @return hash code
+   */
+  private static int hash(final byte[] b, final int s, final int e) {
+    int h = 0;
+    for(int p = s; p < e; p++) h = (h << 5) - h + b[p];
+    return h;
+  }
+
+  /**
+   * Skips whitespaces.
+   * @return {@code true} if whitespaces were found
+   * @throws IOException I/O exception
+   */
+  private boolean space() throws IOException {
+    final int p = pos;
+    while((pos < end || fill(1)) && ws(buffer[pos])) pos++;
+    return pos != p;
+  }
+
+  /**
+   * Checks if the next byte is the specified character.
+   * @param ch character to be found
+   * @throws IOException I/O exception
+   */
+  private void check(final char ch) throws IOException {
+    final int c = next();
+    if(c != ch) throw error(WRONGCHAR, ch, (char) c);
+  }
+
+  /**
+   * Consumes the next byte if it equals the specified character.
+   * @param ch character
+   * @return result of check
+   * @throws IOException I/O exception
+   */
+  private boolean consume(final char ch) throws IOException {
+    if(peek() != ch) return false;
+    pos++;
+    return true;
+  }
+
+  /**
+   * Returns the next byte without consuming it.
+   * @return next byte, or {@code -1} if the end of input has been reached
+   * @throws IOException I/O exception
+   */
+  private int peek() throws IOException {
+    return pos < end || fill(1) ? buffer[pos] & 0xFF : -1;
+  }
+
+  /**
+   * Consumes and returns the next byte.
+   * @return next byte, or {@code -1} if the end of input has been reached
+   * @throws IOException I/O exception
+   */
+  private int next() throws IOException {
+    return pos < end || fill(1) ? buffer[pos++] & 0xFF : -1;
+  }
+
+  /**
+   * Checks if the buffer contains the specified token at the current position.
+   * The caller needs to ensure that the bytes of the token are available.
+   * @param token token
+   * @return result of check
+   */
+  private boolean at(final byte[] token) {
+    return matches(token, 0, pos, pos + token.length);
+  }
+
+  /**
+   * Compares a token with the specified range of the buffer.
+   * @param token token
+   * @param t start position in the token
+   * @param s start position in the buffer
+   * @param e end position in the buffer
+   * @return result of check
+   */
+  private boolean matches(final byte[] token, final int t, final int s, final int e) {
+    if(token.length - t != e - s || e > end) return false;
+    for(int p = s, i = t; p < e; p++, i++) {
+      if(buffer[p] != token[i]) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Makes sure that at least the specified number of bytes is available in the buffer.
+   * If required, consumed bytes are discarded, and the buffer is enlarged.
+   * The bytes of the current slice are preserved.
+   * @param n number of bytes
+   * @return {@code true} if the bytes are available
+   * @throws IOException I/O exception
+   */
+  private boolean fill(final int n) throws IOException {
+    while(end - pos < n) {
+      if(eof) return false;
+      final int k = mark == -1 ? pos : mark;
+      if(k > 0) {
+        System.arraycopy(buffer, k, buffer, 0, end - k);
+        base += k;
+        pos -= k;
+        end -= k;
+        if(mark != -1) mark = 0;
+      } else if(end == buffer.length) {
+        buffer = Arrays.copyOf(buffer, buffer.length << 1);
+      }
+      final int r = channel.read(ByteBuffer.wrap(buffer, end, buffer.length - end));
+      if(r == -1) eof = true;
+      else end += r;
+    }
+    return true;
+  }
+
+  /**
+   * Compares a token with a range of the specified array.
+   * @param b array
+   * @param p position in the array
+   * @param token token
+   * @return result of check
+   */
+  private static boolean at(final byte[] b, final int p, final byte[] token) {
+    final int tl = token.length;
+    if(p + tl > b.length) return false;
+    for(int t = 0; t < tl; t++) if(b[p + t] != token[t]) return false;
+    return true;
+  }
+
+  /**
+   * Returns the position of the specified character.
+   * @param b array
+   * @param s start position
+   * @param e end position
+   * @param ch character
+   * @return position, or {@code -1}
+   */
+  private static int indexOf(final byte[] b, final int s, final int e, final int ch) {
+    for(int p = s; p < e; p++) if(b[p] == ch) return p;
+    return -1;
+  }
+
+  /**
+   * Returns the position of the specified token.
+   * @param b array
+   * @param s start position
+   * @param e end position
+   * @param token token
+   * @return position, or {@code -1}
+   */
+  private static int indexOf(final byte[] b, final int s, final int e, final byte[] token) {
+    for(int p = s; p + token.length <= e; p++) if(at(b, p, token)) return p;
+    return -1;
+  }
+
+  /**
+   * Returns a build exception.
+   * @param e error message
+   * @param a error arguments
+   * @return build exception
+   */
+  private BuildException error(final String e, final Object... a) {
+    return new BuildException(det() + Text.COLS + e, a);
+  }
+
+  @Override
+  protected String det() {
+    final String path = src.path();
+    int line = 1;
+    try {
+      // count lines up to the current position
+      final InputStream is = src.inputStream();
+      try {
+        final long p = base + pos;
+        final BufferedInputStream bis = new BufferedInputStream(is);
+        for(long l = 0; l < p; l++) {
+          final int b = bis.read();
+          if(b == -1) break;
+          if(b == '\n') line++;
+        }
+      } finally {
+        is.close();
+      }
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+    return path.isEmpty() ? Util.info(Text.LINE_X, line) :
+      Util.info(Text.SCANPOS_X_X, path, line);
+  }
+
+  @Override
+  public double prog() {
+    return length <= 0 ? 0 : (double) (base + pos) / length;
+  }
+}
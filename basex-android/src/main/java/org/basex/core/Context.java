@@ -2,8 +2,11 @@ package org.basex.core;
 
 import static org.basex.core.Text.*;
 
+import java.util.concurrent.atomic.*;
+
 import org.basex.data.*;
 import org.basex.io.random.*;
+import org.basex.query.*;
 import org.basex.query.util.pkg.*;
 import org.basex.server.*;
 import org.basex.util.*;
@@ -22,6 +25,11 @@ import java.io.File;
  * @author Christian Gruen
  */
 public final class Context {
+  /** Counter for context identifiers. */
+  private static final AtomicLong IDS = new AtomicLong();
+
+  /** Unique identifier of this context. */
+  public final long id = IDS.incrementAndGet();
   /** Client listener. Set to {@code null} in standalone/server mode. */
   public final ClientListener listener;
   /** Blocked clients. */
@@ -36,6 +44,8 @@ public final class Context {
   public final Events events;
   /** Opened databases. */
   public final Datas dbs;
+  /** Compiled queries. */
+  public final QueryCache queries;
   /** Users. */
   public final Users users;
   /** Package repository. */
@@ -95,6 +105,7 @@ public final class Context {
     listener = cl;
     globalopts = ctx.globalopts;
     dbs = ctx.dbs;
+    queries = ctx.queries;
     events = ctx.events;
     sessions = ctx.sessions;
     databases = ctx.databases;
@@ -112,6 +123,7 @@ public final class Context {
   private Context(final GlobalOptions gopts) {
     globalopts = gopts;
     dbs = new Datas();
+    queries = new QueryCache();
     events = new Events();
     sessions = new Sessions();
     blocker = new ClientBlocker();
@@ -130,6 +142,7 @@ public final class Context {
    */
   public synchronized void close() {
     while(!sessions.isEmpty()) sessions.get(0).quit();
+    queries.close();
     dbs.close();
     log.close();
   }
@@ -19,6 +19,12 @@ public final class MainOptions extends Options {
   public static final BooleanOption MAINMEM = new BooleanOption("MAINMEM", false);
   /** Flag for opening a database after creating it. */
   public static final BooleanOption CREATEONLY = new BooleanOption("CREATEONLY", false);
+  /** Number of page buffers for each database file. */
+  public static final NumberOption BUFFERS = new NumberOption("BUFFERS", 16);
+  /** Flag for reading database files via read-only memory mappings. */
+  public static final BooleanOption MMAP = new BooleanOption("MMAP", false);
+  /** Flag for compressing texts and attribute values in blocks. */
+  public static final BooleanOption COMPRESS = new BooleanOption("COMPRESS", false);
 
   // Parsing
 
@@ -30,6 +36,8 @@ public final class MainOptions extends Options {
   public static final BooleanOption SKIPCORRUPT = new BooleanOption("SKIPCORRUPT", false);
   /** Flag for adding remaining files as raw files. */
   public static final BooleanOption ADDRAW = new BooleanOption("ADDRAW", false);
+  /** Number of threads for parsing documents in parallel (1: sequential). */
+  public static final NumberOption PARSETHREADS = new NumberOption("PARSETHREADS", 1);
   /** Cache new documents before adding them to a database. */
   public static final BooleanOption ADDCACHE = new BooleanOption("ADDCACHE", false);
   /** Define CSV parser options. */
@@ -75,6 +83,8 @@ public final class MainOptions extends Options {
   public static final NumberOption INDEXSPLITSIZE = new NumberOption("INDEXSPLITSIZE", 0);
   /** Maximum number of fulltext index entries to keep in memory during index creation. */
   public static final NumberOption FTINDEXSPLITSIZE = new NumberOption("FTINDEXSPLITSIZE", 0);
+  /** Number of threads for building index structures in parallel (1: sequential). */
+  public static final NumberOption INDEXTHREADS = new NumberOption("INDEXTHREADS", 1);
 
   /** Maximum length of index entries. */
   public static final NumberOption MAXLEN = new NumberOption("MAXLEN", 96);
@@ -114,6 +124,16 @@ public final class MainOptions extends Options {
   public static final BooleanOption DEFAULTDB = new BooleanOption("DEFAULTDB", false);
   /** Caches the query results. */
   public static final BooleanOption CACHEQUERY = new BooleanOption("CACHEQUERY", false);
+  /** Evaluates descendant steps via the element name index (kept in main memory). */
+  public static final BooleanOption ELEMINDEX = new BooleanOption("ELEMINDEX", false);
+  /** Memory limit for sorting tuples in main memory (in megabytes; 0: no limit). */
+  public static final NumberOption SORTMEM = new NumberOption("SORTMEM", 32);
+  /** Memory limit for grouping tuples in main memory (in megabytes; 0: no limit). */
+  public static final NumberOption GROUPMEM = new NumberOption("GROUPMEM", 32);
+  /** Maximum number of threads for evaluating for clauses in parallel (1: sequential). */
+  public static final NumberOption PARALLELFOR = new NumberOption("PARALLELFOR", 1);
+  /** Maximum number of compiled queries to be cached. */
+  public static final NumberOption QUERYCACHE = new NumberOption("QUERYCACHE", 0);
   /** Forces database creation for unknown documents. */
   public static final BooleanOption FORCECREATE = new BooleanOption("FORCECREATE", false);
   /** Validate string inputs. */
@@ -4,6 +4,8 @@ import static org.basex.core.Text.*;
 import static org.basex.data.DataText.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
@@ -78,24 +80,107 @@ public abstract class ACreate extends Command {
   }
 
   /**
-   * Builds the specified index.
-   * @param index index to be built
+   * Builds all value and full-text indexes that are enabled in the specified meta data.
    * @param data data reference
-   * @param cmd calling command
+   * @param md meta data
+   * @param cmd calling command (can be {@code null})
    * @throws IOException I/O exception
    */
-  static void create(final IndexType index, final Data data, final ACreate cmd) throws IOException {
-    if(data.inMemory()) return;
+  static void createIndexes(final Data data, final MetaData md, final ACreate cmd)
+      throws IOException {
+    final ArrayList<IndexType> types = new ArrayList<IndexType>();
+    if(md.createtext) types.add(IndexType.TEXT);
+    if(md.createattr) types.add(IndexType.ATTRIBUTE);
+    if(md.createftxt) types.add(IndexType.FULLTEXT);
+    create(data, cmd, types.toArray(new IndexType[types.size()]));
+  }
 
-    final IndexBuilder ib;
-    switch(index) {
-      case TEXT:      ib = new ValueIndexBuilder(data, true); break;
-      case ATTRIBUTE: ib = new ValueIndexBuilder(data, false); break;
-      case FULLTEXT:  ib = new FTBuilder(data); break;
-      default:        throw Util.notExpected();
+  /**
+   * Builds the specified indexes. If the {@link MainOptions#INDEXTHREADS} option is
+   * greater than one, the indexes will be built in parallel.
+   * @param data data reference
+   * @param cmd calling command (can be {@code null})
+   * @param indexes indexes to be built
+   * @throws IOException I/O exception
+   */
+  static void create(final Data data, final ACreate cmd, final IndexType... indexes)
+      throws IOException {
+
+    final int is = indexes.length;
+    if(data.inMemory() || is == 0) return;
+
+    final IndexBuilder[] ibs = new IndexBuilder[is];
+    for(int i = 0; i < is; i++) {
+      switch(indexes[i]) {
+        case TEXT:      ibs[i] = new ValueIndexBuilder(data, true); break;
+        case ATTRIBUTE: ibs[i] = new ValueIndexBuilder(data, false); break;
+        case FULLTEXT:  ibs[i] = new FTBuilder(data); break;
+        default:        throw Util.notExpected();
+      }
+      data.closeIndex(indexes[i]);
+    }
+
+    final Index[] index = new Index[is];
+    final int threads = Math.min(is, data.meta.options.get(MainOptions.INDEXTHREADS));
+    if(threads > 1) {
+      build(ibs, index, threads, cmd);
+    } else {
+      for(int i = 0; i < is; i++) index[i] = (cmd == null ? ibs[i] : cmd.proc(ibs[i])).build();
+    }
+    for(int i = 0; i < is; i++) data.setIndex(indexes[i], index[i]);
+  }
+
+  /**
+   * Builds indexes in parallel. The first index is built by the calling thread.
+   * If one of the builders fails, all other builders will be stopped.
+   * @param ibs index builders
+   * @param index built indexes
+   * @param threads number of threads
+   * @param cmd calling command (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  private static void build(final IndexBuilder[] ibs, final Index[] index, final int threads,
+      final ACreate cmd) throws IOException {
+
+    final int is = ibs.length;
+    final ExecutorService pool = Executors.newFixedThreadPool(threads - 1);
+    try {
+      final ArrayList<Future<Index>> futures = new ArrayList<Future<Index>>();
+      for(int i = 1; i < is; i++) {
+        final IndexBuilder ib = ibs[i];
+        futures.add(pool.submit(new Callable<Index>() {
+          @Override
+          public Index call() throws IOException {
+            return ib.build();
+          }
+        }));
+      }
+      Throwable error = null;
+      try {
+        index[0] = (cmd == null ? ibs[0] : cmd.proc(ibs[0])).build();
+      } catch(final Throwable th) {
+        error = th;
+        for(int i = 1; i < is; i++) ibs[i].stop();
+      }
+      for(int i = 1; i < is; i++) {
+        try {
+          index[i] = futures.get(i - 1).get();
+        } catch(final InterruptedException ex) {
+          if(error == null) error = ex;
+        } catch(final ExecutionException ex) {
+          if(error == null) {
+            error = ex.getCause();
+            for(final IndexBuilder ib : ibs) ib.stop();
+          }
+        }
+      }
+      if(error instanceof IOException) throw (IOException) error;
+      if(error instanceof RuntimeException) throw (RuntimeException) error;
+      if(error instanceof Error) throw (Error) error;
+      if(error != null) throw new IOException(error);
+    } finally {
+      pool.shutdownNow();
     }
-    data.closeIndex(index);
-    data.setIndex(index, (cmd == null ? ib : cmd.proc(ib)).build());
   }
 
   /**
@@ -36,6 +36,12 @@ public abstract class AQuery extends Command {
   private QueryProcessor qp;
   /** Query info. */
   private QueryInfo info;
+  /** Cache key of the query (assigned if compiled queries are cached). */
+  private String key;
+  /** Indicates if the query processor has been taken from the query cache. */
+  private boolean reused;
+  /** Indicates if the query processor has been added to the query cache. */
+  private boolean cached;
 
   /**
    * Protected constructor.
@@ -67,6 +73,7 @@ public abstract class AQuery extends Command {
           // reuse existing processor instance
           if(r != 0) qp = null;
           qp(query, context);
+          validate(query);
           parse(p);
           if(r == 0) plan(false);
           if(!run) continue;
@@ -98,17 +105,24 @@ public abstract class AQuery extends Command {
             }
           }
           ser.close();
-          qp.close();
           info.serializing += p.time();
+          // query info may refer to processors of previous runs: only cache the last one
+          if(r + 1 < runs) qp.close();
         }
         // dump some query info
         out.flush();
+        // close processor, or finalize the query info of a processor that will be cached
+        if(key == null) qp.close();
+        else info.close();
         // remove string list if global locking is used and if query is updating
         if(goptions.get(GlobalOptions.GLOBALLOCK) && qp.updating) {
           info.readLocked = null;
           info.writeLocked = null;
         }
-        return info(info.toString(qp, out.size(), hits, options.get(MainOptions.QUERYINFO)));
+        final String inf = info.toString(qp, out.size(), hits, options.get(MainOptions.QUERYINFO));
+        // processor may be reused by other threads as soon as it has been added to the cache
+        if(key != null) cached = context.queries.add(key, qp);
+        return info(inf);
 
       } catch(final QueryException ex) {
         cause = ex;
@@ -126,7 +140,7 @@ public abstract class AQuery extends Command {
         throw ex;
       } finally {
         // close processor after exceptions
-        if(qp != null) qp.close();
+        if(qp != null && !cached) qp.close();
       }
     }
     return extError(err);
@@ -138,13 +152,15 @@ public abstract class AQuery extends Command {
    * @throws QueryException query exception
    */
   private void parse(final Performance p) throws QueryException {
-    qp.http(http);
-    for(final String name : vars.keySet()) {
-      final String[] value = vars.get(name);
-      if(name == null) qp.context(value[0], value[1]);
-      else qp.bind(name, value[0], value[1]);
+    if(!reused) {
+      qp.http(http);
+      for(final String name : vars.keySet()) {
+        final String[] value = vars.get(name);
+        if(name == null) qp.context(value[0], value[1]);
+        else qp.bind(name, value[0], value[1]);
+      }
+      qp.parse();
     }
-    qp.parse();
     if(p != null) info.parsing += p.time();
   }
 
@@ -173,7 +189,9 @@ public abstract class AQuery extends Command {
    */
   final void queryNodes() {
     try {
-      result = qp(args[0], context).queryNodes();
+      qp(args[0], context);
+      validate(args[0]);
+      result = qp.queryNodes();
       qp.close();
     } catch(final QueryException ex) {
       qp.close();
@@ -190,12 +208,52 @@ public abstract class AQuery extends Command {
    */
   private QueryProcessor qp(final String query, final Context ctx) {
     if(qp == null) {
-      qp = proc(new QueryProcessor(query, ctx));
+      // look up compiled query
+      key = http == null && ctx.options.get(MainOptions.QUERYCACHE) > 0 ? key(query, ctx) : null;
+      final QueryProcessor cqp = key != null ? ctx.queries.get(key, ctx) : null;
+      reused = cqp != null;
+      cached = false;
+      qp = proc(reused ? cqp : new QueryProcessor(query, ctx));
       if(info == null) info = qp.ctx.info;
     }
     return qp;
   }
 
+  /**
+   * Replaces a cached query processor with a new instance if the referenced databases,
+   * their indexes or the current context have changed after the query was compiled.
+   * Must be called after the databases have been locked.
+   * @param query query string
+   * @throws QueryException query exception
+   */
+  private void validate(final String query) throws QueryException {
+    if(!reused || QueryCache.valid(qp)) return;
+    qp.close();
+    qp = proc(new QueryProcessor(query, context));
+    final QueryInfo old = info;
+    info = qp.ctx.info;
+    info.readLocked = old.readLocked;
+    info.writeLocked = old.writeLocked;
+    reused = false;
+    parse(null);
+  }
+
+  /**
+   * Returns the cache key for the specified query, which includes the database context,
+   * the current options and the bound variables.
+   * @param query query string
+   * @param ctx database context
+   * @return key
+   */
+  private String key(final String query, final Context ctx) {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(ctx.id).append('\n').append(ctx.options).append('\n');
+    for(final Map.Entry<String, String[]> v : vars.entrySet()) {
+      sb.append(v.getKey()).append('=').append(Arrays.toString(v.getValue())).append('\n');
+    }
+    return sb.append(query).toString();
+  }
+
   /**
    * Returns the serialization parameters.
    * @param ctx context
@@ -210,6 +268,8 @@ public abstract class AQuery extends Command {
     } catch(final QueryException ex) {
       error(Util.message(ex));
     }
+    // return unused compiled query to the cache
+    if(reused) ctx.queries.add(key, qp);
     qp = null;
     return params;
   }
@@ -9,9 +9,6 @@ import org.basex.core.*;
 import org.basex.core.parse.*;
 import org.basex.core.parse.Commands.*;
 import org.basex.data.*;
-import org.basex.index.*;
-import org.basex.index.ft.*;
-import org.basex.index.value.*;
 import org.basex.io.*;
 import org.basex.io.in.*;
 import org.basex.util.*;
@@ -87,6 +84,8 @@ public final class CreateDB extends ACreate {
         context.openDB(data);
         context.dbs.add(data);
       } else {
+        // release database if it is referenced by cached queries
+        context.queries.close(name);
         if(context.pinned(name)) return error(DB_PINNED_X, name);
 
         // create disk-based instance
@@ -97,9 +96,7 @@ public final class CreateDB extends ACreate {
         if(!open.run(context)) return error(open.info());
         final Data data = context.data();
         try {
-          if(data.meta.createtext) create(IndexType.TEXT,      data, this);
-          if(data.meta.createattr) create(IndexType.ATTRIBUTE, data, this);
-          if(data.meta.createftxt) create(IndexType.FULLTEXT,  data, this);
+          createIndexes(data, data.meta, this);
         } finally {
           data.finishUpdate();
         }
@@ -146,6 +143,7 @@ public final class CreateDB extends ACreate {
     if(opts.get(MainOptions.MAINMEM)) return MemBuilder.build(name, parser);
 
     // database is currently locked by another process
+    ctx.queries.close(name);
     if(ctx.pinned(name)) throw new BaseXException(DB_PINNED_X, name);
 
     // create disk builder, set database path
@@ -154,12 +152,7 @@ public final class CreateDB extends ACreate {
     // build database and index structures
     try {
       final Data data = builder.build();
-      if(data.meta.createtext) data.setIndex(IndexType.TEXT,
-        new ValueIndexBuilder(data, true).build());
-      if(data.meta.createattr) data.setIndex(IndexType.ATTRIBUTE,
-        new ValueIndexBuilder(data, false).build());
-      if(data.meta.createftxt) data.setIndex(IndexType.FULLTEXT,
-        new FTBuilder(data).build());
+      createIndexes(data, data.meta, null);
       data.close();
     } finally {
       builder.close();
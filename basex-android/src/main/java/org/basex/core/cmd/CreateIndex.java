@@ -59,7 +59,7 @@ public final class CreateIndex extends ACreate {
 
     if(!data.startUpdate()) return error(DB_PINNED_X, data.meta.name);
     try {
-      create(index, data, this);
+      create(data, this, index);
       return info(INDEX_CREATED_X_X, index, perf);
     } catch(final IOException ex) {
       return error(Util.message(ex));
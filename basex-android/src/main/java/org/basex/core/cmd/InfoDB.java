@@ -69,6 +69,7 @@ public final class InfoDB extends AInfo {
     info(tb, TIMESTAMP, DateTime.format(new Date(meta.time), DateTime.DATETIME));
     info(tb, ENCODING, meta.encoding);
     info(tb, WS_CHOPPING, Util.flag(meta.chop));
+    info(tb, MainOptions.COMPRESS.name(), Util.flag(meta.compress));
 
     if(index) {
       tb.add(NL).addExt(header, INDEXES);
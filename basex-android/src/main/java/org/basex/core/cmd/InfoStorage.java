@@ -62,6 +62,10 @@ public final class InfoStorage extends AQuery {
         }
       }
       out.print(table(data, ps, pe));
+      if(start == null && !data.inMemory()) {
+        out.print(NL);
+        out.print(buffers(data));
+      }
     }
     return true;
   }
@@ -92,6 +96,24 @@ public final class InfoStorage extends AQuery {
     return tb.finish();
   }
 
+  /**
+   * Returns the statistics of the buffer managers of the database files.
+   * @param data data reference
+   * @return table
+   */
+  public static byte[] buffers(final Data data) {
+    final Table table = new Table();
+    table.header.add(TABLEFILE);
+    table.header.add(TABLEBUFS);
+    table.header.add(TABLEHITS);
+    table.header.add(TABLEMISSES);
+    table.header.add(TABLEEVICT);
+    table.align.add(false);
+    for(int i = 0; i < 4; ++i) table.align.add(true);
+    data.buffers(table);
+    return table.finish();
+  }
+
   /**
    * Writes the header for the 'table' command.
    * @return table
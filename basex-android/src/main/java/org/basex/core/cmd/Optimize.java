@@ -3,6 +3,7 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
@@ -80,6 +81,7 @@ public final class Optimize extends ACreate {
       data.resources.init();
       data.tagindex.init();
       data.atnindex.init();
+      data.elemindex.init();
       md.dirty = true;
 
       final IntList pars = new IntList();
@@ -122,29 +124,30 @@ public final class Optimize extends ACreate {
     }
 
     // rebuild value indexes
-    optimize(IndexType.ATTRIBUTE, data, md.createattr, md.attrindex, rebuild, cmd);
-    optimize(IndexType.TEXT,      data, md.createtext, md.textindex, rebuild, cmd);
-    optimize(IndexType.FULLTEXT,  data, md.createftxt, md.ftxtindex, rebuild, cmd);
+    final ArrayList<IndexType> types = new ArrayList<IndexType>();
+    optimize(IndexType.ATTRIBUTE, data, md.createattr, md.attrindex, rebuild, types);
+    optimize(IndexType.TEXT,      data, md.createtext, md.textindex, rebuild, types);
+    optimize(IndexType.FULLTEXT,  data, md.createftxt, md.ftxtindex, rebuild, types);
+    create(data, cmd, types.toArray(new IndexType[types.size()]));
   }
 
   /**
-   * Optimizes the specified index.
+   * Drops the specified index, or remembers it for being rebuilt.
    * @param type index type
    * @param d data reference
    * @param create create flag
    * @param old old flag
    * @param rebuild rebuild all index structures
-   * @param cmd calling command instance
-   * @throws IOException I/O exception
+   * @param types indexes to be rebuilt
    */
   private static void optimize(final IndexType type, final Data d, final boolean create,
-      final boolean old, final boolean rebuild, final Optimize cmd) throws IOException {
+      final boolean old, final boolean rebuild, final ArrayList<IndexType> types) {
 
     // check if flags are nothing has changed
     if(!rebuild && create == old) return;
 
     // create or drop index
-    if(create) create(type, d, cmd);
+    if(create) types.add(type);
     else drop(type, d);
   }
 }
@@ -9,7 +9,6 @@ import org.basex.core.*;
 import org.basex.core.parse.*;
 import org.basex.core.parse.Commands.*;
 import org.basex.data.*;
-import org.basex.index.*;
 import org.basex.io.*;
 import org.basex.io.serial.*;
 import org.basex.query.value.node.*;
@@ -102,6 +101,7 @@ public final class OptimizeAll extends ACreate {
     if(cmd != null) cmd.size = m.size;
 
     // check if database is also pinned by other users
+    ctx.queries.close(m.name);
     if(ctx.dbs.pins(m.name) > 1) throw new BaseXException(DB_PINNED_X, m.name);
 
     // find unique temporary database name
@@ -109,6 +109,7 @@ public final class OptimizeAll extends ACreate {
 
     // adopt original meta information
     ctx.options.set(MainOptions.CHOP, m.chop);
+    ctx.options.set(MainOptions.COMPRESS, m.compress);
     // adopt original index options
     ctx.options.set(MainOptions.UPDINDEX, m.updindex);
     ctx.options.set(MainOptions.MAXCATS,  m.maxcats);
@@ -124,9 +125,7 @@ public final class OptimizeAll extends ACreate {
     final DiskBuilder builder = new DiskBuilder(tname, new DBParser(old, cmd), ctx);
     try {
       final DiskData d = builder.build();
-      if(m.createtext) create(IndexType.TEXT, d, cmd);
-      if(m.createattr) create(IndexType.ATTRIBUTE, d, cmd);
-      if(m.createftxt) create(IndexType.FULLTEXT, d, cmd);
+      createIndexes(d, m, cmd);
       // adopt original meta data
       d.meta.createtext = m.createtext;
       d.meta.createattr = m.createattr;
@@ -55,6 +55,9 @@ import org.basex.util.list.*;
  * - Byte    11:  NURI: Namespace (bits: 7-3)
  * </pre>
  *
+ * Integers, short strings and frequent attribute values are inlined in the text
+ * references (see {@link InlineText}).
+ *
  * As all methods of this class are optimized for performance, no checks are
  * performed on the arguments (e.g.: if the string value of a text node is
  * requested, the specified pre value must point to a text node).
@@ -87,6 +90,8 @@ public abstract class Data {
   public Names tagindex;
   /** Attribute name index. */
   public Names atnindex;
+  /** Element name index. */
+  public final ElemIndex elemindex = new ElemIndex(this);
   /** Namespace index. */
   public Namespaces nspaces;
   /** Path summary index. */
@@ -479,8 +484,10 @@ public abstract class Data {
       // write namespace uri reference
       table.write1(pre, kind == ELEM ? 3 : 11, nuri);
       // write name reference
+      final int oname = name(pre);
       table.write2(pre, 1, (nsFlag(pre) ? 1 << 15 : 0) |
         (kind == ELEM ? tagindex : atnindex).index(name, null, false));
+      if(kind == ELEM) elemindex.rename(pre, oname, name(pre));
       // write namespace flag
       table.write2(npre, 1, (ne || nsFlag(npre) ? 1 << 15 : 0) | name(npre));
     }
@@ -583,6 +590,8 @@ public abstract class Data {
     // update table:
     table.replace(tpre, buffer(), tsize);
     buffer(1);
+    elemindex.delete(tpre, tsize);
+    elemindex.insert(tpre, size);
 
     // no distance/size update if the two subtrees are of equal size
     if(diff == 0) return;
@@ -655,6 +664,7 @@ public abstract class Data {
 
     // delete node from table structure and reduce document size
     table.delete(pre, s);
+    elemindex.delete(pre, s);
 
     if(!cache) updateDist(pre, -s);
 
@@ -795,6 +805,7 @@ public abstract class Data {
     if(bp != 0) insert(tpre + c - 1 - (c - 1) % buf);
     // reset buffer to old size
     buffer(1);
+    elemindex.insert(tpre, size);
 
     // set ns flags
     for(int f = 0; f < flagPres.size(); f++) {
@@ -822,6 +833,17 @@ public abstract class Data {
     if(tpar != -1) nspaces.insert(tpre, size, newNodes);
   }
 
+  /**
+   * Starts or finishes a bulk update. Until the update is finished, the shifting of
+   * table entries and the updates of the value indexes may be deferred.
+   * Structural updates of a bulk update must be performed in descending pre order.
+   * @param start start or finish update
+   */
+  public final void bulk(final boolean start) {
+    table.bulk(start);
+    if(meta.updindex) indexBulk(start);
+  }
+
   /**
    * This method updates the distance values of the specified pre value
    * and the following siblings of all ancestor-or-self nodes.
@@ -1050,6 +1072,13 @@ public abstract class Data {
    */
   protected abstract long index(final int pre, final int id, final byte[] value, final int kind);
 
+  /**
+   * Notify the index structures that a bulk update is started or finished.
+   * @param start start or finish update
+   */
+  @SuppressWarnings("unused")
+  void indexBulk(final boolean start) { }
+
   /** Notify the index structures that an update operation is started. */
   void indexBegin() { }
 
@@ -1071,6 +1100,14 @@ public abstract class Data {
    */
   public abstract boolean inMemory();
 
+  /**
+   * Adds the statistics of the buffer managers of the database files to the specified
+   * table. Does nothing if the database is kept in main memory.
+   * @param t table
+   */
+  @SuppressWarnings("unused")
+  public void buffers(final Table t) { }
+
   /**
    * Returns a string representation of the specified table range. Can be called
    * for debugging.
@@ -11,8 +11,13 @@ import static org.basex.util.Token.*;
 public interface DataText {
   // META DATA ====================================================================================
 
-  /** Database version; older version cannot open these instances. */
-  String STORAGE = "7.8";
+  /**
+   * Database version; older version cannot open these instances.
+   * 7.8.1: the ID/PRE mapping is stored with a format marker;
+   * texts and attribute values may be compressed in blocks;
+   * short values are inlined in the table or referenced in a dictionary.
+   */
+  String STORAGE = "7.8.1";
   /** Index version; older version cannot open indexes of these instances. */
   String ISTORAGE = "7.8";
 
@@ -34,6 +39,8 @@ public interface DataText {
   String DBENC = "ENCODING";
   /** Whitespace chopping. */
   String DBCHOP = "CHOPPED";
+  /** Block compression of texts and attribute values. */
+  String DBCOMPR = "COMPRESSED";
   /** Path indexing. */
   String DBPTHIDX = "PTHINDEX";
   /** Automatic index update. */
@@ -86,6 +93,8 @@ public interface DataText {
   String DBPATH = "PATH";
   /** Namespace. */
   String DBNS = "NS";
+  /** Dictionary of attribute values. */
+  String DBDICT = "DICT";
 
   // DATABASE FILES ===============================================================================
 
@@ -99,6 +108,10 @@ public interface DataText {
   String DATATXT = "txt";
   /** Database - Attribute value index. */
   String DATAATV = "atv";
+  /** Database - Compressed texts. */
+  String DATATXZ = "txz";
+  /** Database - Compressed attribute values. */
+  String DATAATZ = "atz";
   /** Database - Full-text index. */
   String DATAFTX = "ftx";
   /** Database - Stopword list. */
@@ -241,6 +254,16 @@ public interface DataText {
   byte[] TABLEPREF = token("PREF");
   /** URI header. */
   byte[] TABLEURI = token("URI");
+  /** Buffer statistics: file header. */
+  byte[] TABLEFILE = token("FILE");
+  /** Buffer statistics: buffers header. */
+  byte[] TABLEBUFS = token("BUFFERS");
+  /** Buffer statistics: hits header. */
+  byte[] TABLEHITS = token("HITS");
+  /** Buffer statistics: misses header. */
+  byte[] TABLEMISSES = token("MISSES");
+  /** Buffer statistics: evictions header. */
+  byte[] TABLEEVICT = token("EVICTIONS");
   /** Table kinds. */
   byte[][] TABLEKINDS = tokens("DOC ", "ELEM", "TEXT", "ATTR", "COMM", "PI  ");
   /** Database - ID->PRE mapping. */
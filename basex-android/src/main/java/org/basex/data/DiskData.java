@@ -43,10 +43,18 @@ public final class DiskData extends Data {
   private DataAccess texts;
   /** Values access file. */
   private DataAccess values;
+  /** Texts compressed in blocks ({@code null} if texts are not compressed). */
+  private BlockAccess ztexts;
+  /** Values compressed in blocks ({@code null} if values are not compressed). */
+  private BlockAccess zvalues;
+  /** Dictionary of frequent attribute values. */
+  private TokenSet dict = new TokenSet();
   /** Texts buffered for subsequent index updates. */
   private TokenObjMap<IntList> txts;
   /** Attribute values buffered for subsequent index updates. */
   private TokenObjMap<IntList> atvs;
+  /** Bulk update flag. */
+  private boolean bulk;
   /** Closed flag. */
   private boolean closed;
 
@@ -74,14 +82,18 @@ public final class DiskData extends Data {
         else if(k.equals(DBPATH)) paths = new PathSummary(this, in);
         else if(k.equals(DBNS))   nspaces = new Namespaces(in);
         else if(k.equals(DBDOCS)) resources.read(in);
+        else if(k.equals(DBDICT)) dict = new TokenSet(in);
       }
     } finally {
       in.close();
     }
 
     // open data and indexes
+    init();
     if(meta.updindex) {
-      idmap = new IdPreMap(meta.dbfile(DATAIDP));
+      // mappings of older versions are rebuilt from the table
+      final IOFile idp = meta.dbfile(DATAIDP);
+      idmap = IdPreMap.valid(idp) ? new IdPreMap(idp) : new IdPreMap(this);
       if(meta.textindex) txtindex = new UpdatableDiskValues(this, true);
       if(meta.attrindex) atvindex = new UpdatableDiskValues(this, false);
     } else {
@@ -89,7 +101,6 @@ public final class DiskData extends Data {
       if(meta.attrindex) atvindex = new DiskValues(this, false);
     }
     if(meta.ftxtindex) ftxindex = new FTIndex(this);
-    init();
   }
 
   /**
@@ -99,12 +110,14 @@ public final class DiskData extends Data {
    * @param at attributes
    * @param ps path summary
    * @param n namespaces
+   * @param d dictionary of frequent attribute values
    * @throws IOException I/O Exception
    */
   public DiskData(final MetaData md, final Names nm, final Names at, final PathSummary ps,
-      final Namespaces n) throws IOException {
+      final Namespaces n, final TokenSet d) throws IOException {
 
     meta = md;
+    dict = d;
     tagindex = nm;
     atnindex = at;
     paths = ps;
@@ -119,9 +132,15 @@ public final class DiskData extends Data {
    * @throws IOException I/O exception
    */
   void init() throws IOException {
+    final int b = meta.options.get(MainOptions.BUFFERS);
+    final boolean m = meta.options.get(MainOptions.MMAP);
     table = new TableDiskAccess(meta, false);
-    texts = new DataAccess(meta.dbfile(DATATXT));
-    values = new DataAccess(meta.dbfile(DATAATV));
+    texts = new DataAccess(meta.dbfile(DATATXT), b, m);
+    values = new DataAccess(meta.dbfile(DATAATV), b, m);
+    if(meta.compress) {
+      ztexts = new BlockAccess(meta.dbfile(DATATXZ));
+      zvalues = new BlockAccess(meta.dbfile(DATAATZ));
+    }
   }
 
   /**
@@ -142,6 +161,10 @@ public final class DiskData extends Data {
       nspaces.write(out);
       out.writeToken(token(DBDOCS));
       resources.write(out);
+      if(!dict.isEmpty()) {
+        out.writeToken(token(DBDICT));
+        dict.write(out);
+      }
       out.write(0);
       out.close();
       if(idmap != null) idmap.write(meta.dbfile(DATAIDP));
@@ -160,6 +183,10 @@ public final class DiskData extends Data {
       table.close();
       texts.close();
       values.close();
+      if(meta.compress) {
+        ztexts.close();
+        zvalues.close();
+      }
       closeIndex(IndexType.TEXT);
       closeIndex(IndexType.ATTRIBUTE);
       closeIndex(IndexType.FULLTEXT);
@@ -177,6 +204,7 @@ public final class DiskData extends Data {
 
     // invalidate index reference
     meta.dirty = true;
+    meta.changes++;
     switch(type) {
       case TEXT:      txtindex = null; break;
       case ATTRIBUTE: atvindex = null; break;
@@ -188,6 +216,7 @@ public final class DiskData extends Data {
   @Override
   public void setIndex(final IndexType type, final Index index) {
     meta.dirty = true;
+    meta.changes++;
     switch(type) {
       case TEXT:      txtindex = index; break;
       case ATTRIBUTE: atvindex = index; break;
@@ -232,29 +261,29 @@ public final class DiskData extends Data {
   @Override
   public byte[] text(final int pre, final boolean text) {
     final long o = textOff(pre);
-    return num(o) ? token((int) o) : txt(o, text);
+    return InlineText.inlined(o) ? InlineText.token(o, dict) : txt(o, text);
   }
 
   @Override
   public long textItr(final int pre, final boolean text) {
     final long o = textOff(pre);
-    return num(o) ? o & IO.OFFNUM - 1 : toLong(txt(o, text));
+    return InlineText.inlined(o) ? InlineText.itr(o, dict) : toLong(txt(o, text));
   }
 
   @Override
   public double textDbl(final int pre, final boolean text) {
     final long o = textOff(pre);
-    return num(o) ? o & IO.OFFNUM - 1 : toDouble(txt(o, text));
+    return InlineText.inlined(o) ? InlineText.dbl(o, dict) : toDouble(txt(o, text));
   }
 
   @Override
   public int textLen(final int pre, final boolean text) {
     final long o = textOff(pre);
-    if(num(o)) return numDigits((int) o);
-    final DataAccess da = text ? texts : values;
-    final int l = da.readNum(o & IO.OFFCOMP - 1);
+    if(InlineText.inlined(o)) return InlineText.length(o, dict);
+    final long p = o & IO.OFFCOMP - 1;
+    final int l = readNum(p, text);
     // compressed: next number contains number of compressed bytes
-    return cpr(o) ? da.readNum() : l;
+    return cpr(o) ? readNum(p + Num.length(l), text) : l;
   }
 
   /**
@@ -264,17 +293,42 @@ public final class DiskData extends Data {
    * @return text
    */
   private byte[] txt(final long o, final boolean text) {
-    final byte[] txt = (text ? texts : values).readToken(o & IO.OFFCOMP - 1);
+    final byte[] txt = readToken(o & IO.OFFCOMP - 1, text);
     return cpr(o) ? COMP.get().unpack(txt) : txt;
   }
 
   /**
-   * Returns true if the specified value contains a number.
-   * @param o offset
-   * @return result of check
+   * Reads a token from the text or attribute value store.
+   * @param p position
+   * @param text text or attribute flag
+   * @return token
+   */
+  private byte[] readToken(final long p, final boolean text) {
+    final long b = base(text);
+    return p < b ? (text ? ztexts : zvalues).token(p) : (text ? texts : values).token(p - b);
+  }
+
+  /**
+   * Reads a {@link Num} value from the text or attribute value store.
+   * @param p position
+   * @param text text or attribute flag
+   * @return read num
+   */
+  private int readNum(final long p, final boolean text) {
+    final long b = base(text);
+    return p < b ? (text ? ztexts : zvalues).num(p) : (text ? texts : values).num(p - b);
+  }
+
+  /**
+   * Returns the number of bytes of the texts or attribute values that are compressed in
+   * blocks. The compressed blocks are never changed: larger offsets reference the entries
+   * that have been added by updates, which are stored in the regular access files.
+   * @param text text or attribute flag
+   * @return number of bytes
    */
-  private static boolean num(final long o) {
-    return (o & IO.OFFNUM) != 0;
+  private long base(final boolean text) {
+    final BlockAccess ba = text ? ztexts : zvalues;
+    return ba != null ? ba.length() : 0;
   }
 
   /**
@@ -292,8 +346,10 @@ public final class DiskData extends Data {
   protected void delete(final int pre, final boolean text) {
     // old entry (offset or value)
     final long old = textOff(pre);
-    // fill unused space with zero-bytes
-    if(!num(old)) (text ? texts : values).free(old & IO.OFFCOMP - 1, 0);
+    if(InlineText.inlined(old)) return;
+    // fill unused space with zero-bytes (space of compressed entries is not reused)
+    final long p = (old & IO.OFFCOMP - 1) - base(text);
+    if(p >= 0) (text ? texts : values).free(p, 0);
   }
 
   @Override
@@ -313,11 +369,13 @@ public final class DiskData extends Data {
     final DataAccess store = text ? texts : values;
     // file length
     final long len = store.length();
+    // offset of the store
+    final long b = base(text);
 
-    // new entry (offset or value)
-    final long v = toSimpleInt(value);
-    // flag for inlining numeric value
-    final boolean vn = v != Integer.MIN_VALUE;
+    // new entry (inlined value or -1)
+    final long v = inline(value, text);
+    // flag for inlining value
+    final boolean vn = v != -1;
     // text to be stored (null if value will be inlined)
     final byte[] vl = vn ? null : COMP.get().pack(value);
 
@@ -325,33 +383,45 @@ public final class DiskData extends Data {
     final long old = textOff(pre);
     // find text store offset
     final long off;
-    if(num(old)) {
-      // numeric entry: append new entry at the end
+    if(InlineText.inlined(old) || (old & IO.OFFCOMP - 1) < b) {
+      // inlined or compressed entry: append new entry at the end
       off = len;
     } else {
       // text size (0 if value will be inlined)
       final int l = vn ? 0 : vl.length + Num.length(vl.length);
-      off = store.free(old & IO.OFFCOMP - 1, l);
+      off = store.free((old & IO.OFFCOMP - 1) - b, l);
     }
 
     // store new entry
     if(vn) {
-      // inline integer value
-      textOff(pre, v | IO.OFFNUM);
+      // inline value
+      textOff(pre, v);
     } else {
       store.writeToken(off, vl);
-      textOff(pre, vl == value ? off : off | IO.OFFCOMP);
+      textOff(pre, vl == value ? off + b : off + b | IO.OFFCOMP);
     }
   }
 
+  @Override
+  protected void indexBulk(final boolean start) {
+    bulk = start;
+    if(!start && txts != null) indexEnd();
+    txts = null;
+    atvs = null;
+  }
+
   @Override
   protected void indexBegin() {
+    // added entries of a bulk update are collected until the update is finished.
+    // deletions are performed instantly, as the index keys are resolved via the table
+    if(bulk && txts != null) return;
     txts = new TokenObjMap<IntList>();
     atvs = new TokenObjMap<IntList>();
   }
 
   @Override
   protected void indexEnd() {
+    if(bulk) return;
     if(!txts.isEmpty()) ((DiskValues) txtindex).index(txts);
     if(!atvs.isEmpty()) ((DiskValues) atvindex).index(atvs);
   }
@@ -381,15 +451,30 @@ public final class DiskData extends Data {
     }
 
     // add text to text file
-    // inline integer value...
-    final long v = toSimpleInt(value);
-    if(v != Integer.MIN_VALUE) return v | IO.OFFNUM;
+    // inline value...
+    final long v = inline(value, kind != ATTR);
+    if(v != -1) return v;
 
     // store text
     final long off = store.length();
     final byte[] val = COMP.get().pack(value);
     store.writeToken(off, val);
-    return val == value ? off : off | IO.OFFCOMP;
+    final long o = off + base(kind != ATTR);
+    return val == value ? o : o | IO.OFFCOMP;
+  }
+
+  /**
+   * Returns an inlined reference for the specified value.
+   * @param value value
+   * @param text text or attribute flag
+   * @return reference, or {@code -1} if the value cannot be inlined
+   */
+  private long inline(final byte[] value, final boolean text) {
+    final long v = InlineText.inline(value);
+    if(v != -1 || text) return v;
+    // reference attribute value in the dictionary
+    final int id = dict.id(value);
+    return id != 0 ? InlineText.dict(id) : -1;
   }
 
   @Override
@@ -397,8 +482,8 @@ public final class DiskData extends Data {
     if(!(meta.textindex || meta.attrindex)) return;
 
     // collect all keys and ids
-    txts = new TokenObjMap<IntList>();
-    atvs = new TokenObjMap<IntList>();
+    final TokenObjMap<IntList> dtxts = new TokenObjMap<IntList>();
+    final TokenObjMap<IntList> datvs = new TokenObjMap<IntList>();
     final int l = pre + size;
     for(int p = pre; p < l; ++p) {
       final int k = kind(p);
@@ -408,7 +493,7 @@ public final class DiskData extends Data {
          meta.textindex && (k == TEXT || k == COMM || k == PI)) {
         final byte[] key = text(p, !isAttr);
         if(key.length <= meta.maxlen) {
-          final TokenObjMap<IntList> m = isAttr ? atvs : txts;
+          final TokenObjMap<IntList> m = isAttr ? datvs : dtxts;
           IntList ids = m.get(key);
           if(ids == null) {
             ids = new IntList(1);
@@ -418,8 +503,34 @@ public final class DiskData extends Data {
         }
       }
     }
-    if(!txts.isEmpty()) ((DiskValues) txtindex).delete(txts);
-    if(!atvs.isEmpty()) ((DiskValues) atvindex).delete(atvs);
+    if(!dtxts.isEmpty()) ((DiskValues) txtindex).delete(dtxts);
+    if(!datvs.isEmpty()) ((DiskValues) atvindex).delete(datvs);
+  }
+
+  @Override
+  public void buffers(final Table t) {
+    final TokenList tbl = new TokenList();
+    tbl.add(DATATBL);
+    table.info(tbl);
+    t.contents.add(tbl);
+    final TokenList txt = new TokenList();
+    txt.add(DATATXT);
+    texts.info(txt);
+    t.contents.add(txt);
+    final TokenList atv = new TokenList();
+    atv.add(DATAATV);
+    values.info(atv);
+    t.contents.add(atv);
+    if(meta.compress) {
+      final TokenList txz = new TokenList();
+      txz.add(DATATXZ);
+      ztexts.info(txz);
+      t.contents.add(txz);
+      final TokenList atz = new TokenList();
+      atz.add(DATAATZ);
+      zvalues.info(atz);
+      t.contents.add(atz);
+    }
   }
 
   @Override
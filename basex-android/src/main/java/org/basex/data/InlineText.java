@@ -0,0 +1,130 @@
+package org.basex.data;
+
+import static org.basex.util.Token.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+
+/**
+ * This class inlines values in the 5-byte text references of the table.
+ * If the highest bit ({@link IO#OFFNUM}) of a reference is set, the value is not stored
+ * in the text or attribute value file. In this case, the second bit
+ * ({@link IO#OFFCOMP}) specifies the type of the inlined value:
+ * <ul>
+ * <li> {@code 0}: integer (bits: 31-0)</li>
+ * <li> {@code 1}: string of up to {@link #MAX} ASCII characters. The length is stored
+ *   in bits 37-35, and the characters are stored in 7-bit chunks (bits: 34-0).
+ *   If the length bits are all set, the reference points to an attribute value in the
+ *   dictionary of the database (bits: 31-0).</li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class InlineText {
+  /** Maximum number of characters of inlined strings. */
+  public static final int MAX = 5;
+  /** Flags for inlined strings. */
+  private static final long STRING = IO.OFFNUM | IO.OFFCOMP;
+  /** Length bits of dictionary references. */
+  private static final int DICT = 7;
+
+  /** Private constructor. */
+  private InlineText() { }
+
+  /**
+   * Returns an inlined reference for the specified value.
+   * @param value value
+   * @return reference, or {@code -1} if the value cannot be inlined
+   */
+  public static long inline(final byte[] value) {
+    // integer values
+    final long v = toSimpleInt(value);
+    if(v != Integer.MIN_VALUE) return v | IO.OFFNUM;
+
+    // short ASCII strings
+    final int vl = value.length;
+    if(vl > MAX) return -1;
+    long r = 0;
+    for(final byte b : value) {
+      if(b < 0) return -1;
+      r = r << 7 | b;
+    }
+    return STRING | (long) vl << 35 | r;
+  }
+
+  /**
+   * Returns a dictionary reference.
+   * @param id id of the dictionary entry
+   * @return reference
+   */
+  public static long dict(final int id) {
+    return STRING | (long) DICT << 35 | id;
+  }
+
+  /**
+   * Checks if the specified reference contains an inlined value.
+   * @param o reference
+   * @return result of check
+   */
+  public static boolean inlined(final long o) {
+    return (o & IO.OFFNUM) != 0;
+  }
+
+  /**
+   * Returns the inlined value.
+   * @param o reference
+   * @param dict dictionary of the database
+   * @return value
+   */
+  public static byte[] token(final long o, final TokenSet dict) {
+    if((o & IO.OFFCOMP) == 0) return Token.token((int) o);
+    final int l = length(o);
+    if(l == DICT) return dict.key((int) o);
+    final byte[] b = new byte[l];
+    for(int i = 0; i < l; i++) b[i] = (byte) (o >>> 7 * (l - 1 - i) & 0x7F);
+    return b;
+  }
+
+  /**
+   * Returns the inlined value as integer.
+   * @param o reference
+   * @param dict dictionary of the database
+   * @return value
+   */
+  public static long itr(final long o, final TokenSet dict) {
+    return (o & IO.OFFCOMP) == 0 ? o & IO.OFFNUM - 1 : toLong(token(o, dict));
+  }
+
+  /**
+   * Returns the inlined value as double.
+   * @param o reference
+   * @param dict dictionary of the database
+   * @return value
+   */
+  public static double dbl(final long o, final TokenSet dict) {
+    return (o & IO.OFFCOMP) == 0 ? o & IO.OFFNUM - 1 : toDouble(token(o, dict));
+  }
+
+  /**
+   * Returns the length of the inlined value.
+   * @param o reference
+   * @param dict dictionary of the database
+   * @return length
+   */
+  public static int length(final long o, final TokenSet dict) {
+    if((o & IO.OFFCOMP) == 0) return numDigits((int) o);
+    final int l = length(o);
+    return l == DICT ? dict.key((int) o).length : l;
+  }
+
+  /**
+   * Returns the length bits of an inlined string.
+   * @param o reference
+   * @return length bits
+   */
+  private static int length(final long o) {
+    return (int) (o >>> 35) & 7;
+  }
+}
@@ -45,6 +45,8 @@ public final class MetaData {
 
   /** Flag for whitespace chopping. */
   public volatile boolean chop;
+  /** Flag for texts and attribute values that are compressed in blocks. */
+  public volatile boolean compress;
   /** Flag for activated automatic index update. */
   public volatile boolean updindex;
   /** Indicates if a text index exists. */
@@ -84,6 +86,8 @@ public final class MetaData {
   public volatile boolean corrupt;
   /** Dirty flag. */
   public volatile boolean dirty;
+  /** Number of changes to the database and its indexes since it has been opened. */
+  public volatile long changes;
 
   /** Table size. */
   public volatile int size;
@@ -132,6 +136,7 @@ public final class MetaData {
     stemming = options.get(MainOptions.STEMMING);
     casesens = options.get(MainOptions.CASESENS);
     updindex = options.get(MainOptions.UPDINDEX);
+    compress = options.get(MainOptions.COMPRESS);
     maxlen = options.get(MainOptions.MAXLEN);
     maxcats = options.get(MainOptions.MAXCATS);
     stopwords = options.get(MainOptions.STOPWORDS);
@@ -278,6 +283,8 @@ public final class MetaData {
    */
   public void read(final DataInput in) throws IOException {
     String storage = "", istorage = "";
+    // compression flag is only stored by newer databases
+    compress = false;
     while(true) {
       final String k = string(in.readToken());
       if(k.isEmpty()) break;
@@ -302,6 +309,7 @@ public final class MetaData {
         else if(k.equals(DBFTDC))     diacritics = toBool(v);
         else if(k.equals(DBCHOP))     chop       = toBool(v);
         else if(k.equals(DBUPDIDX))   updindex   = toBool(v);
+        else if(k.equals(DBCOMPR))    compress   = toBool(v);
         else if(k.equals(DBTXTIDX))   textindex  = toBool(v);
         else if(k.equals(DBATVIDX))   attrindex  = toBool(v);
         else if(k.equals(DBFTXIDX))   ftxtindex  = toBool(v);
@@ -344,6 +352,7 @@ public final class MetaData {
     writeInfo(out, DBSIZE,     size);
     writeInfo(out, DBCHOP,     chop);
     writeInfo(out, DBUPDIDX,   updindex);
+    writeInfo(out, DBCOMPR,    compress);
     writeInfo(out, DBTXTIDX,   textindex);
     writeInfo(out, DBATVIDX,   attrindex);
     writeInfo(out, DBFTXIDX,   ftxtindex);
@@ -372,6 +381,7 @@ public final class MetaData {
     time = System.currentTimeMillis();
     uptodate = false;
     dirty = true;
+    changes++;
     if(!updindex) {
       textindex = false;
       attrindex = false;
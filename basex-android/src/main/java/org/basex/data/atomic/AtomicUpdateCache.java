@@ -294,9 +294,14 @@ public final class AtomicUpdateCache {
     // value updates applied front-to-back, doens't matter as there are no row shifts
     for(final BasicUpdate u : val)
       u.apply(data);
-    // structural updates are applied back-to-front
-    for(int i = struct.size() - 1; i >= 0; i--)
-      struct.get(i).apply(data);
+    // structural updates are applied back-to-front, table entries are shifted in bulk
+    data.bulk(true);
+    try {
+      for(int i = struct.size() - 1; i >= 0; i--)
+        struct.get(i).apply(data);
+    } finally {
+      data.bulk(false);
+    }
   }
 
   /**
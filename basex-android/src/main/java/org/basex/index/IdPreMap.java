@@ -3,6 +3,7 @@ package org.basex.index;
 import java.io.*;
 import java.util.*;
 
+import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
@@ -12,39 +13,70 @@ import org.basex.util.list.*;
 /**
  * ID -> PRE mapping.
  *
+ * The records of a database are represented by intervals of consecutive IDs, which are
+ * ordered by their PRE values. The intervals are stored in two randomized balanced trees
+ * (treaps), which share the same nodes: the first tree is ordered by the PRE values and
+ * stores the accumulated sizes of all subtrees, and the second tree is ordered by the
+ * first IDs of the intervals. Lookups and updates are performed in logarithmic time.
+ *
  * @author BaseX Team 2005-13, BSD License
  * @author Dimitar Popov
  */
 public class IdPreMap {
-  /** Invalid id-value. */
-  private static final int INV = -1;
-  /** Base ID value. */
-  private int baseid;
-  /** PRE values of the inserted/deleted IDs. */
-  private int[] pres;
-  /** Inserted first ID values. */
+  /** Marker of the serialized map. */
+  private static final int FORMAT = Integer.MIN_VALUE;
+
+  /** First IDs of the intervals (the node at offset 0 is the empty node). */
   private int[] fids;
-  /** Inserted last ID values. */
-  private int[] nids;
-  /** Increments showing how the PRE values have been modified. */
-  private int[] incs;
-  /** ID values for the PRE, before inserting/deleting a record. */
-  private int[] oids;
-
-  /** Number of records in the table. */
+  /** Sizes of the intervals. */
+  private int[] sizes;
+  /** Accumulated sizes of the intervals of all subtrees. */
+  private int[] sums;
+  /** Node priorities. */
+  private int[] prios;
+  /** Left children (PRE order). */
+  private int[] lefts;
+  /** Right children (PRE order). */
+  private int[] rights;
+  /** Parents (PRE order). */
+  private int[] parents;
+  /** Left children (ID order). */
+  private int[] ilefts;
+  /** Right children (ID order). */
+  private int[] irights;
+  /** Root node (PRE order). */
+  private int root;
+  /** Root node (ID order). */
+  private int iroot;
+  /** Number of assigned nodes, including the empty node. */
+  private int nodes = 1;
+  /** Released nodes. */
+  private final IntList free = new IntList();
+  /** Number of intervals. */
   private int rows;
+  /** Seed for generating priorities. */
+  private int seed = 0x2545F491;
+
+  /** Left tree, resulting from the last split. */
+  private int left;
+  /** Right tree, resulting from the last split. */
+  private int right;
 
   /**
    * Constructor.
    * @param id last inserted ID
    */
   public IdPreMap(final int id) {
-    baseid = id;
-    pres = new int[1];
-    fids = new int[pres.length];
-    nids = new int[pres.length];
-    incs = new int[pres.length];
-    oids = new int[pres.length];
+    fids = new int[Array.CAPACITY];
+    sizes = new int[Array.CAPACITY];
+    sums = new int[Array.CAPACITY];
+    prios = new int[Array.CAPACITY];
+    lefts = new int[Array.CAPACITY];
+    rights = new int[Array.CAPACITY];
+    parents = new int[Array.CAPACITY];
+    ilefts = new int[Array.CAPACITY];
+    irights = new int[Array.CAPACITY];
+    if(id >= 0) add(0, 0, id + 1);
   }
 
   /**
@@ -53,15 +85,47 @@ public class IdPreMap {
    * @throws IOException I/O error while reading from the file
    */
   public IdPreMap(final IOFile f) throws IOException {
+    this(-1);
+    final DataInput in = new DataInput(f);
+    try {
+      if(in.readNum() != FORMAT) throw new IOException("Invalid ID -> PRE mapping: " + f);
+      final int s = in.readNum();
+      for(int i = 0, pre = 0; i < s; i++) {
+        final int id = in.readNum(), c = in.readNum();
+        add(pre, id, c);
+        pre += c;
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Construct a map from the IDs of the specified database.
+   * @param data data reference
+   */
+  public IdPreMap(final Data data) {
+    this(-1);
+    final int s = data.meta.size;
+    for(int pre = 0; pre < s;) {
+      final int id = data.id(pre);
+      int p = pre + 1;
+      while(p < s && data.id(p) == id + p - pre) p++;
+      add(pre, id, p - pre);
+      pre = p;
+    }
+  }
+
+  /**
+   * Checks if the specified file contains a map in the current format.
+   * @param f file to be checked
+   * @return result of check
+   * @throws IOException I/O error while reading from the file
+   */
+  public static boolean valid(final IOFile f) throws IOException {
     final DataInput in = new DataInput(f);
     try {
-      baseid = in.readNum();
-      rows = in.readNum();
-      pres = in.readNums();
-      fids = in.readNums();
-      nids = in.readNums();
-      incs = in.readNums();
-      oids = in.readNums();
+      return in.readNum() == FORMAT;
     } finally {
       in.close();
     }
@@ -75,13 +139,16 @@ public class IdPreMap {
   public void write(final IOFile f) throws IOException {
     final DataOutput out = new DataOutput(f);
     try {
-      out.writeNum(baseid);
+      out.writeNum(FORMAT);
       out.writeNum(rows);
-      out.writeNums(pres);
-      out.writeNums(fids);
-      out.writeNums(nids);
-      out.writeNums(incs);
-      out.writeNums(oids);
+      // write intervals in PRE order
+      final IntList stack = new IntList();
+      for(int n = root; n != 0 || !stack.isEmpty(); n = rights[n]) {
+        for(; n != 0; n = lefts[n]) stack.add(n);
+        n = stack.pop();
+        out.writeNum(fids[n]);
+        out.writeNum(sizes[n]);
+      }
     } finally {
       out.close();
     }
@@ -93,21 +160,24 @@ public class IdPreMap {
    * @return PRE or -1 if the ID is already deleted
    */
   public int pre(final int id) {
-    // no updates or id is not affected by updates
-    if(rows == 0 || id < pres[0]) return id;
-
-    if(id > baseid) {
-      // id was inserted by update
-      for(int i = 0; i < rows; ++i) {
-        // if(fids[i] == id) return pres[i]; // is this optimization?
-        if(fids[i] <= id && id <= nids[i]) return pres[i] + id - fids[i];
+    // find the interval with the largest first ID that is not greater than the ID
+    int n = 0;
+    for(int i = iroot; i != 0;) {
+      if(fids[i] <= id) {
+        n = i;
+        i = irights[i];
+      } else {
+        i = ilefts[i];
       }
-    } else {
-      // id is affected by updates
-      final int i = sortedLastIndexOf(oids, id);
-      return id + incs[i < 0 ? -i - 2 : i];
     }
-    return -1;
+    if(n == 0 || id - fids[n] >= sizes[n]) return -1;
+
+    // add sizes of all preceding intervals
+    int pre = sums[lefts[n]] + id - fids[n];
+    for(int c = n, p = parents[n]; p != 0; c = p, p = parents[p]) {
+      if(rights[p] == c) pre += sums[lefts[p]] + sizes[p];
+    }
+    return pre;
   }
 
   /**
@@ -130,55 +200,30 @@ public class IdPreMap {
    * @param c number of inserted records
    */
   public void insert(final int pre, final int id, final int c) {
-    if(rows == 0 && pre == id && id == baseid + 1) {
-      // no mapping and we append at the end => nothing to do
-      baseid += c;
-      return;
-    }
-
-    int pos = 0;
-    int inc = c;
-    int oid = pre;
-
-    if(rows > 0) {
-      pos = Arrays.binarySearch(pres, 0, rows, pre);
-      if(pos < 0) {
-        pos = -pos - 1;
-        if(pos != 0) {
-          // check if inserting into an existing id interval
-          final int prev = pos - 1;
-          final int prevcnt = nids[prev] - fids[prev] + 1;
-          final int prevpre = pres[prev];
-
-          if(pre < prevpre + prevcnt) {
-            // split the id interval
-            final int split = pre - prevpre;
-            final int fid = fids[prev] + split;
-
-            // add a new next interval
-            add(pos, pre, fid, nids[prev], incs[prev], oids[prev]);
-
-            // shrink the previous interval
-            nids[prev] = fid - 1;
-            incs[prev] -= prevcnt - split;
-
-            oid = oids[prev];
-            inc += incs[prev];
-          } else {
-            oid = pre - incs[prev];
-            inc += incs[prev];
-          }
-        }
-      } else if(pos > 0) {
-        oid = oids[pos];
-        inc += incs[pos - 1];
-      }
+    add(pre, id, c);
+  }
 
-      increment(pos, c);
+  /**
+   * Adds an interval with new records.
+   * @param pre PRE of the first record
+   * @param id ID of the first record
+   * @param c number of records
+   */
+  private void add(final int pre, final int id, final int c) {
+    if(c == 0) return;
+    cut(pre);
+    divide(root, pre);
+    final int l = left, r = right, last = last(l);
+    if(last != 0 && fids[last] + sizes[last] == id) {
+      // extend preceding interval
+      resize(last, c);
+      root = merge(l, r);
+    } else {
+      final int n = node(id, c);
+      root = merge(merge(l, n), r);
+      iinsert(n);
     }
-
-    // add the new interval
-    add(pos, pre, id, id + c - 1, inc, oid);
+    parents[root] = 0;
   }
 
   /**
@@ -188,219 +233,296 @@ public class IdPreMap {
    * @param c number of deleted records
    */
   public void delete(final int pre, final int id, final int c) {
-    if(rows == 0 && pre == id && id - c == baseid + 1) {
-      // no mapping and we delete at the end => nothing to do
-      baseid += c;
-      return;
+    if(c == 0) return;
+    cut(pre);
+    cut(pre - c);
+    divide(root, pre);
+    final int l = left;
+    divide(right, -c);
+    int r = right;
+
+    // release deleted intervals
+    final IntList stack = new IntList();
+    if(left != 0) stack.add(left);
+    while(!stack.isEmpty()) {
+      final int n = stack.pop();
+      if(lefts[n] != 0) stack.add(lefts[n]);
+      if(rights[n] != 0) stack.add(rights[n]);
+      iremove(n);
+      release(n);
     }
 
-    if(rows == 0) {
-      // no previous updates: add a new record
-      add(0, pre, INV, INV, c, id);
-      return;
+    // join adjacent intervals with consecutive IDs
+    final int a = last(l), b = first(r);
+    if(a != 0 && b != 0 && fids[a] + sizes[a] == fids[b]) {
+      divide(r, sizes[b]);
+      r = right;
+      resize(a, sizes[b]);
+      iremove(b);
+      release(b);
     }
+    root = merge(l, r);
+    parents[root] = 0;
+  }
 
-    final int end = pre - c - 1;
-    final int startIndex = findPre(pre);
-
-    // remove all updates which has affected records which now have to be deleted
-    final int removeStart = startIndex < rows && pres[startIndex] < pre ?
-         startIndex + 1 : startIndex;
-    int removeEnd = -1;
-    for(int i = startIndex; i < rows; ++i) {
-      if(end < pres[i] + nids[i] - fids[i]) break;
-      removeEnd = i;
+  @Override
+  public String toString() {
+    final StringBuilder b = new StringBuilder("pres, ids");
+    final IntList stack = new IntList();
+    int pre = 0;
+    for(int n = root; n != 0 || !stack.isEmpty(); n = rights[n]) {
+      for(; n != 0; n = lefts[n]) stack.add(n);
+      n = stack.pop();
+      b.append('\n').append(pre).append('-').append(pre + sizes[n] - 1).append(", ");
+      b.append(fids[n]).append('-').append(fids[n] + sizes[n] - 1);
+      pre += sizes[n];
     }
+    return b.toString();
+  }
 
-    final int inc;
-    final int oid;
-    int endIndex;
-    if(removeEnd >= 0) {
-      inc = incs[removeEnd];
-      oid = oids[removeEnd];
-      endIndex = removeStart;
-      remove(removeStart, removeEnd);
-    } else {
-      inc = startIndex > 0 ? incs[startIndex - 1] : 0;
-      oid = id;
-      endIndex = startIndex;
-    }
+  /**
+   * Size of the map.
+   * @return number of stored intervals
+   */
+  public int size() {
+    return rows;
+  }
 
-    if(rows <= startIndex) {
-      // the delete does not affect previous updates
-      add(startIndex, pre, INV, INV, inc + c, oid);
-      return;
+  /**
+   * Ensures that an interval starts at the specified PRE value.
+   * @param pre pre value
+   */
+  private void cut(final int pre) {
+    // find the interval that contains the PRE value
+    int n = root, p = pre;
+    while(n != 0) {
+      final int s = sums[lefts[n]];
+      if(p < s) {
+        n = lefts[n];
+      } else {
+        p -= s;
+        if(p < sizes[n]) break;
+        p -= sizes[n];
+        n = rights[n];
+      }
     }
+    if(n == 0 || p == 0) return;
+
+    // split the interval and insert the second part
+    final int m = node(fids[n] + p, sizes[n] - p);
+    resize(n, p - sizes[n]);
+    divide(root, pre);
+    root = merge(merge(left, m), right);
+    parents[root] = 0;
+    iinsert(m);
+  }
+
+  /**
+   * Splits a tree into two trees, the first containing the specified number of records.
+   * The result is assigned to {@link #left} and {@link #right}.
+   * @param t root of the tree
+   * @param c number of records (must be located at an interval boundary)
+   */
+  private void divide(final int t, final int c) {
+    split(t, c);
+    parents[left] = 0;
+    parents[right] = 0;
+  }
 
-    final int min = pres[startIndex];
-    if(startIndex < endIndex) {
-      if(endIndex < rows && pres[endIndex] <= end) {
-        shrinkFromStart(endIndex, pre, c);
-        shrinkFromEnd(startIndex, pre, inc + c);
+  /**
+   * Recursively splits a tree (see {@link #divide}).
+   * @param t root of the tree
+   * @param c number of records
+   */
+  private void split(final int t, final int c) {
+    if(t == 0) {
+      left = 0;
+      right = 0;
+    } else {
+      final int s = sums[lefts[t]] + sizes[t];
+      if(s <= c) {
+        split(rights[t], c - s);
+        rights[t] = left;
+        update(t);
+        left = t;
       } else {
-        --endIndex;     // endIndex is not processed, so we let the increment do that
-        shrinkFromEnd(startIndex, pre, inc + c);
+        split(lefts[t], c);
+        lefts[t] = right;
+        update(t);
+        right = t;
       }
-    } else if(min < pre) {
-      add(++endIndex, pres[startIndex], fids[startIndex], nids[startIndex],
-          incs[startIndex], oids[startIndex]);
-      shrinkFromStart(endIndex, pre, c);
-      shrinkFromEnd(startIndex, pre, inc + c);
-    } else if(end < min) {
-      add(endIndex, pre, INV, INV, inc + c, oid);
-    } else {
-      shrinkFromStart(startIndex, pre, c);
     }
+  }
 
-    increment(endIndex + 1, c);
+  /**
+   * Merges two trees.
+   * @param a first tree
+   * @param b second tree, containing the following records
+   * @return root of the resulting tree
+   */
+  private int merge(final int a, final int b) {
+    if(a == 0) return b;
+    if(b == 0) return a;
+    if(prios[a] > prios[b]) {
+      rights[a] = merge(rights[a], b);
+      update(a);
+      return a;
+    }
+    lefts[b] = merge(a, lefts[b]);
+    update(b);
+    return b;
   }
 
   /**
-   * Shrink the given tuple from the start.
-   * @param i index of the tuple
-   * @param pre pre-value
-   * @param c number of deleted records (negative number)
+   * Updates the accumulated size and the parent references of a node.
+   * @param n node
    */
-  private void shrinkFromStart(final int i, final int pre, final int c) {
-    incs[i] += c;
-    fids[i] += pre - c - pres[i];
-    pres[i] = pre;
+  private void update(final int n) {
+    final int l = lefts[n], r = rights[n];
+    sums[n] = sums[l] + sizes[n] + sums[r];
+    parents[l] = n;
+    parents[r] = n;
   }
 
   /**
-   * Shrink the given tuple from the end.
-   * @param i index of the tuple
-   * @param pre pre-value
-   * @param inc new inc-value
+   * Resizes an interval and updates the accumulated sizes of all ancestors.
+   * @param n node
+   * @param c number of added or removed records
    */
-  private void shrinkFromEnd(final int i, final int pre, final int inc) {
-    nids[i] = fids[i] + pre - pres[i] - 1;
-    incs[i] = inc;
+  private void resize(final int n, final int c) {
+    sizes[n] += c;
+    for(int p = n; p != 0; p = parents[p]) sums[p] += c;
   }
 
   /**
-   * Increment the pre- and inc-values of all tuples starting from the given index.
-   * @param from start index
-   * @param with increment value
+   * Returns the first interval of a tree.
+   * @param t root of the tree
+   * @return node, or {@code 0} if the tree is empty
    */
-  private void increment(final int from, final int with) {
-    for(int i = from; i < rows; ++i) {
-      pres[i] += with;
-      incs[i] += with;
-    }
+  private int first(final int t) {
+    int n = t;
+    if(n != 0) while(lefts[n] != 0) n = lefts[n];
+    return n;
   }
 
-  @Override
-  public String toString() {
-    final StringBuilder b = new StringBuilder();
-
-    b.append("pres, fids, nids, incs, oids");
-    for(int i = 0; i < rows; i++) {
-      b.append('\n');
-      b.append(pres[i]); b.append(", ");
-      b.append(fids[i]); b.append(", ");
-      b.append(nids[i]); b.append(", ");
-      b.append(incs[i]); b.append(", ");
-      b.append(oids[i]);
-    }
+  /**
+   * Returns the last interval of a tree.
+   * @param t root of the tree
+   * @return node, or {@code 0} if the tree is empty
+   */
+  private int last(final int t) {
+    int n = t;
+    if(n != 0) while(rights[n] != 0) n = rights[n];
+    return n;
+  }
 
-    return b.toString();
+  /**
+   * Inserts a node into the ID tree.
+   * @param n node
+   */
+  private void iinsert(final int n) {
+    isplit(iroot, fids[n]);
+    final int r = right;
+    iroot = imerge(imerge(left, n), r);
   }
 
   /**
-   * Size of the map.
-   * @return number of stored tuples.
+   * Removes a node from the ID tree.
+   * @param n node
    */
-  public int size() {
-    return rows;
+  private void iremove(final int n) {
+    isplit(iroot, fids[n]);
+    final int l = left;
+    isplit(right, fids[n] + 1);
+    iroot = imerge(l, right);
   }
 
   /**
-   * Search for a given pre value.
-   * @param pre pre value
-   * @return index of the record where the pre is found, or the insertion point, if not
-   * found
+   * Splits the ID tree into nodes with smaller IDs and all remaining nodes.
+   * The result is assigned to {@link #left} and {@link #right}.
+   * @param t root of the tree
+   * @param id ID
    */
-  private int findPre(final int pre) {
-    int low = 0;
-    int high = rows - 1;
-    while(low <= high) {
-      final int mid = low + high >>> 1;
-      final int midValMin = pres[mid];
-      final int midValMax = midValMin + nids[mid] - fids[mid];
-      if(midValMax < pre) low = mid + 1;
-      else if(midValMin > pre) high = mid - 1;
-      else return mid; // key found
+  private void isplit(final int t, final int id) {
+    if(t == 0) {
+      left = 0;
+      right = 0;
+    } else if(fids[t] < id) {
+      isplit(irights[t], id);
+      irights[t] = left;
+      left = t;
+    } else {
+      isplit(ilefts[t], id);
+      ilefts[t] = right;
+      right = t;
     }
-    return low; // key not found.
   }
 
   /**
-   * Binary search of a key in a list. If there are several hits the last one is returned.
-   * @param a array to search into
-   * @param e key to search for
-   * @return index of the found hit or where the key ought to be inserted
+   * Merges two ID trees.
+   * @param a first tree
+   * @param b second tree, containing larger IDs
+   * @return root of the resulting tree
    */
-  private int sortedLastIndexOf(final int[] a, final int e) {
-    int i = Arrays.binarySearch(a, 0, rows, e);
-    if(i >= 0) {
-      while(++i < rows && a[i] == e);
-      return i - 1;
+  private int imerge(final int a, final int b) {
+    if(a == 0) return b;
+    if(b == 0) return a;
+    if(prios[a] > prios[b]) {
+      irights[a] = imerge(irights[a], b);
+      return a;
     }
-    return i;
+    ilefts[b] = imerge(a, ilefts[b]);
+    return b;
   }
 
   /**
-   * Add a record to the table and the ID index.
-   * @param i index in the table where the record should be inserted
-   * @param pre pre value
-   * @param fid first ID value
-   * @param nid last ID value
-   * @param inc increment value
-   * @param oid original ID value
+   * Creates a new node.
+   * @param id first ID
+   * @param c number of records
+   * @return node
    */
-  private void add(final int i, final int pre, final int fid, final int nid,
-      final int inc, final int oid) {
-    if(rows == pres.length) {
-      final int s = Array.newSize(rows);
-      pres = Arrays.copyOf(pres, s);
-      fids = Arrays.copyOf(fids, s);
-      nids = Arrays.copyOf(nids, s);
-      incs = Arrays.copyOf(incs, s);
-      oids = Arrays.copyOf(oids, s);
-    }
-    if(i < rows) {
-      final int destPos = i + 1;
-      final int length = rows - i;
-      System.arraycopy(pres, i, pres, destPos, length);
-      System.arraycopy(fids, i, fids, destPos, length);
-      System.arraycopy(nids, i, nids, destPos, length);
-      System.arraycopy(incs, i, incs, destPos, length);
-      System.arraycopy(oids, i, oids, destPos, length);
+  private int node(final int id, final int c) {
+    final int n;
+    if(free.isEmpty()) {
+      if(nodes == fids.length) {
+        final int s = Array.newSize(nodes);
+        fids = Arrays.copyOf(fids, s);
+        sizes = Arrays.copyOf(sizes, s);
+        sums = Arrays.copyOf(sums, s);
+        prios = Arrays.copyOf(prios, s);
+        lefts = Arrays.copyOf(lefts, s);
+        rights = Arrays.copyOf(rights, s);
+        parents = Arrays.copyOf(parents, s);
+        ilefts = Arrays.copyOf(ilefts, s);
+        irights = Arrays.copyOf(irights, s);
+      }
+      n = nodes++;
+    } else {
+      n = free.pop();
     }
-    pres[i] = pre;
-    fids[i] = fid;
-    nids[i] = nid;
-    incs[i] = inc;
-    oids[i] = oid;
-    ++rows;
+    // xorshift generator
+    seed ^= seed << 13;
+    seed ^= seed >>> 17;
+    seed ^= seed << 5;
+    fids[n] = id;
+    sizes[n] = c;
+    sums[n] = c;
+    prios[n] = seed;
+    lefts[n] = 0;
+    rights[n] = 0;
+    parents[n] = 0;
+    ilefts[n] = 0;
+    irights[n] = 0;
+    rows++;
+    return n;
   }
 
   /**
-   * Remove a records from the table and the ID index.
-   * @param s start index of records in the table (inclusive)
-   * @param e end index of records in the table (inclusive)
+   * Releases a node.
+   * @param n node
    */
-  private void remove(final int s, final int e) {
-    if(s <= e) {
-      final int last = e + 1;
-      final int length = rows - last;
-      System.arraycopy(pres, last, pres, s, length);
-      System.arraycopy(fids, last, fids, s, length);
-      System.arraycopy(nids, last, nids, s, length);
-      System.arraycopy(incs, last, incs, s, length);
-      System.arraycopy(oids, last, oids, s, length);
-      rows -= last - s;
-    }
+  private void release(final int n) {
+    free.add(n);
+    rows--;
   }
 }
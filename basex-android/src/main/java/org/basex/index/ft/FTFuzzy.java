@@ -0,0 +1,129 @@
+package org.basex.index.ft;
+
+import static org.basex.util.Token.*;
+
+import java.util.*;
+
+/**
+ * This class compares sorted index tokens with a query token. The rows of the
+ * Damerau-Levenshtein matrix are computed for each character of an index token;
+ * the rows of a common prefix are reused for the next token. If all values of a
+ * row exceed the number of allowed errors, the index tokens starting with the
+ * current prefix can be skipped. The same rules are applied as in
+ * {@link org.basex.util.Levenshtein#similar}.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+final class FTFuzzy {
+  /** Maximum token size. */
+  private static final int MAX = 50;
+
+  /** Normalized characters of the query token. */
+  private final int[] query;
+  /** Number of characters of the query token. */
+  private final int ql;
+  /** Maximum number of errors. */
+  private final int errors;
+
+  /** Matrix rows (one row for each character of the index token). */
+  private int[][] rows;
+  /** Normalized characters of the last index token. */
+  private int[] chars;
+  /** Byte offsets after each character of the last index token. */
+  private int[] ends;
+  /** Last index token. */
+  private byte[] last = EMPTY;
+  /** Number of valid rows. */
+  private int valid;
+
+  /**
+   * Constructor.
+   * @param token query token
+   * @param k number of allowed errors; dynamic calculation if value is 0
+   */
+  FTFuzzy(final byte[] token, final int k) {
+    final int tl = token.length;
+    final int[] q = new int[tl];
+    int c = 0;
+    for(int t = 0; t < tl; t += cl(token, t)) q[c++] = norm(lc(cp(token, t)));
+    query = q;
+    ql = c;
+    // use exact search for too short and too long values
+    errors = ql < 4 || ql > MAX ? 0 : k == 0 ? Math.max(1, ql >> 2) : k;
+
+    rows = new int[ql + 1][];
+    chars = new int[ql + 1];
+    ends = new int[ql + 1];
+    rows[0] = new int[ql + 1];
+    for(int s = 0; s <= ql; s++) rows[0][s] = s;
+  }
+
+  /**
+   * Compares the specified index token with the query token.
+   * @param token index token
+   * @return {@code -1} if the tokens are similar, or the length of the shortest
+   *   prefix of the index token that cannot be completed to a similar token
+   */
+  int match(final byte[] token) {
+    // determine number of characters that can be reused
+    final int tl = token.length, ll = last.length;
+    int p = 0;
+    while(p < tl && p < ll && token[p] == last[p]) p++;
+    int c = 0;
+    while(c < valid && ends[c] <= p) c++;
+    valid = c;
+    last = token;
+    if(tl == 0) return tl;
+
+    int t = c == 0 ? 0 : ends[c - 1];
+    for(; t < tl; t += cl(token, t)) {
+      if(c + 1 >= rows.length) resize();
+      chars[c] = norm(lc(cp(token, t)));
+      ends[c] = t + cl(token, t);
+      if(row(c) > errors) return ends[c];
+      valid = ++c;
+    }
+    // too long tokens must be identical
+    final int d = rows[c][ql];
+    return d <= (c > MAX ? 0 : errors) ? -1 : tl;
+  }
+
+  /**
+   * Computes the next matrix row.
+   * @param c index of the current character
+   * @return minimum value of the row
+   */
+  private int row(final int c) {
+    final int[] prev = rows[c];
+    int[] curr = rows[c + 1];
+    if(curr == null) {
+      curr = new int[ql + 1];
+      rows[c + 1] = curr;
+    }
+    curr[0] = c + 1;
+
+    final int e = chars[c], e2 = c == 0 ? -1 : chars[c - 1];
+    int f2 = c == 0 || ql == 0 ? -1 : query[ql - 1];
+    int d = Integer.MAX_VALUE;
+    for(int s = 0; s < ql; s++) {
+      final int f = query[s];
+      int v = Math.min(Math.min(prev[s + 1] + 1, curr[s] + 1), prev[s] + (e == f ? 0 : 1));
+      if(e == f2 && f == e2) v = prev[s];
+      curr[s + 1] = v;
+      if(d > v) d = v;
+      f2 = f;
+    }
+    return d;
+  }
+
+  /**
+   * Enlarges the arrays.
+   */
+  private void resize() {
+    final int s = rows.length << 1;
+    rows = Arrays.copyOf(rows, s);
+    chars = Arrays.copyOf(chars, s);
+    ends = Arrays.copyOf(ends, s);
+  }
+}
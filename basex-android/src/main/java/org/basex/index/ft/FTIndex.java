@@ -52,8 +52,6 @@ public final class FTIndex implements Index {
 
   /** Cached texts. Increases used memory, but speeds up repeated queries. */
   private final IntObjMap<byte[]> ctext = new IntObjMap<byte[]>();
-  /** Levenshtein reference. */
-  private final Levenshtein ls = new Levenshtein();
   /** Data reference. */
   private final Data data;
 
@@ -335,9 +333,22 @@ public final class FTIndex implements Index {
       int i = s + 1;
       int r = -1;
       while(i < tp.length && r == -1) r = tp[i++];
+      // tokens of the same length are sorted: skip tokens with dissimilar prefixes
+      final FTFuzzy fz = new FTFuzzy(token, k);
+      byte[] pref = null;
+      int pl = 0;
       while(p < r) {
-        if(ls.similar(inY.readBytes(p, s), token, k)) {
+        final byte[] t = inY.readBytes(p, s);
+        if(pref != null && prefix(t, pref, pl)) {
+          p = skip(pref, pl, p, r);
+          continue;
+        }
+        final int d = fz.match(t);
+        if(d == -1) {
           it = FTIndexIterator.union(iter(pointer(p, s), size(p, s), inZ, token), it);
+        } else if(d < s) {
+          pref = t;
+          pl = d;
         }
         p += s + ENTRY;
       }
@@ -345,6 +356,44 @@ public final class FTIndex implements Index {
     return it;
   }
 
+  /**
+   * Returns the position of the first token that does not start with the
+   * specified prefix. The search is started with small steps, as most prefixes
+   * are only shared by few tokens.
+   * @param pref prefix
+   * @param pl length of the prefix
+   * @param p position of a token starting with the prefix
+   * @param r end of the tokens with the same length
+   * @return position
+   */
+  private int skip(final byte[] pref, final int pl, final int p, final int r) {
+    final int o = pref.length + ENTRY, n = (r - p) / o;
+    int l = 1, h = 1;
+    while(h < n && prefix(inY.readBytes(p + h * o, pl), pref, pl)) {
+      l = h + 1;
+      h = Math.min(n, h << 1);
+    }
+    h--;
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      if(prefix(inY.readBytes(p + m * o, pl), pref, pl)) l = m + 1;
+      else h = m - 1;
+    }
+    return p + l * o;
+  }
+
+  /**
+   * Checks if the specified token starts with the first bytes of a prefix.
+   * @param token token
+   * @param pref prefix
+   * @param pl number of bytes to compare
+   * @return result of check
+   */
+  private static boolean prefix(final byte[] token, final byte[] pref, final int pl) {
+    for(int i = 0; i < pl; i++) if(token[i] != pref[i]) return false;
+    return true;
+  }
+
   /**
    * Performs a wildcard search for the specified token.
    * @param token token to look for
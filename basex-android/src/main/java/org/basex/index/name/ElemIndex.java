@@ -0,0 +1,290 @@
+package org.basex.index.name;
+
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.index.query.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This index contains the sorted pre values of all elements, grouped by their
+ * names. It is used to evaluate descendant steps with name tests, as only the
+ * elements with the requested name need to be visited.</p>
+ *
+ * <p>The index is only used if the {@link org.basex.core.MainOptions#ELEMINDEX} option
+ * is enabled, as it occupies one integer per element in main memory.
+ * It is created when it is requested for the first time.
+ * Subsequent updates are incrementally applied: the pre values of inserted and
+ * deleted nodes are shifted in the same way as the entries of the ID/PRE mapping,
+ * and new or renamed elements are added to the corresponding lists.</p>
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class ElemIndex {
+  /** Data reference. */
+  private final Data data;
+  /** Pre values, indexed by the name ids (can be {@code null}).
+   * This variable should always be requested via {@link #pres()}. */
+  private int[][] pres;
+  /** Number of pre values per name id. */
+  private int[] sizes;
+  /** Name ids, indexed by local names. */
+  private final TokenObjMap<int[]> ids = new TokenObjMap<int[]>();
+  /** Number of element names at the time the name ids were cached. */
+  private int names;
+
+  /**
+   * Constructor.
+   * @param d data reference
+   */
+  public ElemIndex(final Data d) {
+    data = d;
+  }
+
+  /**
+   * Discards the index. It will be rebuilt when it is requested again.
+   */
+  public synchronized void init() {
+    pres = null;
+    sizes = null;
+    ids.clear();
+  }
+
+  /**
+   * Checks if the index has already been created.
+   * @return result of check
+   */
+  public synchronized boolean exists() {
+    return pres != null;
+  }
+
+  /**
+   * Returns the ids of all element names with the specified local name.
+   * The ids are cached until new names are added to the tag index.
+   * @param ln local name
+   * @return name ids
+   */
+  public synchronized int[] ids(final byte[] ln) {
+    final Names tags = data.tagindex;
+    final int ns = tags.size();
+    if(ns != names) {
+      ids.clear();
+      names = ns;
+    }
+    int[] ia = ids.get(ln);
+    if(ia == null) {
+      final IntList il = new IntList(1);
+      for(int n = 1; n <= ns; n++) {
+        if(Token.eq(ln, Token.local(tags.key(n)))) il.add(n);
+      }
+      ia = il.toArray();
+      ids.put(ln, ia);
+    }
+    return ia;
+  }
+
+  /**
+   * Returns an iterator for all elements with the specified name ids that are
+   * located within the specified pre range.
+   * @param ids name ids
+   * @param start first pre value (inclusive)
+   * @param end last pre value (exclusive)
+   * @return iterator
+   */
+  public synchronized IndexIterator iter(final int[] ids, final int start, final int end) {
+    final int[][] ps = pres();
+    final int il = ids.length;
+    final int[][] lists = new int[il][];
+    final int[] pos = new int[il], ends = new int[il];
+    int size = 0;
+    for(int i = 0; i < il; i++) {
+      final int id = ids[i];
+      if(id < ps.length) {
+        lists[i] = ps[id];
+        pos[i] = find(ps[id], sizes[id], start);
+        ends[i] = find(ps[id], sizes[id], end);
+        size += ends[i] - pos[i];
+      }
+    }
+    final int s = size;
+    return new IndexIterator() {
+      int pre;
+
+      @Override
+      public boolean more() {
+        // choose the smallest pre value of all lists
+        int m = -1;
+        for(int i = 0; i < il; i++) {
+          if(pos[i] < ends[i] && (m == -1 || lists[i][pos[i]] < lists[m][pos[m]])) m = i;
+        }
+        if(m == -1) return false;
+        pre = lists[m][pos[m]++];
+        return true;
+      }
+
+      @Override
+      public int pre() {
+        return pre;
+      }
+
+      @Override
+      public int size() {
+        return s;
+      }
+    };
+  }
+
+  /**
+   * Adds the elements of the specified pre range, which has been inserted to the
+   * database, and shifts the pre values of all subsequent nodes.
+   * @param pre pre value of the first inserted node
+   * @param size number of inserted nodes
+   */
+  public synchronized void insert(final int pre, final int size) {
+    if(pres == null) return;
+    move(pre, size);
+
+    // collect new elements
+    final int ns = data.tagindex.size() + 1;
+    if(ns > pres.length) {
+      pres = Arrays.copyOf(pres, ns);
+      sizes = Arrays.copyOf(sizes, ns);
+    }
+    final IntList[] lists = new IntList[ns];
+    final int end = pre + size;
+    for(int p = pre; p < end;) {
+      final int k = data.kind(p);
+      if(k == Data.ELEM) {
+        final int id = data.name(p);
+        if(lists[id] == null) lists[id] = new IntList();
+        lists[id].add(p);
+      }
+      p += data.attSize(p, k);
+    }
+    for(int id = 1; id < ns; id++) {
+      if(lists[id] != null) insert(id, find(pres[id], sizes[id], pre), lists[id].toArray());
+    }
+  }
+
+  /**
+   * Removes the elements of the specified pre range, which is going to be deleted,
+   * and shifts the pre values of all subsequent nodes.
+   * @param pre pre value of the first deleted node
+   * @param size number of deleted nodes
+   */
+  public synchronized void delete(final int pre, final int size) {
+    if(pres == null) return;
+    final int end = pre + size;
+    for(int id = 1; id < pres.length; id++) {
+      final int[] list = pres[id];
+      final int ls = sizes[id];
+      final int s = find(list, ls, pre), e = find(list, ls, end);
+      if(s != e) System.arraycopy(list, e, list, s, ls - e);
+      sizes[id] = ls - (e - s);
+    }
+    move(pre, -size);
+  }
+
+  /**
+   * Updates the index after an element has been renamed.
+   * @param pre pre value
+   * @param old old name id
+   * @param id new name id
+   */
+  public synchronized void rename(final int pre, final int old, final int id) {
+    if(pres == null || old == id) return;
+    final int[] list = pres[old];
+    final int ls = sizes[old], i = find(list, ls, pre);
+    System.arraycopy(list, i + 1, list, i, ls - i - 1);
+    sizes[old]--;
+
+    if(id >= pres.length) {
+      pres = Arrays.copyOf(pres, id + 1);
+      sizes = Arrays.copyOf(sizes, id + 1);
+    }
+    insert(id, find(pres[id], sizes[id], pre), new int[] { pre });
+  }
+
+  // PRIVATE METHODS ====================================================================
+
+  /**
+   * Returns the pre values of all elements, and creates them if necessary.
+   * @return pre values
+   */
+  private int[][] pres() {
+    if(pres == null) {
+      final int ns = data.tagindex.size() + 1;
+      final IntList[] lists = new IntList[ns];
+      for(int id = 1; id < ns; id++) lists[id] = new IntList();
+      final int size = data.meta.size;
+      for(int p = 0; p < size;) {
+        final int k = data.kind(p);
+        if(k == Data.ELEM) lists[data.name(p)].add(p);
+        p += data.attSize(p, k);
+      }
+      final int[][] ps = new int[ns][];
+      final int[] ss = new int[ns];
+      ps[0] = new int[0];
+      for(int id = 1; id < ns; id++) {
+        ps[id] = lists[id].toArray();
+        ss[id] = ps[id].length;
+      }
+      sizes = ss;
+      pres = ps;
+    }
+    return pres;
+  }
+
+  /**
+   * Adds the specified value to all pre values that are equal to or greater than the
+   * specified pre value.
+   * @param pre pre value
+   * @param diff difference
+   */
+  private void move(final int pre, final int diff) {
+    for(int id = 1; id < pres.length; id++) {
+      final int[] list = pres[id];
+      final int ls = sizes[id];
+      for(int i = find(list, ls, pre); i < ls; i++) list[i] += diff;
+    }
+  }
+
+  /**
+   * Inserts pre values into the list of the specified name id.
+   * @param id name id
+   * @param pos insertion position
+   * @param values sorted pre values
+   */
+  private void insert(final int id, final int pos, final int[] values) {
+    int[] list = pres[id];
+    if(list == null) list = new int[0];
+    final int ls = sizes[id], vs = values.length;
+    if(ls + vs > list.length) list = Arrays.copyOf(list, Math.max(Array.newSize(ls), ls + vs));
+    System.arraycopy(list, pos, list, pos + vs, ls - pos);
+    System.arraycopy(values, 0, list, pos, vs);
+    pres[id] = list;
+    sizes[id] = ls + vs;
+  }
+
+  /**
+   * Returns the position of the first entry that is equal to or greater than the
+   * specified pre value.
+   * @param list sorted pre values
+   * @param size number of entries
+   * @param pre pre value
+   * @return position
+   */
+  private static int find(final int[] list, final int size, final int pre) {
+    if(list == null) return 0;
+    int l = 0, h = size;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(list[m] < pre) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+}
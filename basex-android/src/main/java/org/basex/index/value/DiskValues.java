@@ -12,6 +12,7 @@ import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
+import org.basex.io.*;
 import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
@@ -25,10 +26,17 @@ import org.basex.util.list.*;
  * @author Christian Gruen
  */
 public class DiskValues implements Index {
+  /** Maximum number of index entries that are sampled for cost estimations. */
+  private static final int SAMPLES = 32;
+
   /** ID references. */
   final DataAccess idxr;
   /** ID lists. */
   final DataAccess idxl;
+  /** Sorted numeric keys ({@code null} if not available or outdated). */
+  private DataAccess idxn;
+  /** File with sorted numeric keys. */
+  private final IOFile numfile;
   /** Value type (texts/attributes). */
   private final boolean text;
   /** Data reference. */
@@ -63,8 +71,12 @@ public class DiskValues implements Index {
   DiskValues(final Data d, final boolean txt, final String pref) throws IOException {
     data = d;
     text = txt;
-    idxl = new DataAccess(d.meta.dbfile(pref + 'l'));
-    idxr = new DataAccess(d.meta.dbfile(pref + 'r'));
+    final int b = d.meta.options.get(MainOptions.BUFFERS);
+    final boolean m = d.meta.options.get(MainOptions.MMAP);
+    idxl = new DataAccess(d.meta.dbfile(pref + 'l'), b, m);
+    idxr = new DataAccess(d.meta.dbfile(pref + 'r'), b, m);
+    numfile = d.meta.dbfile(pref + 'n');
+    if(numfile.exists()) idxn = new DataAccess(numfile, b, m);
     size.set(idxl.read4());
   }
 
@@ -94,12 +106,77 @@ public class DiskValues implements Index {
 
   @Override
   public int costs(final IndexToken it) {
-    if(it instanceof StringRange) return idRange((StringRange) it).size();
-    if(it instanceof NumericRange) return idRange((NumericRange) it).size();
+    if(it instanceof StringRange) return costs((StringRange) it);
+    if(it instanceof NumericRange) return costs((NumericRange) it);
     final byte[] key = it.get();
     return key.length <= data.meta.maxlen ? entry(key).size : Integer.MAX_VALUE;
   }
 
+  /**
+   * Estimates the number of results of a string-based range query.
+   * The boundaries of the range are found via binary search, and the number of
+   * ids is sampled from a limited number of keys in between.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param tok index term
+   * @return estimated number of results
+   */
+  private int costs(final StringRange tok) {
+    final int f = get(tok.min), l = get(tok.max);
+    final int first = f < 0 ? -f - 1 : tok.mni ? f : f + 1;
+    final int last = l < 0 ? -l - 1 : tok.mxi ? l + 1 : l;
+    final int keys = last - first;
+    if(keys <= 0) return 0;
+
+    final int step = Math.max(1, keys / SAMPLES);
+    long ids = 0;
+    int n = 0;
+    synchronized(monitor) {
+      for(int k = first; k < last; k += step) {
+        ids += idxl.readNum(idxr.read5(k * 5L));
+        n++;
+      }
+    }
+    return estimate(ids, keys, n);
+  }
+
+  /**
+   * Estimates the number of results of a numeric range query.
+   * If the sorted numeric keys are available, the exact number will be computed
+   * from the accumulated id counts. Otherwise, a limited number of keys is sampled.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param tok index term
+   * @return estimated number of results
+   */
+  private int costs(final NumericRange tok) {
+    final int s = size.get();
+    final int step = Math.max(1, s / SAMPLES);
+    long ids = 0;
+    int n = 0;
+    synchronized(monitor) {
+      if(idxn != null) return ids(numeric(tok.max, true)) - ids(numeric(tok.min, false));
+
+      for(int k = 0; k < s; k += step) {
+        final IndexEntry entry = readKeyAt(k);
+        final double v = toDouble(entry.key);
+        if(v >= tok.min && v <= tok.max) ids += entry.size;
+        n++;
+      }
+    }
+    // sampled values may miss existing results
+    return step == 1 ? (int) ids : Math.max(1, estimate(ids, s, n));
+  }
+
+  /**
+   * Extrapolates the number of ids of the sampled keys to all keys.
+   * @param ids number of ids of the sampled keys
+   * @param keys total number of keys
+   * @param n number of sampled keys
+   * @return estimated number of ids
+   */
+  private static int estimate(final long ids, final int keys, final int n) {
+    return (int) Math.min(Integer.MAX_VALUE, ids * keys / n);
+  }
+
   @Override
   public IndexIterator iter(final IndexToken it) {
     if(it instanceof StringRange) return idRange((StringRange) it);
@@ -295,6 +372,9 @@ public class DiskValues implements Index {
    * @return iterator
    */
   private IndexIterator iter(final int s, final long ps) {
+    // ids and pre values are identical: ids will be decoded on demand
+    if(sorted()) return new MergeIterator(idxl, new long[] { ps }, new int[] { s }, s);
+
     final IntList pres = new IntList(s);
     long p = ps;
     synchronized(monitor) {
@@ -307,6 +387,36 @@ public class DiskValues implements Index {
     return iter(pres.sort());
   }
 
+  /**
+   * Returns an iterator for the ids of the specified keys.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param keys key positions
+   * @return iterator
+   */
+  private IndexIterator keys(final IntList keys) {
+    final int ks = keys.size();
+    final long[] offsets = new long[ks];
+    final int[] counts = new int[ks];
+    int s = 0;
+    for(int k = 0; k < ks; k++) {
+      counts[k] = idxl.readNum(idxr.read5(keys.get(k) * 5L));
+      offsets[k] = idxl.cursor();
+      s += counts[k];
+    }
+    // ids and pre values are identical: merge sorted id lists on demand
+    if(sorted()) return new MergeIterator(idxl, offsets, counts, s);
+
+    final IntList pres = new IntList(s);
+    for(int k = 0; k < ks; k++) {
+      idxl.cursor(offsets[k]);
+      for(int i = 0, id = 0; i < counts[k]; i++) {
+        id += idxl.readNum();
+        pres.add(pre(id));
+      }
+    }
+    return iter(pres.sort());
+  }
+
   /**
    * Performs a string-based range query.
    * <p><em>Important:</em> This method is thread-safe.</p>
@@ -314,27 +424,21 @@ public class DiskValues implements Index {
    * @return results
    */
   private IndexIterator idRange(final StringRange tok) {
-    // check if min and max are positive integers with the same number of digits
-    final IntList pres = new IntList();
+    final IntList keys = new IntList();
     synchronized(monitor) {
       final int i = get(tok.min);
       final int s = size.get();
       for(int l = i < 0 ? -i - 1 : tok.mni ? i : i + 1; l < s; l++) {
-        final int ps = idxl.readNum(idxr.read5(l * 5L));
-        int id = idxl.readNum();
-        final int pre = pre(id);
+        idxl.readNum(idxr.read5(l * 5L));
+        final int pre = pre(idxl.readNum());
 
         // value is too large: skip traversal
         final int d = diff(data.text(pre, text), tok.max);
         if(d > 0 || !tok.mxi && d == 0) break;
-        // add pre values
-        for(int p = 0; p < ps; ++p) {
-          pres.add(pre(id));
-          id += idxl.readNum();
-        }
+        keys.add(l);
       }
+      return keys(keys);
     }
-    return iter(pres.sort());
   }
 
   /**
@@ -352,21 +456,26 @@ public class DiskValues implements Index {
     final boolean simple = len != 0 && min > 0 && (long) min == min &&
         token(min).length == len;
 
-    final IntList pres = new IntList();
+    final IntList keys = new IntList();
     synchronized(monitor) {
+      if(idxn != null) {
+        // sorted numeric keys: only visit keys within the range
+        final int l = numeric(max, true);
+        for(int n = numeric(min, false); n < l; n++) {
+          keys.add(idxn.read4(((long) n << 4) + 8));
+        }
+        return keys(keys);
+      }
+
       final int s = size.get();
       for(int l = 0; l < s; ++l) {
-        final int ds = idxl.readNum(idxr.read5(l * 5L));
-        int id = idxl.readNum();
-        final int pre = pre(id);
+        idxl.readNum(idxr.read5(l * 5L));
+        final int pre = pre(idxl.readNum());
 
         final double v = data.textDbl(pre, text);
         if(v >= min && v <= max) {
           // value is in range
-          for(int d = 0; d < ds; ++d) {
-            pres.add(pre(id));
-            id += idxl.readNum();
-          }
+          keys.add(l);
         } else if(simple && v > max && data.textLen(pre, text) == len) {
           // if limits are integers, if min, max and current value have the same
           // string length, and if current value is larger than max, test can be
@@ -374,8 +483,60 @@ public class DiskValues implements Index {
           break;
         }
       }
+      return keys(keys);
+    }
+  }
+
+  /**
+   * Returns the position of the first numeric key that is greater than
+   * (or equal to) the specified value.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param v value
+   * @param eq also skip keys that are equal to the value
+   * @return position
+   */
+  private int numeric(final double v, final boolean eq) {
+    int l = 0, h = (int) (idxn.length() >>> 4) - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      final double d = value(m);
+      if(d < v || eq && d == v) l = m + 1;
+      else h = m - 1;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the value of the numeric key at the specified position.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param n position of the key
+   * @return value
+   */
+  private double value(final int n) {
+    final long p = (long) n << 4;
+    return Double.longBitsToDouble((long) idxn.read4(p) << 32 | idxn.read4() & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the accumulated number of ids of all numeric keys before the specified position.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param n position of the key
+   * @return number of ids
+   */
+  private int ids(final int n) {
+    return n == 0 ? 0 : idxn.read4(((long) (n - 1) << 4) + 12);
+  }
+
+  /**
+   * Discards the sorted numeric keys, which are not updated incrementally.
+   */
+  final void dropNumeric() {
+    synchronized(monitor) {
+      if(idxn == null) return;
+      idxn.close();
+      idxn = null;
+      numfile.delete();
     }
-    return iter(pres.sort());
   }
 
   /**
@@ -405,6 +566,15 @@ public class DiskValues implements Index {
     };
   }
 
+  /**
+   * Indicates if the ids of the index are identical to the pre values.
+   * In this case, the sorted id lists can be streamed without being cached.
+   * @return result of check
+   */
+  boolean sorted() {
+    return true;
+  }
+
   /**
    * Returns the {@code pre} value for the specified id.
    * @param id id value
@@ -461,6 +631,7 @@ public class DiskValues implements Index {
       flush();
       idxl.close();
       idxr.close();
+      if(idxn != null) idxn.close();
     }
   }
 
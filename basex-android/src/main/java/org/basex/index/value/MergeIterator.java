@@ -0,0 +1,111 @@
+package org.basex.index.value;
+
+import org.basex.index.query.*;
+import org.basex.io.random.*;
+import org.basex.util.*;
+
+/**
+ * This iterator returns the ids of one or more sorted id lists in ascending order.
+ * The ids are decoded on demand; if more than one list is specified, the lists
+ * will be merged via a heap. As no ids are cached, the iterator can only be used
+ * if ids and pre values are identical.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+final class MergeIterator extends IndexIterator {
+  /** ID lists. */
+  private final DataAccess idxl;
+  /** Offsets to the next ids of the lists. */
+  private final long[] offsets;
+  /** Remaining number of ids of the lists. */
+  private final int[] counts;
+  /** Current ids of the lists. */
+  private final int[] ids;
+  /** Heap, referencing the lists with the smallest current ids. */
+  private final int[] heap;
+  /** Total number of ids. */
+  private final int size;
+  /** Heap size. */
+  private int hs;
+  /** Current pre value. */
+  private int pre;
+
+  /**
+   * Constructor.
+   * @param il id lists
+   * @param os offsets to the first ids of the lists
+   * @param cs number of ids of the lists
+   * @param s total number of ids
+   */
+  MergeIterator(final DataAccess il, final long[] os, final int[] cs, final int s) {
+    idxl = il;
+    offsets = os;
+    counts = cs;
+    size = s;
+    final int ls = os.length;
+    ids = new int[ls];
+    heap = new int[ls];
+    for(int l = 0; l < ls; l++) {
+      if(counts[l] == 0) continue;
+      ids[l] = next(l);
+      heap[hs++] = l;
+    }
+    for(int h = (hs >>> 1) - 1; h >= 0; h--) down(h);
+  }
+
+  @Override
+  public boolean more() {
+    if(hs == 0) return false;
+    final int l = heap[0];
+    pre = ids[l];
+    if(counts[l] == 0) {
+      heap[0] = heap[--hs];
+    } else {
+      ids[l] += next(l);
+    }
+    if(hs > 1) down(0);
+    return true;
+  }
+
+  @Override
+  public int pre() {
+    return pre;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Decodes the next distance of the specified list.
+   * @param l list
+   * @return distance to the previous id
+   */
+  private int next(final int l) {
+    final int v = idxl.num(offsets[l]);
+    offsets[l] += Num.length(v);
+    counts[l]--;
+    return v;
+  }
+
+  /**
+   * Moves the specified heap entry down to its final position.
+   * @param h heap position
+   */
+  private void down(final int h) {
+    final int l = heap[h];
+    final int id = ids[l];
+    int p = h;
+    while(true) {
+      int c = (p << 1) + 1;
+      if(c >= hs) break;
+      if(c + 1 < hs && ids[heap[c + 1]] < ids[heap[c]]) c++;
+      if(ids[heap[c]] >= id) break;
+      heap[p] = heap[c];
+      p = c;
+    }
+    heap[p] = l;
+  }
+}
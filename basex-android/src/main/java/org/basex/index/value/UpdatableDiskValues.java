@@ -40,6 +40,11 @@ public final class UpdatableDiskValues extends DiskValues {
     super(d, txt, pref);
   }
 
+  @Override
+  boolean sorted() {
+    return false;
+  }
+
   @Override
   protected int pre(final int id) {
     return data.pre(id);
@@ -53,6 +58,7 @@ public final class UpdatableDiskValues extends DiskValues {
 
   @Override
   public synchronized void index(final TokenObjMap<IntList> m) {
+    dropNumeric();
     final int s = size.get();
     final int last = s - 1;
 
@@ -125,6 +131,7 @@ public final class UpdatableDiskValues extends DiskValues {
 
   @Override
   public synchronized void delete(final TokenObjMap<IntList> m) {
+    dropNumeric();
     // create a sorted list of all keys: allows faster binary search
     final TokenList allkeys = new TokenList(m).sort(true);
 
@@ -201,6 +208,7 @@ public final class UpdatableDiskValues extends DiskValues {
 
   @Override
   public synchronized void replace(final byte[] o, final byte[] n, final int id) {
+    dropNumeric();
     // delete the id from the old key
     final int p = get(o);
     if(p >= 0) {
@@ -5,6 +5,7 @@ import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
@@ -29,6 +30,12 @@ import org.basex.util.list.*;
  *   structure. Instead, they can be found by following the id references to
  *   the main table.
  * </li>
+ * <li> {@code DATATXT/ATV + 'n'}: contains all numeric keys, sorted by their
+ *   double values. Each entry occupies 16 bytes: the 8-byte double value,
+ *   the 4-byte position of the key in the {@code 'r'} file, and the 4-byte
+ *   accumulated number of ids of all keys up to this entry. The file is used
+ *   to speed up numeric range queries and to compute their costs.
+ * </li>
  * </ul>
  *
  * @author BaseX Team 2005-13, BSD License
@@ -39,6 +46,12 @@ public final class ValueIndexBuilder extends IndexBuilder {
   private IndexTree index = new IndexTree();
   /** Index type (attributes/texts). */
   private final boolean text;
+  /** Values of numeric keys. */
+  private final DoubleList nvalues = new DoubleList();
+  /** Positions of numeric keys. */
+  private final IntList nkeys = new IntList();
+  /** Number of ids of numeric keys. */
+  private final IntList ncounts = new IntList();
 
   /**
    * Constructor.
@@ -84,6 +97,7 @@ public final class ValueIndexBuilder extends IndexBuilder {
       Performance.gc(1);
       merge();
     }
+    writeNumeric();
 
     if(text) data.meta.textindex = true;
     else data.meta.attrindex = true;
@@ -94,56 +108,53 @@ public final class ValueIndexBuilder extends IndexBuilder {
   }
 
   /**
-   * Merges cached index files.
+   * Merges cached index files. The partial indexes are organized in a min-heap,
+   * which is ordered by their current keys.
    * @throws IOException I/O exception
    */
   private void merge() throws IOException {
     final String f = text ? DATATXT : DATAATV;
-    final DataOutput outL = new DataOutput(data.meta.dbfile(f + 'l'));
-    final DataOutput outR = new DataOutput(data.meta.dbfile(f + 'r'));
+    final DataOutput outL = new DataOutput(data.meta.dbfile(f + 'l'), ValueIndexMerger.BUFFER);
+    final DataOutput outR = new DataOutput(data.meta.dbfile(f + 'r'), ValueIndexMerger.BUFFER);
     outL.write4(0);
 
     // initialize cached index iterators
-    final IntList ml = new IntList();
-    final IntList il = new IntList();
-    final ValueIndexMerger[] vm = new ValueIndexMerger[splits];
-    for(int i = 0; i < splits; ++i) vm[i] = new ValueIndexMerger(data, text, i);
-    int sz = 0;
+    final MinHeap<ValueIndexMerger, ValueIndexMerger> heap =
+        new MinHeap<ValueIndexMerger, ValueIndexMerger>(splits,
+        new Comparator<ValueIndexMerger>() {
+      @Override
+      public int compare(final ValueIndexMerger vm1, final ValueIndexMerger vm2) {
+        final int d = diff(vm1.key, vm2.key);
+        return d != 0 ? d : vm1.id - vm2.id;
+      }
+    });
+    for(int i = 0; i < splits; ++i) {
+      final ValueIndexMerger vm = new ValueIndexMerger(data, text, i);
+      if(vm.values.length != 0) heap.insert(vm, vm);
+    }
 
     // parse through all values
-    while(true) {
+    final IntList il = new IntList();
+    int sz = 0;
+    while(!heap.isEmpty()) {
       checkStop();
 
-      // find first index which is not completely parsed yet
-      int min = -1;
-      while(++min < splits && vm[min].values.length == 0);
-      if(min == splits) break;
-
-      // find index entry with smallest key
-      ml.reset();
-      for(int i = min; i < splits; ++i) {
-        if(vm[i].values.length == 0) continue;
-        final int d = diff(vm[min].key, vm[i].key);
-        if(d < 0) continue;
-        if(d > 0) {
-          min = i;
-          ml.reset();
-        }
-        ml.add(i);
-      }
-
-      // parse through all values, cache and sort id values
-      final int ms = ml.size();
-      for(int m = 0; m < ms; ++m) {
-        final ValueIndexMerger t = vm[ml.get(m)];
-        final int vl = t.values.length;
+      // cache id values of all indexes with the smallest key
+      final byte[] key = heap.minKey().key;
+      do {
+        final ValueIndexMerger vm = heap.removeMin();
+        final byte[] values = vm.values;
+        final int vl = values.length;
         for(int l = 4, v; l < vl; l += Num.length(v)) {
-          v = Num.get(t.values, l);
+          v = Num.get(values, l);
           il.add(v);
         }
-        t.next();
-      }
+        vm.next();
+        if(vm.values.length != 0) heap.insert(vm, vm);
+      } while(!heap.isEmpty() && eq(heap.minKey().key, key));
+
       // write final structure to disk
+      numeric(key, sz, il.size());
       write(outL, outR, il);
       ++sz;
     }
@@ -172,8 +183,9 @@ public final class ValueIndexBuilder extends IndexBuilder {
 
     final IntList il = new IntList();
     index.init();
-    while(index.more()) {
-      final byte[] values = index.values.get(index.next());
+    for(int k = 0; index.more(); k++) {
+      final int i = index.next();
+      final byte[] values = index.values.get(i);
       final int vs = Num.size(values);
 
       if(partial) {
@@ -186,6 +198,7 @@ public final class ValueIndexBuilder extends IndexBuilder {
           il.add(Num.get(values, ip));
         }
         // write final structure to disk
+        numeric(index.keys.get(i), k, il.size());
         write(outL, outR, il);
       }
     }
@@ -203,6 +216,49 @@ public final class ValueIndexBuilder extends IndexBuilder {
     splits++;
   }
 
+  /**
+   * Remembers the specified key if it is numeric.
+   * @param key key
+   * @param pos position of the key
+   * @param count number of ids
+   */
+  private void numeric(final byte[] key, final int pos, final int count) {
+    final double d = toDouble(key);
+    if(Double.isNaN(d)) return;
+    nvalues.add(d);
+    nkeys.add(pos);
+    ncounts.add(count);
+  }
+
+  /**
+   * Writes the numeric keys, sorted by their values, to disk.
+   * @throws IOException I/O exception
+   */
+  private void writeNumeric() throws IOException {
+    final DataOutput outN = new DataOutput(data.meta.dbfile((text ? DATATXT : DATAATV) + 'n'));
+    try {
+      // the values will be sorted along with the order
+      final double[] values = nvalues.toArray();
+      final int[] order = Array.createOrder(values, true);
+      final int ns = order.length;
+      int ids = 0;
+      for(int n = 0; n < ns; n++) {
+        final int o = order[n];
+        final long v = Double.doubleToLongBits(values[n]);
+        outN.write4((int) (v >>> 32));
+        outN.write4((int) v);
+        outN.write4(nkeys.get(o));
+        ids += ncounts.get(o);
+        outN.write4(ids);
+      }
+    } finally {
+      outN.close();
+    }
+    nvalues.reset();
+    nkeys.reset();
+    ncounts.reset();
+  }
+
   /**
    * Writes the final value structure to disk.
    * @param outL index values
@@ -7,22 +7,31 @@ import java.io.*;
 
 import org.basex.data.*;
 import org.basex.io.in.DataInput;
+import org.basex.util.*;
 
 /**
  * This class provides data for merging temporary value indexes.
+ * The temporary files are read sequentially with large buffers.
  *
  * @author BaseX Team 2005-13, BSD License
  * @author Christian Gruen
  */
 final class ValueIndexMerger {
-  /** Index instance. */
-  private final DiskValues dv;
+  /** Size of the input buffers. */
+  static final int BUFFER = 1 << 16;
+
   /** Index keys. */
   private final DataInput dk;
+  /** Index values. */
+  private final DataInput dv;
   /** File prefix. */
   private final String pref;
   /** Data reference. */
   private final Data data;
+  /** Merge id. */
+  final int id;
+  /** Number of remaining entries. */
+  private int entries;
 
   /** Current key. */
   byte[] key;
@@ -38,9 +47,11 @@ final class ValueIndexMerger {
    */
   ValueIndexMerger(final Data d, final boolean txt, final int i) throws IOException {
     pref = (txt ? DATATXT : DATAATV) + i;
-    dk = new DataInput(d.meta.dbfile(pref + 't'));
-    dv = new DiskValues(d, txt, pref);
+    dk = new DataInput(d.meta.dbfile(pref + 't'), BUFFER);
+    dv = new DataInput(d.meta.dbfile(pref + 'l'), BUFFER);
     data = d;
+    id = i;
+    entries = read4();
     next();
   }
 
@@ -50,22 +61,27 @@ final class ValueIndexMerger {
    * @throws IOException I/O exception
    */
   void next() throws IOException {
-    values = nextValues();
-    if(values.length == 0) {
+    if(entries-- > 0) {
+      // values: 4-byte size of the array, followed by the compressed ids
+      final int s = read4();
+      values = new byte[s];
+      Num.size(values, s);
+      for(int v = 4; v < s; v++) values[v] = (byte) dv.read();
+      key = dk.readToken();
+    } else {
+      values = EMPTY;
       dv.close();
       dk.close();
       data.meta.drop(pref + '.');
-    } else {
-      key = dk.readToken();
     }
   }
 
   /**
-   * Returns next values. Called by the {@link ValueIndexBuilder}.
-   * @return compressed values
+   * Reads a 4-byte integer from the value file.
+   * @return integer
+   * @throws IOException I/O exception
    */
-  private byte[] nextValues() {
-    return dv.idxr.cursor() >= dv.idxr.length() ? EMPTY :
-      dv.idxl.readBytes(dv.idxr.read5(), dv.idxl.read4());
+  private int read4() throws IOException {
+    return (dv.read() << 24) + (dv.read() << 16) + (dv.read() << 8) + dv.read();
   }
 }
@@ -71,6 +71,10 @@ public abstract class IO {
 
   /** Disk block/page size (4096). */
   public static final int BLOCKSIZE = 1 << 12;
+  /** Block size power of compressed texts and attribute values (15). */
+  public static final int CBLOCKPOWER = 15;
+  /** Block size of compressed texts and attribute values (32768). */
+  public static final int CBLOCKSIZE = 1 << CBLOCKPOWER;
   /** Table node size power (4). */
   public static final int NODEPOWER = 4;
   /** Table node size power (16). */
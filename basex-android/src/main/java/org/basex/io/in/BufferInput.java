@@ -37,7 +37,17 @@ public class BufferInput extends InputStream {
    * @throws IOException I/O Exception
    */
   public BufferInput(final IO io) throws IOException {
-    this(io.inputStream());
+    this(io, IO.BLOCKSIZE);
+  }
+
+  /**
+   * Constructor, specifying a buffer size.
+   * @param io input to be read
+   * @param bs buffer size
+   * @throws IOException I/O Exception
+   */
+  public BufferInput(final IO io, final int bs) throws IOException {
+    this(io.inputStream(), bs);
     length = io.length();
     input = io;
   }
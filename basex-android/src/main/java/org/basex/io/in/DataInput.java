@@ -23,6 +23,16 @@ public final class DataInput extends BufferInput {
     super(io);
   }
 
+  /**
+   * Constructor, specifying a buffer size.
+   * @param io the input to be read
+   * @param bs buffer size
+   * @throws IOException I/O Exception
+   */
+  public DataInput(final IO io, final int bs) throws IOException {
+    super(io, bs);
+  }
+
   /**
    * Reads a boolean value.
    * @return boolean value
@@ -137,7 +147,7 @@ public final class DataInput extends BufferInput {
    * @return read value
    * @throws IOException I/O Exception
    */
-  long read8() throws IOException {
+  public long read8() throws IOException {
     return ((long) read() << 56) + ((long) (read() & 255) << 48)
         + ((long) (read() & 255) << 40) + ((long) (read() & 255) << 32)
         + ((long) (read() & 255) << 24) + ((read() & 255) << 16)
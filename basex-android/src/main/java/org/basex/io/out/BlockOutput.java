@@ -0,0 +1,80 @@
+package org.basex.io.out;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class writes bytes in compressed blocks of {@link IO#CBLOCKSIZE} bytes.
+ * The compressed blocks are followed by a block offset table:
+ * <ul>
+ * <li> the file offsets of all blocks, and the offset of the table (5 bytes each)</li>
+ * <li> the number of uncompressed bytes (5 bytes)</li>
+ * <li> the number of blocks (4 bytes)</li>
+ * </ul>
+ * The file can be accessed via {@link org.basex.io.random.BlockAccess}.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class BlockOutput extends OutputStream {
+  /** Buffer. */
+  private final byte[] buffer = new byte[IO.CBLOCKSIZE];
+  /** Block compressor. */
+  private final BlockCompress comp = new BlockCompress();
+  /** Sizes of the compressed blocks. */
+  private final IntList sizes = new IntList();
+  /** The underlying output stream. */
+  private final DataOutput out;
+
+  /** Position inside buffer. */
+  private int pos;
+  /** Number of uncompressed bytes. */
+  private long size;
+
+  /**
+   * Constructor.
+   * @param file file to be written to
+   * @param bufs size of the output buffer
+   * @throws IOException I/O exception
+   */
+  public BlockOutput(final IOFile file, final int bufs) throws IOException {
+    out = new DataOutput(file, bufs);
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    if(pos == IO.CBLOCKSIZE) block();
+    buffer[pos++] = (byte) b;
+    size++;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if(pos != 0) block();
+    // write block offset table
+    final int bl = sizes.size();
+    long off = 0;
+    for(int b = 0; b < bl; b++) {
+      out.write5(off);
+      off += sizes.get(b);
+    }
+    out.write5(off);
+    out.write5(size);
+    out.write4(bl);
+    out.close();
+  }
+
+  /**
+   * Compresses and writes the buffered bytes.
+   * @throws IOException I/O exception
+   */
+  private void block() throws IOException {
+    final byte[] b = comp.pack(buffer, pos);
+    out.writeBytes(b);
+    sizes.add(b.length);
+    pos = 0;
+  }
+}
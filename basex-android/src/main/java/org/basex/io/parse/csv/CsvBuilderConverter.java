@@ -0,0 +1,132 @@
+package org.basex.io.parse.csv;
+
+import static org.basex.query.util.Err.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+
+import org.basex.build.*;
+import org.basex.build.CsvOptions.CsvFormat;
+import org.basex.io.in.*;
+import org.basex.query.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class converts CSV data to XML and passes on the resulting node events to a
+ * database builder. Records are written one by one, and no intermediate tree or string
+ * is created. The result is identical to the one of the {@link CsvStringConverter}.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class CsvBuilderConverter extends CsvConverter {
+  /** CSV token. */
+  private static final byte[] CSV = token("csv");
+  /** CSV token. */
+  private static final byte[] RECORD = token("record");
+  /** CSV token. */
+  private static final byte[] ENTRY = token("entry");
+  /** CSV token. */
+  private static final byte[] NAME = token("name");
+
+  /** Builder. */
+  private final Builder builder;
+  /** Headers. */
+  private final TokenList headers = new TokenList();
+  /** Attributes format. */
+  private final boolean atts;
+  /** Lax QName conversion. */
+  private final boolean lax;
+  /** Chop whitespaces. */
+  private final boolean chop;
+  /** Attributes of the next element. */
+  private final Atts attr = new Atts();
+  /** Namespaces. */
+  private final Atts nsp = new Atts();
+
+  /** Record. */
+  private boolean record;
+  /** Current column. */
+  private int col;
+
+  /**
+   * Constructor.
+   * @param opts CSV options
+   * @param build builder
+   * @param ch chop whitespaces of entries
+   */
+  public CsvBuilderConverter(final CsvParserOptions opts, final Builder build,
+      final boolean ch) {
+    super(opts);
+    builder = build;
+    lax = opts.get(CsvOptions.LAX);
+    atts = opts.get(CsvOptions.FORMAT) == CsvFormat.ATTRIBUTES;
+    chop = ch;
+  }
+
+  @Override
+  public void convert(final NewlineInput input) throws IOException {
+    record = false;
+    builder.openElem(CSV, attr, nsp);
+    super.convert(input);
+    if(record) builder.closeElem();
+    builder.closeElem();
+  }
+
+  @Override
+  void record() throws QueryIOException {
+    try {
+      if(record) builder.closeElem();
+      builder.openElem(RECORD, attr, nsp);
+    } catch(final IOException ex) {
+      throw error(ex);
+    }
+    record = true;
+    col = 0;
+  }
+
+  @Override
+  void header(final byte[] value) {
+    headers.add(atts ? value : XMLToken.encode(value, lax));
+  }
+
+  @Override
+  void entry(final byte[] entry) throws QueryIOException {
+    final byte[] name = headers.get(col++);
+    byte[] elem = ENTRY;
+    attr.clear();
+    if(atts) {
+      if(name != null) attr.add(NAME, name);
+    } else if(name != null) {
+      elem = name;
+    }
+    try {
+      builder.openElem(elem, attr, nsp);
+      builder.text(chop ? trim(entry) : entry);
+      builder.closeElem();
+    } catch(final IOException ex) {
+      throw error(ex);
+    }
+    attr.clear();
+  }
+
+  /**
+   * Returns {@code null}, as all nodes have been passed on to the builder.
+   * @return {@code null}
+   */
+  @Override
+  public Item finish() {
+    return null;
+  }
+
+  /**
+   * Wraps a builder exception.
+   * @param ex I/O exception
+   * @return query I/O exception
+   */
+  private static QueryIOException error(final IOException ex) {
+    return new QueryIOException(IOERR.get(null, ex));
+  }
+}
@@ -31,10 +31,22 @@ public abstract class CsvConverter {
    * @param input input
    * @throws IOException I/O exception
    */
-  public void convert(final IO input) throws IOException {
-    final String encoding = copts.get(CsvParserOptions.ENCODING);
-    final String csv = new NewlineInput(input).encoding(encoding).cache().toString();
-    CsvParser.parse(csv, copts, this);
+  public final void convert(final IO input) throws IOException {
+    final NewlineInput nli = new NewlineInput(input);
+    try {
+      convert(nli.encoding(copts.get(CsvParserOptions.ENCODING)));
+    } finally {
+      nli.close();
+    }
+  }
+
+  /**
+   * Converts the specified input stream to XML.
+   * @param input input with normalized newlines
+   * @throws IOException I/O exception
+   */
+  public void convert(final NewlineInput input) throws IOException {
+    CsvParser.parse(input, copts, this);
   }
 
   /**
@@ -57,8 +69,9 @@ public abstract class CsvConverter {
 
   /**
    * Adds a new record.
+   * @throws QueryIOException query exception
    */
-  abstract void record();
+  abstract void record() throws QueryIOException;
 
   /**
    * Called when an entry is encountered.
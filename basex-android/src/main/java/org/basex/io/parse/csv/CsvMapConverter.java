@@ -9,6 +9,7 @@ import org.basex.query.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.map.Map;
+import org.basex.query.value.map.MapBuilder;
 import org.basex.util.list.*;
 
 /**
@@ -70,12 +71,10 @@ final class CsvMapConverter extends CsvConverter {
   @Override
   public Map finish() throws QueryIOException {
     try {
-      Map map = Map.EMPTY;
+      final MapBuilder mb = new MapBuilder();
       int row = 1;
-      for(final ValueBuilder vb : records) {
-        map = map.insert(Int.get(row++), vb.value(), null);
-      }
-      return map;
+      for(final ValueBuilder vb : records) mb.put(Int.get(row++), vb.value(), null);
+      return mb.finish(null);
     } catch(final QueryException ex) {
       throw new QueryIOException(ex);
     }
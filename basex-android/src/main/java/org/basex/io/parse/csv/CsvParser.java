@@ -1,16 +1,23 @@
 package org.basex.io.parse.csv;
 
+import java.io.*;
+
 import org.basex.build.*;
+import org.basex.io.in.*;
 import org.basex.query.*;
 import org.basex.util.*;
 
 /**
  * A CSV parser generating parse events similar to a SAX XML parser.
+ * The input is read as a stream, so the size of the parsed input is not limited by the
+ * available main memory.
  *
  * @author BaseX Team 2005-13, BSD License
  * @author Christian Gruen
  */
-final class CsvParser extends InputParser {
+final class CsvParser {
+  /** Input. */
+  private final TextInput input;
   /** Converter. */
   private final CsvConverter conv;
   /** Header flag. */
@@ -33,8 +40,8 @@ final class CsvParser extends InputParser {
    * @param opts options
    * @param cnv converter
    */
-  private CsvParser(final String in, final CsvParserOptions opts, final CsvConverter cnv) {
-    super(in);
+  private CsvParser(final TextInput in, final CsvParserOptions opts, final CsvConverter cnv) {
+    input = in;
     header = opts.get(CsvOptions.HEADER);
     separator = opts.separator();
     quotes = opts.get(CsvOptions.QUOTES);
@@ -42,36 +49,38 @@ final class CsvParser extends InputParser {
   }
 
   /**
-   * Parses the input string, directs the parse events to the given handler and returns
+   * Parses the input, directs the parse events to the given handler and returns
    * the resulting value.
-   * @param input input string
+   * @param input input (newlines are expected to be normalized)
    * @param opts options
    * @param conv converter
-   * @throws QueryIOException parse exception
+   * @throws IOException I/O exception
    */
-  static void parse(final String input, final CsvParserOptions opts, final CsvConverter conv)
-      throws QueryIOException {
+  static void parse(final TextInput input, final CsvParserOptions opts,
+      final CsvConverter conv) throws IOException {
     new CsvParser(input, opts, conv).parse();
   }
 
   /**
    * Parses a CSV expression.
-   * @throws QueryIOException query I/O exception
+   * @throws IOException I/O exception
    */
-  private void parse() throws QueryIOException {
+  private void parse() throws IOException {
     final TokenBuilder entry = new TokenBuilder();
     data = !header;
 
-    for(char ch; (ch = consume()) != 0;) {
+    int ch = input.read();
+    while(ch != -1) {
       if(quoted) {
         // quoted state
         if(ch == '"') {
-          if(!consume('"')) {
+          ch = input.read();
+          if(ch != '"') {
             quoted = false;
             continue;
           }
         }
-        entry.add(XMLToken.valid(ch) ? ch : '?');
+        add(entry, ch);
       } else if(quotes && ch == '"') {
         // parse quote
         quoted = true;
@@ -86,12 +95,22 @@ final class CsvParser extends InputParser {
         data = true;
       } else {
         // parse any other character
-        entry.add(XMLToken.valid(ch) ? ch : '?');
+        add(entry, ch);
       }
+      ch = input.read();
     }
     record(entry, !entry.isEmpty());
   }
 
+  /**
+   * Adds a character to the current entry.
+   * @param entry entry
+   * @param ch character to be added
+   */
+  private static void add(final TokenBuilder entry, final int ch) {
+    entry.add(XMLToken.valid(ch) ? ch : '?');
+  }
+
   /**
    * Adds a new record and entry.
    * @param entry entry to be added
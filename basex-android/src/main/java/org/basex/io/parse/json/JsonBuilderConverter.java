@@ -0,0 +1,254 @@
+package org.basex.io.parse.json;
+
+import static org.basex.io.parse.json.JsonConstants.*;
+import static org.basex.query.util.Err.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+
+import org.basex.build.*;
+import org.basex.build.JsonOptions.JsonFormat;
+import org.basex.query.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+
+/**
+ * This class converts a JSON document to XML and passes on the resulting node events
+ * to a database builder. No intermediate tree is created. The result is identical to
+ * the one of the {@link JsonDirectConverter} or {@link JsonAttsConverter}, as long as
+ * type information is not merged (see {@link #supports(JsonParserOptions)}).
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class JsonBuilderConverter extends JsonConverter {
+  /** Builder. */
+  private final Builder builder;
+  /** Attributes format. */
+  private final boolean attributes;
+  /** Include string type. */
+  private final boolean strings;
+  /** Lax QName conversion. */
+  private final boolean lax;
+  /** Chop whitespaces. */
+  private final boolean chop;
+  /** Attributes of the next element. */
+  private final Atts atts = new Atts();
+  /** Namespaces. */
+  private final Atts nsp = new Atts();
+
+  /** Name of next element. */
+  private byte[] name;
+  /** Value of the name attribute of the next element (attributes format). */
+  private byte[] key;
+
+  /**
+   * Constructor.
+   * @param opts json options
+   * @param build builder
+   * @param ch chop whitespaces of string values
+   */
+  public JsonBuilderConverter(final JsonParserOptions opts, final Builder build,
+      final boolean ch) {
+    super(opts);
+    builder = build;
+    attributes = jopts.get(JsonOptions.FORMAT) == JsonFormat.ATTRIBUTES;
+    strings = jopts.get(JsonOptions.STRINGS);
+    lax = jopts.get(JsonOptions.LAX);
+    chop = ch;
+  }
+
+  /**
+   * Checks if the specified options are supported by this converter.
+   * @param opts json options
+   * @return result of check
+   */
+  public static boolean supports(final JsonParserOptions opts) {
+    final JsonFormat format = opts.get(JsonOptions.FORMAT);
+    return (format == JsonFormat.DIRECT || format == JsonFormat.ATTRIBUTES) &&
+        !opts.get(JsonOptions.MERGE);
+  }
+
+  @Override
+  public void convert(final byte[] input, final String path) throws QueryIOException {
+    name = JSON;
+    key = null;
+    super.convert(input, path);
+    // close root element
+    if(attributes) close();
+  }
+
+  @Override
+  void openObject() throws QueryIOException {
+    open(OBJECT);
+  }
+
+  @Override
+  void openPair(final byte[] k) throws QueryIOException {
+    if(attributes) {
+      name = PAIR;
+      key = valid(k);
+    } else {
+      name = XMLToken.encode(k, lax);
+    }
+  }
+
+  @Override
+  void closePair() throws QueryIOException {
+    if(attributes) close();
+  }
+
+  @Override
+  void closeObject() throws QueryIOException {
+    if(!attributes) close();
+  }
+
+  @Override
+  void openArray() throws QueryIOException {
+    open(ARRAY);
+  }
+
+  @Override
+  void openItem() {
+    name = attributes ? ITEM : VALUE;
+  }
+
+  @Override
+  void closeItem() throws QueryIOException {
+    if(attributes) close();
+  }
+
+  @Override
+  void closeArray() throws QueryIOException {
+    if(!attributes) close();
+  }
+
+  @Override
+  void openConstr(final byte[] nm) throws QueryIOException {
+    openObject();
+    openPair(nm);
+    openArray();
+  }
+
+  @Override
+  void openArg() {
+    openItem();
+  }
+
+  @Override
+  void closeArg() throws QueryIOException {
+    closeItem();
+  }
+
+  @Override
+  void closeConstr() throws QueryIOException {
+    closeArray();
+    closePair();
+    closeObject();
+  }
+
+  @Override
+  void numberLit(final byte[] value) throws QueryIOException {
+    literal(NUMBER, value);
+  }
+
+  @Override
+  void stringLit(final byte[] value) throws QueryIOException {
+    final byte[] v = valid(value);
+    literal(STRING, chop ? trim(v) : v);
+  }
+
+  @Override
+  void nullLit() throws QueryIOException {
+    literal(NULL, EMPTY);
+  }
+
+  @Override
+  void booleanLit(final byte[] value) throws QueryIOException {
+    literal(BOOLEAN, value);
+  }
+
+  /**
+   * Returns {@code null}, as all nodes have been passed on to the builder.
+   * @return {@code null}
+   */
+  @Override
+  public Item finish() {
+    return null;
+  }
+
+  /**
+   * Adds an element with a literal value.
+   * @param type JSON type
+   * @param value value
+   * @throws QueryIOException query I/O exception
+   */
+  private void literal(final byte[] type, final byte[] value) throws QueryIOException {
+    open(type);
+    try {
+      builder.text(value);
+    } catch(final IOException ex) {
+      throw error(ex);
+    }
+    if(!attributes) close();
+  }
+
+  /**
+   * Replaces characters that are invalid in XML with question marks, as it is done
+   * when a JSON string is serialized and parsed as XML.
+   * @param value value
+   * @return valid value
+   */
+  private static byte[] valid(final byte[] value) {
+    final int vl = value.length;
+    for(int v = 0; v < vl; v += cl(value, v)) {
+      if(XMLToken.valid(cp(value, v))) continue;
+      final TokenBuilder tb = new TokenBuilder(vl);
+      for(int w = 0; w < vl; w += cl(value, w)) {
+        final int cp = cp(value, w);
+        tb.add(XMLToken.valid(cp) ? cp : '?');
+      }
+      return tb.finish();
+    }
+    return value;
+  }
+
+  /**
+   * Opens a new element with the given type.
+   * @param type JSON type
+   * @throws QueryIOException query I/O exception
+   */
+  private void open(final byte[] type) throws QueryIOException {
+    atts.clear();
+    if(key != null) atts.add(NAME, key);
+    if(strings || type != STRING) atts.add(TYPE, type);
+    try {
+      builder.openElem(name, atts, nsp);
+    } catch(final IOException ex) {
+      throw error(ex);
+    }
+    name = null;
+    key = null;
+  }
+
+  /**
+   * Closes an element.
+   * @throws QueryIOException query I/O exception
+   */
+  private void close() throws QueryIOException {
+    try {
+      builder.closeElem();
+    } catch(final IOException ex) {
+      throw error(ex);
+    }
+  }
+
+  /**
+   * Wraps a builder exception.
+   * @param ex I/O exception
+   * @return query I/O exception
+   */
+  private static QueryIOException error(final IOException ex) {
+    return new QueryIOException(IOERR.get(null, ex));
+  }
+}
@@ -82,8 +82,9 @@ public abstract class JsonConverter {
 
   /**
    * Called when a JSON object is closed.
+   * @throws QueryIOException query exception
    */
-  abstract void closeObject();
+  abstract void closeObject() throws QueryIOException;
 
   /**
    * Called when a JSON array is opened.
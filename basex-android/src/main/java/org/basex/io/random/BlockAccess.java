@@ -0,0 +1,201 @@
+package org.basex.io.random;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.io.out.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class allows positional read access to a file that has been written by
+ * {@link BlockOutput}. The compressed blocks are located via the block offset table.
+ * The most recently used decompressed blocks are cached and shared by all readers.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class BlockAccess {
+  /** Number of cached blocks. */
+  private static final int CACHE = 8;
+
+  /** Reference to the data input stream. */
+  private final RandomAccessFile file;
+  /** File offsets of the compressed blocks, followed by the offset of the table. */
+  private final long[] offsets;
+  /** Number of uncompressed bytes. */
+  private final long len;
+
+  /** Indexes of the cached blocks. */
+  private final int[] ids = new int[CACHE];
+  /** Cached blocks. */
+  private final byte[][] blocks = new byte[CACHE][];
+  /** Access counters of the cached blocks. */
+  private final long[] used = new long[CACHE];
+  /** Access counter. */
+  private long count;
+  /** Number of cache hits. */
+  private long hits;
+  /** Number of cache misses. */
+  private long misses;
+  /** Number of replaced blocks. */
+  private long evictions;
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param fl the file to be read
+   * @throws IOException I/O Exception
+   */
+  public BlockAccess(final IOFile fl) throws IOException {
+    final RandomAccessFile f = new RandomAccessFile(fl.file(), "r");
+    try {
+      final long fl9 = f.length() - 9;
+      f.seek(fl9);
+      final byte[] b = new byte[9];
+      f.readFully(b);
+      len = read5(b, 0);
+      final int bl = (b[5] & 0xFF) << 24 | (b[6] & 0xFF) << 16 | (b[7] & 0xFF) << 8 |
+          b[8] & 0xFF;
+
+      final byte[] t = new byte[(bl + 1) * 5];
+      f.seek(fl9 - t.length);
+      f.readFully(t);
+      offsets = new long[bl + 1];
+      for(int o = 0; o <= bl; o++) offsets[o] = read5(t, o * 5);
+    } catch(final IOException ex) {
+      f.close();
+      throw ex;
+    }
+    file = f;
+    for(int c = 0; c < CACHE; c++) ids[c] = -1;
+  }
+
+  /**
+   * Returns the number of uncompressed bytes.
+   * @return length
+   */
+  public long length() {
+    return len;
+  }
+
+  /**
+   * Reads a token from the specified position.
+   * @param p position
+   * @return token
+   */
+  public byte[] token(final long p) {
+    final int l = num(p);
+    final byte[] b = new byte[l];
+    read(p + Num.length(l), b, l);
+    return b;
+  }
+
+  /**
+   * Reads a {@link Num} value from the specified position.
+   * @param p position
+   * @return read num
+   */
+  public int num(final long p) {
+    final byte[] b = new byte[5];
+    read(p, b, (int) Math.min(5, len - p));
+    return Num.get(b, 0);
+  }
+
+  /**
+   * Adds statistics on the cached blocks to the specified list
+   * (number of cached blocks, hits, misses, evictions).
+   * @param tl token list
+   */
+  public synchronized void info(final TokenList tl) {
+    tl.add(CACHE);
+    tl.add(hits);
+    tl.add(misses);
+    tl.add(evictions);
+  }
+
+  /**
+   * Closes the file.
+   */
+  public synchronized void close() {
+    try {
+      file.close();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  /**
+   * Copies bytes from the specified position to the specified array.
+   * @param p position
+   * @param b target array
+   * @param l number of bytes
+   */
+  private void read(final long p, final byte[] b, final int l) {
+    long pos = p;
+    int o = 0;
+    while(o < l) {
+      final byte[] bl = block((int) (pos >>> IO.CBLOCKPOWER));
+      final int bo = (int) (pos & IO.CBLOCKSIZE - 1), n = Math.min(l - o, bl.length - bo);
+      System.arraycopy(bl, bo, b, o, n);
+      o += n;
+      pos += n;
+    }
+  }
+
+  /**
+   * Returns the specified decompressed block.
+   * @param i block index
+   * @return block
+   */
+  private byte[] block(final int i) {
+    byte[] src;
+    synchronized(this) {
+      // return cached block
+      for(int e = 0; e < CACHE; e++) {
+        if(ids[e] == i) {
+          used[e] = ++count;
+          hits++;
+          return blocks[e];
+        }
+      }
+      misses++;
+      src = new byte[(int) (offsets[i + 1] - offsets[i])];
+      try {
+        file.seek(offsets[i]);
+        file.readFully(src);
+      } catch(final IOException ex) {
+        throw Util.notExpected(ex);
+      }
+    }
+
+    // decompress block outside the lock
+    final long bs = Math.min(IO.CBLOCKSIZE, len - ((long) i << IO.CBLOCKPOWER));
+    final byte[] bl = new byte[(int) bs];
+    BlockCompress.unpack(src, bl);
+    synchronized(this) {
+      // block may have been cached by another thread; otherwise, replace least recently
+      // used entry
+      int c = 0;
+      for(int e = 0; e < CACHE; e++) {
+        if(ids[e] == i) return blocks[e];
+        if(used[e] < used[c]) c = e;
+      }
+      if(ids[c] != -1) evictions++;
+      ids[c] = i;
+      blocks[c] = bl;
+      used[c] = ++count;
+    }
+    return bl;
+  }
+
+  /**
+   * Reads a 5-byte value from the specified array.
+   * @param b array
+   * @param p position
+   * @return value
+   */
+  private static long read5(final byte[] b, final int p) {
+    return (long) (b[p] & 0xFF) << 32 | (long) (b[p + 1] & 0xFF) << 24 |
+        (b[p + 2] & 0xFF) << 16 | (b[p + 3] & 0xFF) << 8 | b[p + 4] & 0xFF;
+  }
+}
@@ -1,24 +1,70 @@
 package org.basex.io.random;
 
+import org.basex.util.*;
+import org.basex.util.list.*;
+
 /**
- * This class provides a simple, clock-based buffer management.
+ * This class provides a configurable buffer pool for a single file.
+ * Buffers are looked up via hash chains; victims are chosen by a generalized
+ * clock algorithm (GCLOCK), which keeps frequently referenced blocks longer
+ * in memory than blocks that have only been touched once.
+ * Hits, misses and evictions are counted for statistical output.
  *
  * @author BaseX Team 2005-13, BSD License
  * @author Christian Gruen
  */
 final class Buffers {
-  /** Number of buffers (must be 1 << n). */
-  private static final int BUFFERS = 1 << 4;
+  /** Default number of buffers. */
+  static final int BUFFERS = 1 << 4;
+  /** Maximum reference count of a buffer. */
+  private static final int MAXREF = 3;
+
   /** Buffers. */
-  private final Buffer[] buf = new Buffer[BUFFERS];
+  private final Buffer[] buf;
+  /** Block positions assigned to the buffers (-1: unassigned). */
+  private final long[] keys;
+  /** Reference counts. */
+  private final byte[] refs;
+  /** Hash buckets, pointing to the first buffer of a chain (-1: empty). */
+  private final int[] buckets;
+  /** Next buffers in the hash chains (-1: end of chain). */
+  private final int[] next;
   /** Current buffer offset. */
   private int off;
+  /** Clock hand. */
+  private int hand;
+
+  /** Number of hits. */
+  private long hits;
+  /** Number of misses. */
+  private long misses;
+  /** Number of evictions. */
+  private long evictions;
 
   /**
-   * Constructor.
+   * Constructor, using the default number of buffers.
    */
   Buffers() {
-    for(int b = 0; b < BUFFERS; ++b) buf[b] = new Buffer();
+    this(BUFFERS);
+  }
+
+  /**
+   * Constructor.
+   * @param size number of buffers (at least two buffers will be created)
+   */
+  Buffers(final int size) {
+    final int s = Math.max(2, size);
+    buf = new Buffer[s];
+    keys = new long[s];
+    refs = new byte[s];
+    next = new int[s];
+    for(int b = 0; b < s; ++b) {
+      buf[b] = new Buffer();
+      keys[b] = -1;
+      next[b] = -1;
+    }
+    buckets = new int[Integer.highestOneBit(s - 1) << 1];
+    for(int b = 0; b < buckets.length; ++b) buckets[b] = -1;
   }
 
   /**
@@ -38,16 +84,117 @@ final class Buffers {
   }
 
   /**
-   * Chooses a buffer and sets the offset.
+   * Chooses a buffer and sets the offset. If the block is not buffered yet,
+   * a victim will be chosen and registered for the specified position; it is then
+   * up to the caller to write back dirty data, assign the new position and read
+   * the block contents.
    * @param p buffer pointer
    * @return true if cursor has changed
    */
   boolean cursor(final long p) {
-    final int o = off;
-    do {
-      if(buf[off].pos == p) return false;
-    } while((off = off + 1 & BUFFERS - 1) != o);
-    off = o + 1 & BUFFERS - 1;
+    // check current buffer first (fast path for sequential accesses)
+    if(keys[off] == p) {
+      ++hits;
+      return false;
+    }
+    final int h = bucket(p);
+    for(int b = buckets[h]; b != -1; b = next[b]) {
+      if(keys[b] == p) {
+        if(refs[b] < MAXREF) refs[b]++;
+        off = b;
+        ++hits;
+        return false;
+      }
+    }
+
+    // choose victim; never evict the current buffer
+    ++misses;
+    final int s = buf.length;
+    int v;
+    while(true) {
+      v = hand;
+      hand = hand + 1 == s ? 0 : hand + 1;
+      if(v == off && keys[v] != -1) continue;
+      if(refs[v] == 0) break;
+      refs[v]--;
+    }
+    if(keys[v] != -1) {
+      unlink(v);
+      ++evictions;
+    }
+    keys[v] = p;
+    next[v] = buckets[h];
+    buckets[h] = v;
+    refs[v] = 1;
+    off = v;
+    return true;
+  }
+
+  /**
+   * Returns the offset of the current buffer.
+   * @return offset
+   */
+  int offset() {
+    return off;
+  }
+
+  /**
+   * Makes the buffer with the specified offset the current buffer again if it is still
+   * assigned to the specified position. In contrast to {@link #cursor(long)}, the access
+   * is not counted.
+   * @param o buffer offset
+   * @param p buffer pointer
+   * @return success flag
+   */
+  boolean restore(final int o, final long p) {
+    if(keys[o] != p) return false;
+    off = o;
     return true;
   }
+
+  /**
+   * Adds the buffer statistics to the specified list.
+   * @param tl token list
+   */
+  void info(final TokenList tl) {
+    tl.add(buf.length);
+    tl.add(hits);
+    tl.add(misses);
+    tl.add(evictions);
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + "[size: " + buf.length + ", hits: " + hits +
+        ", misses: " + misses + ", evictions: " + evictions + ']';
+  }
+
+  // PRIVATE METHODS ==========================================================
+
+  /**
+   * Removes the specified buffer from its hash chain.
+   * @param b buffer offset
+   */
+  private void unlink(final int b) {
+    final int h = bucket(keys[b]);
+    int c = buckets[h];
+    if(c == b) {
+      buckets[h] = next[b];
+    } else {
+      while(next[c] != b) c = next[c];
+      next[c] = next[b];
+    }
+    next[b] = -1;
+  }
+
+  /**
+   * Returns the hash bucket for the specified position.
+   * @param p buffer pointer
+   * @return bucket
+   */
+  private int bucket(final long p) {
+    // positions in data files are multiples of the block size
+    final long h = p ^ p >>> 12 ^ p >>> 32;
+    return (int) (h ^ h >>> 7) & buckets.length - 1;
+  }
 }
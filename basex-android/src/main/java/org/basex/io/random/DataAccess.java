@@ -1,19 +1,42 @@
 package org.basex.io.random;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
 
 import org.basex.io.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * This class allows positional read and write access to a database file.
  *
+ * Apart from {@link #token(long)} and {@link #num(long)}, which can be called by
+ * concurrent readers without locking, all read operations share a single file cursor
+ * and are synchronized. While the file is being updated, i.e., from the first write
+ * operation until the next flush, the two readers synchronize as well.
+ *
+ * If the file is opened in mapped mode, all read operations are performed on a read-only
+ * memory mapping of the file. The mapping will be discarded with the first write
+ * operation, and all subsequent operations will be performed via the buffer manager.
+ *
  * @author BaseX Team 2005-13, BSD License
  * @author Christian Gruen
  */
 public final class DataAccess {
   /** Buffer manager. */
-  private final Buffers bm = new Buffers();
+  private final Buffers bm;
+  /** Blocks that are cached by the reading threads. */
+  private final ThreadLocal<ThreadBuffer> local = new ThreadLocal<ThreadBuffer>() {
+    @Override
+    protected ThreadBuffer initialValue() {
+      return new ThreadBuffer();
+    }
+  };
+  /** Modification counter; invalidates the blocks cached by the reading threads. */
+  private volatile long version;
+  /** Indicates if the file has been modified since the last flush. */
+  private volatile boolean updating;
   /** Reference to the data input stream. */
   private final RandomAccessFile file;
   /** File length. */
@@ -22,6 +45,10 @@ public final class DataAccess {
   private boolean changed;
   /** Offset. */
   private int off;
+  /** Read-only memory mapping of the file ({@code null} if file is accessed via buffers). */
+  private ByteBuffer map;
+  /** File cursor in mapped mode. */
+  private long mpos;
 
   /**
    * Constructor, initializing the file reader.
@@ -29,10 +56,36 @@ public final class DataAccess {
    * @throws IOException I/O Exception
    */
   public DataAccess(final IOFile fl) throws IOException {
+    this(fl, Buffers.BUFFERS);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param fl the file to be read
+   * @param buffers number of buffers
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile fl, final int buffers) throws IOException {
+    this(fl, buffers, false);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param fl the file to be read
+   * @param buffers number of buffers
+   * @param mapped map file into memory
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile fl, final int buffers, final boolean mapped)
+      throws IOException {
+
+    bm = new Buffers(buffers);
     RandomAccessFile f = null;
     try {
       f = new RandomAccessFile(fl.file(), "rw");
       len = f.length();
+      if(mapped && len > 0 && len <= Integer.MAX_VALUE)
+        map = f.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, len);
     } catch(final IOException ex) {
       if(f != null) f.close();
       throw ex;
@@ -51,6 +104,7 @@ public final class DataAccess {
         file.setLength(len);
         changed = false;
       }
+      updating = false;
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -68,12 +122,21 @@ public final class DataAccess {
     }
   }
 
+  /**
+   * Adds the statistics of the buffer manager to the specified list
+   * (number of buffers, hits, misses, evictions).
+   * @param tl token list
+   */
+  public synchronized void info(final TokenList tl) {
+    bm.info(tl);
+  }
+
   /**
    * Returns the current file position.
    * @return position in the file
    */
   public long cursor() {
-    return buffer(false).pos + off;
+    return map != null ? mpos : buffer(false).pos + off;
   }
 
   /**
@@ -81,6 +144,8 @@ public final class DataAccess {
    * @param l file length
    */
   synchronized void length(final long l) {
+    if(map != null) unmap();
+    modified();
     changed |= l != len;
     len = l;
   }
@@ -106,6 +171,7 @@ public final class DataAccess {
    * @return next byte
    */
   public int read() {
+    if(map != null) return map.get((int) mpos++) & 0xFF;
     final Buffer bf = buffer(off == IO.BLOCKSIZE);
     return bf.data[off++] & 0xFF;
   }
@@ -194,6 +260,77 @@ public final class DataAccess {
     return readBytes(l);
   }
 
+  /**
+   * Reads a token from the specified position. In contrast to {@link #readToken(long)},
+   * the file cursor is not changed, and no lock is acquired if the addressed block has
+   * already been cached by the current thread.
+   * @param p text position
+   * @return text as byte array
+   */
+  public byte[] token(final long p) {
+    if(updating) {
+      synchronized(this) {
+        final int o = bm.offset(), co = off;
+        final long cp = bm.current().pos;
+        final byte[] t = readToken(p);
+        restore(o, cp, co);
+        return t;
+      }
+    }
+    final int l = num(p);
+    final byte[] b = new byte[l];
+    long pos = p + Num.length(l);
+    final ByteBuffer m = map;
+    if(m != null) {
+      final ByteBuffer bb = m.duplicate();
+      bb.position((int) pos);
+      bb.get(b);
+      return b;
+    }
+    int o = 0;
+    while(o < l) {
+      final ThreadBuffer tb = buffer(pos);
+      final int bo = (int) (pos - tb.start);
+      final int n = Math.min(l - o, IO.BLOCKSIZE - bo);
+      System.arraycopy(tb.data, bo, b, o, n);
+      o += n;
+      pos += n;
+    }
+    return b;
+  }
+
+  /**
+   * Reads a {@link Num} value from the specified position. In contrast to
+   * {@link #readNum(long)}, the file cursor is not changed, and no lock is acquired
+   * if the addressed block has already been cached by the current thread.
+   * @param p position
+   * @return read num
+   */
+  public int num(final long p) {
+    if(updating) {
+      synchronized(this) {
+        final int o = bm.offset(), co = off;
+        final long cp = bm.current().pos;
+        final int n = readNum(p);
+        restore(o, cp, co);
+        return n;
+      }
+    }
+    final int v = byteAt(p);
+    switch(v & 0xC0) {
+    case 0:
+      return v;
+    case 0x40:
+      return (v - 0x40 << 8) + byteAt(p + 1);
+    case 0x80:
+      return (v - 0x80 << 24) + (byteAt(p + 1) << 16) + (byteAt(p + 2) << 8) +
+          byteAt(p + 3);
+    default:
+      return (byteAt(p + 1) << 24) + (byteAt(p + 2) << 16) + (byteAt(p + 3) << 8) +
+          byteAt(p + 4);
+    }
+  }
+
   /**
    * Reads a number of bytes from the specified offset.
    * @param p position
@@ -211,6 +348,13 @@ public final class DataAccess {
    * @return byte array
    */
   public synchronized byte[] readBytes(final int n) {
+    if(map != null) {
+      final byte[] b = new byte[n];
+      map.position((int) mpos);
+      map.get(b);
+      mpos += n;
+      return b;
+    }
     int l = n;
     int ll = IO.BLOCKSIZE - off;
     final byte[] b = new byte[l];
@@ -234,6 +378,10 @@ public final class DataAccess {
    * @param p read position
    */
   public void cursor(final long p) {
+    if(map != null) {
+      mpos = p;
+      return;
+    }
     off = (int) (p & IO.BLOCKSIZE - 1);
     final long b = p - off;
     if(!bm.cursor(b)) return;
@@ -273,6 +421,8 @@ public final class DataAccess {
    * @param b byte to be written
    */
   public void write(final int b) {
+    if(map != null) unmap();
+    modified();
     final Buffer bf = buffer(off == IO.BLOCKSIZE);
     bf.dirty = true;
     bf.data[off++] = (byte) b;
@@ -364,6 +514,7 @@ public final class DataAccess {
    * @param length token length
    */
   void writeToken(final byte[] buf, final int offset, final int length) {
+    modified();
     writeNum(length);
 
     final int last = offset + length;
@@ -441,6 +592,74 @@ public final class DataAccess {
 
   // PRIVATE METHODS ==========================================================
 
+  /**
+   * Discards the memory mapping and moves the buffer cursor to the current position.
+   */
+  private void unmap() {
+    map = null;
+    modified();
+    cursor(mpos);
+  }
+
+  /**
+   * Invalidates the blocks cached by the reading threads. The modification counter is
+   * only incremented with the first write operation after a flush; until the next flush,
+   * all reads are performed on the shared buffers.
+   */
+  private void modified() {
+    if(updating) return;
+    updating = true;
+    ++version;
+  }
+
+  /**
+   * Restores the file cursor after a positional read, without counting another access.
+   * @param o offset of the buffer that was current before the read
+   * @param p position of this buffer
+   * @param co offset in the buffer
+   */
+  private void restore(final int o, final long p, final int co) {
+    if(!bm.restore(o, p)) cursor(p);
+    off = co;
+  }
+
+  /**
+   * Returns the byte at the specified position from the thread-local block.
+   * @param p position
+   * @return byte
+   */
+  private int byteAt(final long p) {
+    final ByteBuffer m = map;
+    if(m != null) return m.get((int) p) & 0xFF;
+    final ThreadBuffer tb = buffer(p);
+    return tb.data[(int) (p - tb.start)] & 0xFF;
+  }
+
+  /**
+   * Returns the thread-local copy of the block containing the specified position.
+   * Synchronizes on the data access if the block is not cached by the current thread.
+   * @param p position
+   * @return block
+   */
+  private ThreadBuffer buffer(final long p) {
+    final ThreadBuffer tb = local.get();
+    if(p < tb.start || p >= tb.end || tb.version != version) {
+      synchronized(this) {
+        tb.version = version;
+        // remember file cursor; the current buffer will not be evicted
+        final int o = bm.offset(), co = off;
+        final long cp = bm.current().pos;
+        final long b = p - (p & IO.BLOCKSIZE - 1);
+        cursor(b);
+        System.arraycopy(bm.current().data, 0, tb.data, 0, IO.BLOCKSIZE);
+        tb.start = b;
+        tb.end = b + IO.BLOCKSIZE;
+        restore(o, cp, co);
+      }
+    }
+    return tb;
+  }
+
   /**
    * Writes the specified block to disk.
    * @param bf buffer to write
@@ -4,6 +4,7 @@ import java.io.*;
 
 import org.basex.data.*;
 import org.basex.io.*;
+import org.basex.util.list.*;
 
 /**
  * This abstract class defines the methods for accessing the
@@ -38,6 +39,15 @@ public abstract class TableAccess {
    */
   public abstract void close() throws IOException;
 
+  /**
+   * Adds the statistics of the buffer manager to the specified list
+   * (number of buffers, hits, misses, evictions).
+   * Does nothing if the table is not buffered.
+   * @param tl token list
+   */
+  @SuppressWarnings("unused")
+  public void info(final TokenList tl) { }
+
   /**
    * Tries to acquires a lock on the table. If a lock exists, it is first released.
    * @param excl exclusive/shared lock
@@ -165,6 +175,15 @@ public abstract class TableAccess {
    */
   public abstract void delete(int pre, int nr);
 
+  /**
+   * Starts or finishes a bulk operation. Until the operation is finished, the
+   * shifting of entries may be delayed. Structural updates of a bulk operation
+   * should be performed in descending pre order.
+   * @param start start or finish operation
+   */
+  @SuppressWarnings("unused")
+  public void bulk(final boolean start) { }
+
   /**
    * Inserts the specified entries into the database.
    * @param pre pre value
@@ -3,6 +3,7 @@ package org.basex.io.random;
 import static org.basex.data.DataText.*;
 
 import java.io.*;
+import java.nio.*;
 import java.nio.channels.*;
 import java.util.*;
 
@@ -12,11 +13,21 @@ import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * This class stores the table on disk and reads it block-wise.
  *
- * NOTE: this class is not thread-safe.
+ * Read operations can be called concurrently: each thread works on a private copy
+ * of the last requested block, and only synchronizes on the table if another block
+ * is requested, or if the table has been modified in the meantime. From the first
+ * write operation until the next flush, all reads are synchronized and performed on
+ * the shared buffers.
+ * Write operations are not thread-safe; they must be performed exclusively.
+ *
+ * If the {@link MainOptions#MMAP} option is enabled and the table is opened
+ * for reading, entries are read from a read-only memory mapping of the file.
+ * The mapping will be discarded with the first write operation.
  *
  * @author BaseX Team 2005-13, BSD License
  * @author Christian Gruen
@@ -24,7 +35,20 @@ import org.basex.util.*;
  */
 public final class TableDiskAccess extends TableAccess {
   /** Buffer manager. */
-  private final Buffers bm = new Buffers();
+  private final Buffers bm;
+  /** Blocks that are cached by the reading threads. */
+  private final ThreadLocal<ThreadBuffer> local = new ThreadLocal<ThreadBuffer>() {
+    @Override
+    protected ThreadBuffer initialValue() {
+      return new ThreadBuffer();
+    }
+  };
+  /** Modification counter; invalidates the blocks cached by the reading threads. */
+  private volatile long version;
+  /** Indicates if the table has been modified since the last flush. */
+  private volatile boolean updating;
+  /** Read-only memory mapping of the file ({@code null} if file is accessed via buffers). */
+  private ByteBuffer map;
   /** File storing all blocks. */
   private final RandomAccessFile file;
   /** Bitmap storing free (=0) and used (=1) pages. */
@@ -57,6 +81,7 @@ public final class TableDiskAccess extends TableAccess {
    */
   public TableDiskAccess(final MetaData md, final boolean lock) throws IOException {
     super(md);
+    bm = new Buffers(md.options.get(MainOptions.BUFFERS));
 
     // read meta and index data
     final DataInput in = new DataInput(meta.dbfile(DATATBL + 'i'));
@@ -87,6 +112,10 @@ public final class TableDiskAccess extends TableAccess {
     if(lock) exclusiveLock();
     else sharedLock();
     if(fl == null) throw new BaseXException(Text.DB_PINNED_X, md.name);
+
+    final long l = file.length();
+    if(!lock && md.options.get(MainOptions.MMAP) && l > 0 && l <= Integer.MAX_VALUE)
+      map = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, l);
   }
 
   /**
@@ -118,6 +147,7 @@ public final class TableDiskAccess extends TableAccess {
   @Override
   public synchronized void flush() throws IOException {
     for(final Buffer b : bm.all()) if(b.dirty) writeBlock(b);
+    updating = false;
     if(!dirty) return;
 
     final DataOutput out = new DataOutput(meta.dbfile(DATATBL + 'i'));
@@ -141,6 +171,11 @@ public final class TableDiskAccess extends TableAccess {
     file.close();
   }
 
+  @Override
+  public synchronized void info(final TokenList tl) {
+    bm.info(tl);
+  }
+
   @Override
   public boolean lock(final boolean lock) {
     try {
@@ -190,37 +225,57 @@ public final class TableDiskAccess extends TableAccess {
   }
 
   @Override
-  public synchronized int read1(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+  public int read1(final int pre, final int off) {
+    final ByteBuffer m = map;
+    if(m != null) return m.get(mapped(pre) + off) & 0xFF;
+    if(updating) return (int) shared(pre, off, 1);
+    final ThreadBuffer tb = buffer(pre);
+    final int o = off + ((int) (pre - tb.start) << IO.NODEPOWER);
+    final byte[] b = tb.data;
     return b[o] & 0xFF;
   }
 
   @Override
-  public synchronized int read2(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+  public int read2(final int pre, final int off) {
+    final ByteBuffer m = map;
+    if(m != null) return m.getShort(mapped(pre) + off) & 0xFFFF;
+    if(updating) return (int) shared(pre, off, 2);
+    final ThreadBuffer tb = buffer(pre);
+    final int o = off + ((int) (pre - tb.start) << IO.NODEPOWER);
+    final byte[] b = tb.data;
     return ((b[o] & 0xFF) << 8) + (b[o + 1] & 0xFF);
   }
 
   @Override
-  public synchronized int read4(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+  public int read4(final int pre, final int off) {
+    final ByteBuffer m = map;
+    if(m != null) return m.getInt(mapped(pre) + off);
+    if(updating) return (int) shared(pre, off, 4);
+    final ThreadBuffer tb = buffer(pre);
+    final int o = off + ((int) (pre - tb.start) << IO.NODEPOWER);
+    final byte[] b = tb.data;
     return ((b[o] & 0xFF) << 24) + ((b[o + 1] & 0xFF) << 16) +
       ((b[o + 2] & 0xFF) << 8) + (b[o + 3] & 0xFF);
   }
 
   @Override
-  public synchronized long read5(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+  public long read5(final int pre, final int off) {
+    final ByteBuffer m = map;
+    if(m != null) {
+      final int o = mapped(pre) + off;
+      return ((long) (m.get(o) & 0xFF) << 32) + (m.getInt(o + 1) & 0xFFFFFFFFL);
+    }
+    if(updating) return shared(pre, off, 5);
+    final ThreadBuffer tb = buffer(pre);
+    final int o = off + ((int) (pre - tb.start) << IO.NODEPOWER);
+    final byte[] b = tb.data;
     return ((long) (b[o] & 0xFF) << 32) + ((long) (b[o + 1] & 0xFF) << 24) +
       ((b[o + 2] & 0xFF) << 16) + ((b[o + 3] & 0xFF) << 8) + (b[o + 4] & 0xFF);
   }
 
   @Override
   public void write1(final int pre, final int off, final int v) {
+    modified();
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -230,6 +285,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write2(final int pre, final int off, final int v) {
+    modified();
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -240,6 +296,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write4(final int pre, final int off, final int v) {
+    modified();
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -252,6 +309,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write5(final int pre, final int off, final long v) {
+    modified();
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -265,6 +323,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   protected void copy(final byte[] entries, final int pre, final int last) {
+    modified();
     for(int o = 0, i = pre; i < last; ++i, o += IO.NODESIZE) {
       final int off = cursor(i);
       final Buffer bf = bm.current();
@@ -467,6 +526,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   protected void dirty() {
+    modified();
     // initialize data structures required for performing updates
     if(fpres == null) {
       final int b = blocks;
@@ -483,6 +543,75 @@ public final class TableDiskAccess extends TableAccess {
 
   // PRIVATE METHODS ==========================================================
 
+  /**
+   * Discards the memory mapping and invalidates the blocks cached by the reading threads.
+   * The modification counter is only incremented with the first write operation after
+   * a flush.
+   */
+  private void modified() {
+    map = null;
+    if(updating) return;
+    updating = true;
+    ++version;
+  }
+
+  /**
+   * Reads a big-endian value from the shared buffers.
+   * @param pre pre value
+   * @param off offset in the entry
+   * @param n number of bytes
+   * @return value
+   */
+  private synchronized long shared(final int pre, final int off, final int n) {
+    final int o = off + cursor(pre);
+    final byte[] b = bm.current().data;
+    long v = 0;
+    for(int i = 0; i < n; i++) v = v << 8 | b[o + i] & 0xFF;
+    return v;
+  }
+
+  /**
+   * Returns the offset of the specified pre value in the memory-mapped file.
+   * @param pre pre value
+   * @return offset
+   */
+  private int mapped(final int pre) {
+    // regular table: offset can be calculated
+    if(fpres == null) return pre << IO.NODEPOWER;
+
+    final ThreadBuffer tb = local.get();
+    if(pre < tb.start || pre >= tb.end || tb.version != version) {
+      synchronized(this) {
+        tb.version = version;
+        final int p = search(pre);
+        tb.start = fpre(p);
+        tb.end = p + 1 >= used ? meta.size : fpre(p + 1);
+        tb.pos = (long) page(p) * IO.BLOCKSIZE;
+      }
+    }
+    return (int) (tb.pos + (pre - tb.start << IO.NODEPOWER));
+  }
+
+  /**
+   * Returns the thread-local copy of the block containing the specified pre value.
+   * Synchronizes on the table if the block is not cached by the current thread.
+   * @param pre pre value
+   * @return block
+   */
+  private ThreadBuffer buffer(final int pre) {
+    final ThreadBuffer tb = local.get();
+    if(pre < tb.start || pre >= tb.end || tb.version != version) {
+      synchronized(this) {
+        tb.version = version;
+        cursor(pre);
+        System.arraycopy(bm.current().data, 0, tb.data, 0, IO.BLOCKSIZE);
+        tb.start = fpre;
+        tb.end = npre;
+      }
+    }
+    return tb;
+  }
+
   /**
    * Searches for the block containing the entry for the specified pre value.
    * Reads the block and returns its offset inside the block.
@@ -490,30 +619,37 @@ public final class TableDiskAccess extends TableAccess {
    * @return offset of the entry in the block
    */
   private int cursor(final int pre) {
+    if(pre < fpre || pre >= npre) readPage(search(pre));
+    return pre - fpre << IO.NODEPOWER;
+  }
+
+  /**
+   * Returns the index of the page containing the entry for the specified pre value.
+   * @param pre pre of the entry to search for
+   * @return page index
+   */
+  private int search(final int pre) {
     int fp = fpre;
     int np = npre;
-    if(pre < fp || pre >= np) {
-      final int last = used - 1;
-      int l = 0;
-      int h = last;
-      int m = page;
-      while(l <= h) {
-        if(pre < fp) h = m - 1;
-        else if(pre >= np) l = m + 1;
-        else break;
-        m = h + l >>> 1;
-        fp = fpre(m);
-        np = m == last ? meta.size : fpre(m + 1);
-      }
-      if(l > h) throw Util.notExpected(
-          "Data Access out of bounds:" +
-          "\n- pre value: " + pre +
-          "\n- #used blocks: " + used +
-          "\n- #total locks: " + blocks +
-          "\n- access: " + m + " (" + l + " > " + h + ']');
-      readPage(m);
+    final int last = used - 1;
+    int l = 0;
+    int h = last;
+    int m = page;
+    while(l <= h) {
+      if(pre < fp) h = m - 1;
+      else if(pre >= np) l = m + 1;
+      else break;
+      m = h + l >>> 1;
+      fp = fpre(m);
+      np = m == last ? meta.size : fpre(m + 1);
     }
-    return pre - fpre << IO.NODEPOWER;
+    if(l > h) throw Util.notExpected(
+        "Data Access out of bounds:" +
+        "\n- pre value: " + pre +
+        "\n- #used blocks: " + used +
+        "\n- #total locks: " + blocks +
+        "\n- access: " + m + " (" + l + " > " + h + ']');
+    return m;
   }
 
   /**
@@ -9,6 +9,10 @@ import org.basex.util.*;
 /**
  * This class allows main memory access to the database table representation.
  *
+ * During bulk operations, the entries are organized as gap buffer: entries that
+ * are inserted or deleted in descending order will only shift the entries between
+ * the gap and the update position.
+ *
  * NOTE: this class is not thread-safe.
  *
  * @author BaseX Team 2005-13, BSD License
@@ -19,6 +23,12 @@ public final class TableMemAccess extends TableAccess {
   private long[] buf1 = new long[Array.CAPACITY];
   /** Long buffer array. */
   private long[] buf2 = new long[Array.CAPACITY];
+  /** First pre value after the gap. */
+  private int gpre;
+  /** Size of the gap. */
+  private int gap;
+  /** Bulk operation. */
+  private boolean bulk;
 
   /**
    * Stores the table in long arrays.
@@ -41,22 +51,22 @@ public final class TableMemAccess extends TableAccess {
 
   @Override
   public int read1(final int p, final int o) {
-    return (int) ((o < 8 ? buf1 : buf2)[p] >> ((o < 8 ? 7 : 15) - o << 3) & 0xFF);
+    return (int) ((o < 8 ? buf1 : buf2)[index(p)] >> ((o < 8 ? 7 : 15) - o << 3) & 0xFF);
   }
 
   @Override
   public int read2(final int p, final int o) {
-    return (int) ((o < 8 ? buf1 : buf2)[p] >> ((o < 8 ? 6 : 14) - o << 3) & 0xFFFF);
+    return (int) ((o < 8 ? buf1 : buf2)[index(p)] >> ((o < 8 ? 6 : 14) - o << 3) & 0xFFFF);
   }
 
   @Override
   public int read4(final int p, final int o) {
-    return (int) ((o < 8 ? buf1 : buf2)[p] >> ((o < 8 ? 4 : 12) - o << 3));
+    return (int) ((o < 8 ? buf1 : buf2)[index(p)] >> ((o < 8 ? 4 : 12) - o << 3));
   }
 
   @Override
   public long read5(final int p, final int o) {
-    return (o < 8 ? buf1 : buf2)[p] >> ((o < 8 ? 3 : 11) - o << 3) & 0xFFFFFFFFFFL;
+    return (o < 8 ? buf1 : buf2)[index(p)] >> ((o < 8 ? 3 : 11) - o << 3) & 0xFFFFFFFFFFL;
   }
 
   @Override
@@ -64,7 +74,8 @@ public final class TableMemAccess extends TableAccess {
     dirty();
     final long[] buf = o < 8 ? buf1 : buf2;
     final long d = (o < 8 ? 7 : 15) - o << 3;
-    buf[p] = buf[p] & ~(0xFFL << d) | (long) v << d;
+    final int i = index(p);
+    buf[i] = buf[i] & ~(0xFFL << d) | (long) v << d;
   }
 
   @Override
@@ -72,7 +83,8 @@ public final class TableMemAccess extends TableAccess {
     dirty();
     final long[] buf = o < 8 ? buf1 : buf2;
     final long d = (o < 8 ? 6 : 14) - o << 3;
-    buf[p] = buf[p] & ~(0xFFFFL << d) | (long) v << d;
+    final int i = index(p);
+    buf[i] = buf[i] & ~(0xFFFFL << d) | (long) v << d;
   }
 
   @Override
@@ -80,7 +92,8 @@ public final class TableMemAccess extends TableAccess {
     dirty();
     final long[] buf = o < 8 ? buf1 : buf2;
     final long d = (o < 8 ? 4 : 12) - o << 3;
-    buf[p] = buf[p] & ~(0xFFFFFFFFL << d) | (long) v << d;
+    final int i = index(p);
+    buf[i] = buf[i] & ~(0xFFFFFFFFL << d) | (long) v << d;
   }
 
   @Override
@@ -88,29 +101,51 @@ public final class TableMemAccess extends TableAccess {
     dirty();
     final long[] buf = o < 8 ? buf1 : buf2;
     final long d = (o < 8 ? 3 : 11) - o << 3;
-    buf[p] = buf[p] & ~(0xFFFFFFFFFFL << d) | v << d;
+    final int i = index(p);
+    buf[i] = buf[i] & ~(0xFFFFFFFFFFL << d) | v << d;
   }
 
   @Override
   protected void copy(final byte[] entries, final int pre, final int last) {
     dirty();
     for(int o = 0, i = pre; i < last; ++i, o += IO.NODESIZE) {
-      buf1[i] = getLong(entries, o);
-      buf2[i] = getLong(entries, o + 8);
+      final int p = index(i);
+      buf1[p] = getLong(entries, o);
+      buf2[p] = getLong(entries, o + 8);
     }
   }
 
   @Override
   public void delete(final int pre, final int nr) {
     if(nr == 0) return;
-    move(pre + nr, pre);
+    dirty();
+    // move gap behind the deleted entries and enlarge it
+    gap(pre + nr);
+    gpre -= nr;
+    gap += nr;
+    meta.size -= nr;
+    if(!bulk) gap(meta.size);
   }
 
   @Override
   public void insert(final int pre, final byte[] entries) {
-    if(entries.length == 0) return;
-    move(pre, pre + (entries.length >>> IO.NODEPOWER));
+    final int nr = entries.length >>> IO.NODEPOWER;
+    if(nr == 0) return;
+    dirty();
+    // move gap to the insertion position, enlarge it if necessary, and fill it
+    gap(pre);
+    if(gap < nr) grow(nr - gap + (bulk ? meta.size >>> 3 : 0));
+    gpre += nr;
+    gap -= nr;
+    meta.size += nr;
     set(pre, entries);
+    if(!bulk) gap(meta.size);
+  }
+
+  @Override
+  public void bulk(final boolean start) {
+    bulk = start;
+    if(!start) gap(meta.size);
   }
 
   @Override
@@ -121,21 +156,47 @@ public final class TableMemAccess extends TableAccess {
   // PRIVATE METHODS ==========================================================
 
   /**
-   * Moves data inside the value arrays.
-   * @param op source position
-   * @param np destination position
+   * Returns the array index of the specified pre value.
+   * @param pre pre value
+   * @return index
    */
-  private void move(final int op, final int np) {
-    dirty();
-    final int l = meta.size - op;
-    while(l + np >= buf1.length) {
-      final int s = Array.newSize(buf1.length);
+  private int index(final int pre) {
+    return pre < gpre ? pre : pre + gap;
+  }
+
+  /**
+   * Moves the gap to the specified pre value.
+   * @param pre pre value
+   */
+  private void gap(final int pre) {
+    if(gap != 0) {
+      if(pre < gpre) {
+        System.arraycopy(buf1, pre, buf1, pre + gap, gpre - pre);
+        System.arraycopy(buf2, pre, buf2, pre + gap, gpre - pre);
+      } else if(pre > gpre) {
+        System.arraycopy(buf1, gpre + gap, buf1, gpre, pre - gpre);
+        System.arraycopy(buf2, gpre + gap, buf2, gpre, pre - gpre);
+      }
+      // gap at the end of the table can be discarded
+      if(pre == meta.size) gap = 0;
+    }
+    gpre = pre;
+  }
+
+  /**
+   * Enlarges the gap.
+   * @param nr number of additional entries
+   */
+  private void grow(final int nr) {
+    final int l = meta.size - gpre, np = gpre + gap + nr;
+    if(np + l > buf1.length) {
+      final int s = Math.max(Array.newSize(buf1.length), np + l);
       buf1 = Arrays.copyOf(buf1, s);
       buf2 = Arrays.copyOf(buf2, s);
     }
-    System.arraycopy(buf1, op, buf1, np, l);
-    System.arraycopy(buf2, op, buf2, np, l);
-    meta.size += np - op;
+    System.arraycopy(buf1, gpre + gap, buf1, np, l);
+    System.arraycopy(buf2, gpre + gap, buf2, np, l);
+    gap += nr;
   }
 
   /**
@@ -0,0 +1,24 @@
+package org.basex.io.random;
+
+import org.basex.io.*;
+
+/**
+ * This class represents a private copy of a single block, which is cached by a
+ * single thread. It allows concurrent readers to access the last requested block
+ * without synchronizing on the shared buffer manager.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+final class ThreadBuffer {
+  /** Buffer data. */
+  final byte[] data = new byte[IO.BLOCKSIZE];
+  /** Start of the cached range (disk offset or first pre value). */
+  long start = -1;
+  /** End of the cached range (exclusive). */
+  long end = -1;
+  /** File offset of the block (only assigned for memory-mapped tables). */
+  long pos = -1;
+  /** Modification counter of the file at the time the block was copied. */
+  long version = -1;
+}
@@ -0,0 +1,134 @@
+package org.basex.query;
+
+import java.util.*;
+import java.util.Map.Entry;
+
+import org.basex.core.*;
+import org.basex.data.*;
+
+/**
+ * This class caches compiled queries. A query processor is added after it has been
+ * successfully evaluated, and it is removed again while it is being reused.
+ * Cached queries keep their databases opened. They will be discarded if the least
+ * recently used entries exceed the maximum cache size, or if a database is to be
+ * dropped or altered. Before a cached query is evaluated again, {@link #valid} must be
+ * called to check if the referenced databases and their indexes are still unchanged.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCache {
+  /** Cached queries, ordered by their last usage. */
+  private final LinkedHashMap<String, QueryProcessor> queries =
+      new LinkedHashMap<String, QueryProcessor>(16, 0.75f, true);
+
+  /**
+   * Returns a compiled query and removes it from the cache.
+   * @param key cache key
+   * @param ctx database context
+   * @return query processor or {@code null}
+   */
+  public QueryProcessor get(final String key, final Context ctx) {
+    final QueryProcessor qp;
+    synchronized(this) {
+      qp = queries.remove(key);
+    }
+    if(qp == null) return null;
+    if(qp.ctx.context != ctx) {
+      qp.close();
+      return null;
+    }
+    qp.ctx.reuse();
+    return qp;
+  }
+
+  /**
+   * Adds a compiled query to the cache, or closes it if it cannot be cached.
+   * @param key cache key
+   * @param qp query processor
+   * @return {@code true} if the query was cached
+   */
+  public boolean add(final String key, final QueryProcessor qp) {
+    final QueryContext qc = qp.ctx;
+    final int max = qc.context.options.get(MainOptions.QUERYCACHE);
+    if(max <= 0 || !qp.compiled() || !qc.cacheable()) {
+      qp.close();
+      return false;
+    }
+    qc.info.close();
+
+    final ArrayList<QueryProcessor> old = new ArrayList<QueryProcessor>();
+    synchronized(this) {
+      final QueryProcessor q = queries.put(key, qp);
+      if(q != null) old.add(q);
+      final Iterator<QueryProcessor> it = queries.values().iterator();
+      for(int s = queries.size(); s > max; s--) {
+        old.add(it.next());
+        it.remove();
+      }
+    }
+    close(old);
+    return true;
+  }
+
+  /**
+   * Checks if the databases and the context of a cached query are unchanged.
+   * @param qp query processor
+   * @return result of check
+   */
+  public static boolean valid(final QueryProcessor qp) {
+    final QueryContext qc = qp.ctx;
+    final Nodes nodes = qc.nodes, curr = qc.context.current();
+    if(curr == null ? nodes != null : nodes == null || curr.data != nodes.data ||
+        curr.root != nodes.root || !Arrays.equals(curr.pres, nodes.pres)) return false;
+    return !qc.resource.changed();
+  }
+
+  /**
+   * Discards all cached queries that have opened the specified database.
+   * @param db name of database
+   */
+  public void close(final String db) {
+    final ArrayList<QueryProcessor> old = new ArrayList<QueryProcessor>();
+    synchronized(this) {
+      final Iterator<Entry<String, QueryProcessor>> it = queries.entrySet().iterator();
+      while(it.hasNext()) {
+        final QueryProcessor qp = it.next().getValue();
+        if(qp.ctx.resource.opened(db)) {
+          old.add(qp);
+          it.remove();
+        }
+      }
+    }
+    close(old);
+  }
+
+  /**
+   * Discards all cached queries.
+   */
+  public void close() {
+    final ArrayList<QueryProcessor> old;
+    synchronized(this) {
+      old = new ArrayList<QueryProcessor>(queries.values());
+      queries.clear();
+    }
+    close(old);
+  }
+
+  /**
+   * Returns the number of cached queries.
+   * @return number of entries
+   */
+  public synchronized int size() {
+    return queries.size();
+  }
+
+  /**
+   * Closes the specified queries. Called outside the synchronized blocks, as the
+   * database references will be released.
+   * @param qps query processors
+   */
+  private static void close(final ArrayList<QueryProcessor> qps) {
+    for(final QueryProcessor qp : qps) qp.close();
+  }
+}
@@ -148,6 +148,8 @@ public final class QueryContext extends Proc {
   public final QueryInfo info;
   /** Indicates if the query context has been closed. */
   private boolean closed;
+  /** Indicates if the query contains stateful function calls (see {@link #stateful()}). */
+  private boolean stateful;
 
   /**
    * Constructor.
@@ -170,6 +172,32 @@ public final class QueryContext extends Proc {
     info = new QueryInfo(this);
   }
 
+  /**
+   * Creates a context for evaluating expressions of this query in another thread.
+   * The variable bindings and the focus are copied. Static variables, functions and
+   * query resources are not shared.
+   * @return forked context
+   */
+  public QueryContext fork() {
+    final QueryContext qc = new QueryContext(this);
+    qc.stack.assign(stack);
+    qc.value = value;
+    qc.pos = pos;
+    qc.size = size;
+    qc.nodes = nodes;
+    qc.http = http;
+    qc.collations = collations;
+    qc.ftOpt = ftOpt;
+    qc.stop = stop;
+    qc.thes = thes;
+    qc.date = date;
+    qc.dtm = dtm;
+    qc.time = time;
+    qc.zone = zone;
+    qc.maxCalls = maxCalls;
+    return qc;
+  }
+
   /**
    * Parses the specified query.
    * @param qu input query
@@ -278,6 +306,9 @@ public final class QueryContext extends Proc {
       value = root.sc.initType.funcConvert(this, root.sc, null, value, true);
     }
 
+    // check for stateful calls before they are pre-evaluated
+    stateful = stateful();
+
     // dynamic compilation
     analyze();
   }
@@ -501,6 +532,48 @@ public final class QueryContext extends Proc {
     updating = up;
   }
 
+  /**
+   * Checks if the compiled query can be cached and evaluated again. Updating queries,
+   * queries with database options, and queries that depend on the current time,
+   * on external connections, on main-memory documents or on stateful functions
+   * will not be cached.
+   * @return result of check
+   */
+  boolean cacheable() {
+    return !closed && !updating && !stateful && tempOpts.isEmpty() && time == null &&
+        jdbc == null && sessions == null && ftPosData == null && http == null &&
+        resource.cache(nodes);
+  }
+
+  /**
+   * Checks if the query body, a static variable or a function contains calls to
+   * stateful functions (see {@link StandardFunc#stateful()}).
+   * @return result of check
+   */
+  private boolean stateful() {
+    final ASTVisitor visitor = new ASTVisitor() {
+      @Override
+      public boolean funcCall(final StandardFunc call) {
+        return !call.stateful();
+      }
+    };
+    if(root != null && !root.visit(visitor)) return true;
+    if(ctxItem != null && !ctxItem.visit(visitor)) return true;
+    for(final StaticVar var : vars) if(!var.visit(visitor)) return true;
+    for(final StaticFunc func : funcs.funcs()) if(!func.visit(visitor)) return true;
+    return false;
+  }
+
+  /**
+   * Prepares a cached query for another evaluation.
+   */
+  void reuse() {
+    info.reset();
+    tailCalls = 0;
+    pos = 1;
+    size = 1;
+  }
+
   /**
    * Closes the query context.
    */
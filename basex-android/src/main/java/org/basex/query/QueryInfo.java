@@ -74,6 +74,19 @@ public final class QueryInfo {
     if(verbose) evaluate.add(token(string.replaceAll("\r?\n\\s*", " ")));
   }
 
+  /**
+   * Resets the locks, timings and evaluation info before a compiled query is reused.
+   */
+  void reset() {
+    readLocked = null;
+    writeLocked = null;
+    parsing = 0;
+    compiling = 0;
+    evaluating = 0;
+    serializing = 0;
+    evaluate = new TokenList(0);
+  }
+
   /**
    * Finalizes the query info.
    */
@@ -71,6 +71,14 @@ public final class QueryProcessor extends Proc {
     ctx.compile();
   }
 
+  /**
+   * Indicates if the query has been compiled.
+   * @return result of check
+   */
+  boolean compiled() {
+    return compiled;
+  }
+
   /**
    * Returns a result iterator.
    * @return result iterator
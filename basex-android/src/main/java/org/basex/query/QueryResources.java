@@ -34,6 +34,10 @@ public final class QueryResources {
   private Data[] data = new Data[1];
   /** Number of databases. */
   private int datas;
+  /** Change counters of the databases at the time the query was cached. */
+  private long[] changes;
+  /** Temporary resources. */
+  private final ArrayList<Closeable> temp = new ArrayList<Closeable>(0);
 
   /** Collections: single nodes and sequences. */
   private Value[] coll = new Value[1];
@@ -77,6 +81,72 @@ public final class QueryResources {
   void close() {
     for(int d = 0; d < datas; d++) Close.close(data[d], ctx.context);
     datas = 0;
+    for(final Closeable c : temp.toArray(new Closeable[temp.size()])) {
+      try {
+        c.close();
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+    }
+    temp.clear();
+  }
+
+  /**
+   * Adds a temporary resource, which will be closed when the query is closed.
+   * @param res resource
+   */
+  public void add(final Closeable res) {
+    temp.add(res);
+  }
+
+  /**
+   * Removes a temporary resource that has already been closed.
+   * @param res resource
+   */
+  public void remove(final Closeable res) {
+    temp.remove(res);
+  }
+
+  /**
+   * Remembers the change counters of all opened databases. Returns {@code false} if
+   * a main-memory instance other than the initial context has been opened.
+   * @param nodes input node set (may be {@code null})
+   * @return result of check
+   */
+  boolean cache(final Nodes nodes) {
+    final long[] ch = new long[datas];
+    for(int d = 0; d < datas; d++) {
+      final Data dt = data[d];
+      if(dt.inMemory() && (nodes == null || nodes.data != dt)) return false;
+      ch[d] = dt.meta.changes;
+    }
+    changes = ch;
+    return true;
+  }
+
+  /**
+   * Checks if one of the opened databases has been changed since the query was cached.
+   * @return result of check
+   */
+  boolean changed() {
+    if(changes.length != datas) return true;
+    for(int d = 0; d < datas; d++) {
+      if(data[d].meta.changes != changes[d]) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Checks if the specified database has been opened.
+   * @param name name of database
+   * @return result of check
+   */
+  boolean opened(final String name) {
+    for(int d = 0; d < datas; d++) {
+      final String n = data[d].meta.name;
+      if(Prop.CASE ? n.equals(name) : n.equalsIgnoreCase(name)) return true;
+    }
+    return false;
   }
 
   /**
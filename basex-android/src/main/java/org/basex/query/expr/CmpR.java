@@ -141,11 +141,11 @@ public final class CmpR extends Single {
     rt = new NumericRange(text ? IndexType.TEXT : IndexType.ATTRIBUTE,
         Math.max(min, key.min), Math.min(max, key.max));
     ic.costs(rt.min > rt.max || rt.max < key.min || rt.min > key.max ? 0 :
-      Math.max(1, data.meta.size / 5));
+      data.costs(rt));
 
-    // use index if costs are zero, or if min/max is not infinite
+    // use index if costs are zero, if min/max is not infinite, or if only few results are expected
     return ic.costs() == 0 || min != Double.NEGATIVE_INFINITY &&
-        max != Double.POSITIVE_INFINITY;
+        max != Double.POSITIVE_INFINITY || ic.costs() <= data.meta.size / 5;
   }
 
   @Override
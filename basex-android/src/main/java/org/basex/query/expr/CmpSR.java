@@ -154,7 +154,7 @@ public final class CmpSR extends Single {
 
     // create range access
     rt = new StringRange(text ? IndexType.TEXT : IndexType.ATTRIBUTE, min, mni, max, mxi);
-    ic.costs(Math.max(1, data.meta.size / 10));
+    ic.costs(data.costs(rt));
     return true;
   }
 
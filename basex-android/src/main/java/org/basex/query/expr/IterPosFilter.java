@@ -1,6 +1,7 @@
 package org.basex.query.expr;
 
 import org.basex.query.*;
+import org.basex.query.gflwor.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.item.*;
 import org.basex.query.var.*;
@@ -53,7 +54,9 @@ final class IterPosFilter extends Filter {
             pos = (Pos) e;
           }
 
-          iter = ctx.iter(root);
+          // only sort the required tuples of ordered FLWOR expressions
+          iter = pos != null && root instanceof GFLWOR && pos.max < Long.MAX_VALUE ?
+            ((GFLWOR) root).iter(ctx, pos.max) : ctx.iter(root);
           cpos = 1;
 
           if(pos != null || last) {
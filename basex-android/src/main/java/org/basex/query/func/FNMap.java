@@ -92,11 +92,10 @@ public final class FNMap extends StandardFunc {
     // collations are ignored here as they may disappear in a future version
     checkColl(expr.length == 2 ? expr[1] : null, ctx, sc);
 
-    Map map = Map.EMPTY;
+    final MapBuilder mb = new MapBuilder();
     final Iter maps = expr[0].iter(ctx);
-    for(Item m; (m = maps.next()) != null;)
-      map = map.addAll(checkMap(m), ii);
-    return map;
+    for(Item m; (m = maps.next()) != null;) mb.put(checkMap(m), ii);
+    return mb.finish(ii);
   }
 
   /**
@@ -8,6 +8,7 @@ import org.basex.index.stats.*;
 import org.basex.query.*;
 import org.basex.query.expr.CmpV.OpV;
 import org.basex.query.expr.*;
+import org.basex.query.gflwor.*;
 import org.basex.query.iter.*;
 import org.basex.query.path.*;
 import org.basex.query.util.*;
@@ -359,7 +360,9 @@ public final class FNSeq extends StandardFunc {
     final boolean li = l == Long.MAX_VALUE;
     if(si) return li ? expr[0].iter(ctx) : Empty.ITER;
 
-    final Iter iter = ctx.iter(expr[0]);
+    // only sort the required tuples of ordered FLWOR expressions
+    final Iter iter = !li && s < Long.MAX_VALUE - l && s + l > 1 && expr[0] instanceof GFLWOR ?
+      ((GFLWOR) expr[0]).iter(ctx, s + l - 1) : ctx.iter(expr[0]);
 
     // optimization: return subsequence
     if(iter instanceof ValueIter) {
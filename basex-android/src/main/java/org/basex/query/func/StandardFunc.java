@@ -1,6 +1,7 @@
 package org.basex.query.func;
 
 import static org.basex.query.QueryText.*;
+import static org.basex.query.func.Function.*;
 import static org.basex.query.util.Err.*;
 import static org.basex.util.Token.*;
 
@@ -131,6 +132,25 @@ public abstract class StandardFunc extends Arr {
     return sig.has(flag) || flag != Flag.X30 && flag != Flag.HOF && super.has(flag);
   }
 
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return visitor.funcCall(this) && super.accept(visitor);
+  }
+
+  /**
+   * Checks if the result of this function call is non-deterministic, or if it depends
+   * on the databases and files that are available at the time of evaluation.
+   * @return result of check
+   */
+  public final boolean stateful() {
+    return has(Flag.NDT) || oneOf(sig, _DB_LIST, _DB_LIST_DETAILS, _DB_SYSTEM, _DB_INFO,
+        _DB_EXISTS, _DB_IS_RAW, _DB_IS_XML, _DB_CONTENT_TYPE, _DB_RETRIEVE, DOC_AVAILABLE,
+        UNPARSED_TEXT, UNPARSED_TEXT_LINES, UNPARSED_TEXT_AVAILABLE) ||
+        this instanceof FNFile || this instanceof FNFetch || this instanceof FNProc ||
+        this instanceof FNAdmin || this instanceof FNRepo || this instanceof FNXQuery ||
+        this instanceof FNSql || this instanceof FNHttp || this instanceof FNClient;
+  }
+
   @Override
   public final boolean isFunction(final Function f) {
     return sig == f;
@@ -2,6 +2,7 @@ package org.basex.query.gflwor;
 
 import java.util.*;
 
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.func.*;
@@ -43,7 +44,30 @@ public final class GFLWOR extends ParseExpr {
   }
 
   @Override
-  public Iter iter(final QueryContext ctx) {
+  public Iter iter(final QueryContext ctx) throws QueryException {
+    return iter(ctx, 0);
+  }
+
+  /**
+   * Returns an iterator, from which at most the specified number of items will be
+   * requested. If the tuples of an order by clause yield at least one result each,
+   * only the best tuples need to be sorted.
+   * @param ctx query context
+   * @param limit maximum number of requested items ({@code 0}: no limit)
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  public Iter iter(final QueryContext ctx, final long limit) throws QueryException {
+    // evaluate the tuples of the first for clause in parallel
+    final int threads = ctx.context.options.get(MainOptions.PARALLELFOR);
+    if(threads > 1 && limit == 0 && !ParallelFor.active() && parallel()) {
+      final For fst = (For) clauses.getFirst();
+      final LinkedList<Clause> cls = new LinkedList<Clause>(clauses);
+      cls.removeFirst();
+      final Expr rest = cls.isEmpty() ? ret : new GFLWOR(info, cls, ret);
+      return ParallelFor.value(fst, ctx.value(fst.expr), rest, threads, ctx).iter();
+    }
+
     // Start evaluator, doing nothing, once.
     Eval e = new Eval() {
       /** First-evaluation flag. */
@@ -56,7 +80,8 @@ public final class GFLWOR extends ParseExpr {
       }
     };
 
-    for(final Clause cls : clauses) e = cls.eval(e);
+    final OrderBy top = limit > 0 ? top() : null;
+    for(final Clause cls : clauses) e = cls == top ? top.eval(e, limit) : cls.eval(e);
     final Eval ev = e;
 
     return new Iter() {
@@ -213,6 +238,18 @@ public final class GFLWOR extends ParseExpr {
 
     mergeWheres();
 
+    // aggregate the values of non-grouping variables that are only counted or summed up
+    final ListIterator<Clause> cls = clauses.listIterator();
+    while(cls.hasNext()) {
+      final Clause cl = cls.next();
+      if(cl instanceof GroupBy) {
+        final ArrayList<Expr> exprs = new ArrayList<Expr>(clauses.subList(cls.nextIndex(),
+            clauses.size()));
+        exprs.add(ret);
+        ((GroupBy) cl).aggregate(exprs);
+      }
+    }
+
     size = calcSize();
     if(size == 0 && !(has(Flag.NDT) || has(Flag.UPD))) {
       ctx.compInfo(QueryText.OPTWRITE, this);
@@ -230,6 +267,22 @@ public final class GFLWOR extends ParseExpr {
     return this;
   }
 
+  /**
+   * Returns the last order by clause if all subsequent clauses and the return expression
+   * yield at least one result per tuple.
+   * @return clause or {@code null}
+   */
+  private OrderBy top() {
+    if(ret.type().mayBeZero()) return null;
+    final ListIterator<Clause> iter = clauses.listIterator(clauses.size());
+    while(iter.hasPrevious()) {
+      final Clause cl = iter.previous();
+      if(cl instanceof OrderBy) return (OrderBy) cl;
+      if(!(cl instanceof Let || cl instanceof Count)) break;
+    }
+    return null;
+  }
+
   /**
    * Pre-calculates the number of results of this FLWOR expression.
    * @return result size if statically computable, {@code -1} otherwise
@@ -635,6 +688,42 @@ public final class GFLWOR extends ParseExpr {
     return copyType(new GFLWOR(info, cls, ret.copy(ctx, scp, vs)));
   }
 
+  /**
+   * Checks if the tuples of the first for clause can be evaluated in parallel.
+   * This is the case if the expression consists of for, let and where clauses,
+   * if it has no side effects, and if no global variables, functions or databases
+   * are referenced by the subsequent clauses.
+   * @return result of check
+   */
+  private boolean parallel() {
+    if(!(clauses.getFirst() instanceof For) || !isFLWR() || has(Flag.UPD) ||
+        has(Flag.NDT)) return false;
+    final For fst = (For) clauses.getFirst();
+    if(fst.score != null || fst.empty) return false;
+
+    final ASTVisitor visitor = new ASTVisitor() {
+      @Override
+      public boolean staticVar(final StaticVar var) {
+        return false;
+      }
+      @Override
+      public boolean staticFuncCall(final StaticFuncCall call) {
+        return false;
+      }
+      @Override
+      public boolean dynFuncCall(final DynFuncCall call) {
+        return false;
+      }
+      @Override
+      public boolean lock(final String db) {
+        return DBLocking.CTX.equals(db);
+      }
+    };
+    final ListIterator<Clause> iter = clauses.listIterator(1);
+    while(iter.hasNext()) if(!iter.next().accept(visitor)) return false;
+    return ret.accept(visitor);
+  }
+
   /**
    * Checks if this FLWOR expression only used for, let and where clauses.
    * @return result of check
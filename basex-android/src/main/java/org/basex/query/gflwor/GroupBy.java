@@ -4,12 +4,14 @@ import static org.basex.query.QueryText.*;
 
 import java.util.*;
 
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.func.*;
 import org.basex.query.gflwor.GFLWOR.Eval;
-import org.basex.query.iter.*;
+import org.basex.query.gflwor.GroupTable.Group;
 import org.basex.query.util.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.query.value.seq.*;
@@ -34,6 +36,8 @@ public final class GroupBy extends GFLWOR.Clause {
   private Var[] post;
   /** Number of non-occluded grouping variables. */
   private final int nonOcc;
+  /** Aggregation modes of the non-grouping variables ({@code null}: no aggregation). */
+  private int[] aggr;
 
   /**
    * Constructor.
@@ -86,19 +90,14 @@ public final class GroupBy extends GFLWOR.Clause {
   @Override
   Eval eval(final Eval sub) {
     return new Eval() {
-      /** Groups to iterate over. */
-      private Group[] groups;
-      /** Current position. */
-      private int pos;
+      /** Grouped tuples. */
+      private GroupTable table;
 
       @Override
       public boolean next(final QueryContext ctx) throws QueryException {
-        if(groups == null) groups = init(ctx);
-        if(pos == groups.length) return false;
-
-        final Group curr = groups[pos];
-        // be nice to the garbage collector
-        groups[pos++] = null;
+        if(table == null) init(ctx);
+        final Group curr = table.next();
+        if(curr == null) return false;
 
         int p = 0;
         for(final Spec spec : specs) {
@@ -107,7 +106,8 @@ public final class GroupBy extends GFLWOR.Clause {
             ctx.set(spec.var, key == null ? Empty.SEQ : key, info);
           }
         }
-        for(int i = 0; i < post.length; i++) ctx.set(post[i], curr.ngv[i].value(), info);
+        final int[] ag = aggr();
+        for(int i = 0; i < post.length; i++) ctx.set(post[i], curr.value(i, ag), info);
         return true;
       }
 
@@ -116,82 +116,91 @@ public final class GroupBy extends GFLWOR.Clause {
        * @param ctx query context
        * @throws QueryException query exception
        */
-      private Group[] init(final QueryContext ctx) throws QueryException {
-        final ArrayList<Group> grps = new ArrayList<Group>();
-        final IntObjMap<Group> map = new IntObjMap<Group>();
+      private void init(final QueryContext ctx) throws QueryException {
         final Collation[] colls = new Collation[nonOcc];
         for(int i = 0, p = 0; i < specs.length; i++)
           if(!specs[i].occluded) colls[p++] = specs[i].coll;
+        final long mem = (long) ctx.context.options.get(MainOptions.GROUPMEM) << 20;
+        table = new GroupTable(colls, aggr(), mem, ctx, info);
 
         while(sub.next(ctx)) {
           final Item[] key = new Item[nonOcc];
-          int p = 0, hash = 1;
+          int p = 0;
           for(final Spec spec : specs) {
             final Item ki = spec.item(ctx, info),
                 atom = ki == null ? null : StandardFunc.atom(ki, info);
-            if(!spec.occluded) {
-              key[p++] = atom;
-              // If the values are compared using a special collation, we let them collide
-              // here and let the comparison do all the work later.
-              // This enables other non-collation specs to avoid the collision.
-              hash = 31 * hash +
-                  (atom == null || spec.coll != null ? 0 : atom.hash(info));
-            }
+            if(!spec.occluded) key[p++] = atom;
             ctx.set(spec.var, atom == null ? Empty.SEQ : atom, info);
           }
+          // add values of non-grouping variables to the group
+          final Value[] vals = new Value[preExpr.length];
+          for(int j = 0; j < preExpr.length; j++) vals[j] = preExpr[j].value(ctx);
+          table.add(key, vals);
+        }
+      }
+    };
+  }
 
-          // find the group for this key
-          final Group fst;
-          Group grp = null;
-          // no collations, so we can use hashing
-          for(Group g = fst = map.get(hash); g != null; g = g.next) {
-            if(eq(key, g.key, colls)) {
-              grp = g;
-              break;
-            }
-          }
+  /**
+   * Returns the aggregation modes of the non-grouping variables.
+   * @return aggregation modes
+   */
+  private int[] aggr() {
+    return aggr != null ? aggr : new int[post.length];
+  }
 
-          if(grp == null) {
-            // new group, add it to the list
-            final ValueBuilder[] ngs = new ValueBuilder[preExpr.length];
-            for(int i = 0; i < ngs.length; i++) ngs[i] = new ValueBuilder();
-            grp = new Group(key, ngs);
-            grps.add(grp);
-
-            // insert the group into the hash table
-            if(fst == null) {
-              map.put(hash, grp);
-            } else {
-              final Group nxt = fst.next;
-              fst.next = grp;
-              grp.next = nxt;
-            }
-          }
+  /**
+   * Checks which non-grouping variables are only referenced as single arguments of
+   * {@code fn:count} or {@code fn:sum} in the specified expressions. The values of
+   * these variables will be aggregated while the tuples are grouped.
+   * @param exprs expressions that follow this clause
+   */
+  void aggregate(final ArrayList<Expr> exprs) {
+    final int pl = post.length;
+    final int[] refs = new int[pl], counts = new int[pl], sums = new int[pl];
+    final ASTVisitor visitor = new ASTVisitor() {
+      @Override
+      public boolean used(final VarRef ref) {
+        final int i = index(ref.var);
+        if(i != -1) refs[i]++;
+        return true;
+      }
 
-          // add values of non-grouping variables to the group
-          for(int j = 0; j < preExpr.length; j++) grp.ngv[j].add(preExpr[j].value(ctx));
+      @Override
+      public boolean funcCall(final StandardFunc call) {
+        if(call.expr.length == 1 && call.expr[0] instanceof VarRef) {
+          final int i = index(((VarRef) call.expr[0]).var);
+          if(i != -1) {
+            if(call.isFunction(Function.COUNT)) counts[i]++;
+            else if(call.isFunction(Function.SUM)) sums[i]++;
+          }
         }
-
-        // we're finished, copy the array so the list can be garbage-collected
-        return grps.toArray(new Group[grps.size()]);
+        return true;
       }
     };
+    for(final Expr expr : exprs) expr.accept(visitor);
+
+    int[] ag = null;
+    for(int i = 0; i < pl; i++) {
+      final int r = refs[i];
+      final int a = r == 0 ? GroupTable.VALUES : counts[i] == r ? GroupTable.COUNT :
+        sums[i] == r ? GroupTable.SUM : GroupTable.VALUES;
+      if(a != GroupTable.VALUES) {
+        if(ag == null) ag = new int[pl];
+        ag[i] = a;
+      }
+    }
+    aggr = ag;
   }
 
   /**
-   * Checks two keys for equality.
-   * @param as first key
-   * @param bs second key
-   * @param coll collations
-   * @return {@code true} if the compare as equal, {@code false} otherwise
-   * @throws QueryException query exception
+   * Returns the index of the specified non-grouping variable.
+   * @param var variable
+   * @return index, or {@code -1} if the variable is no non-grouping variable
    */
-  boolean eq(final Item[] as, final Item[] bs, final Collation[] coll) throws QueryException {
-    for(int i = 0; i < as.length; i++) {
-      final Item a = as[i], b = bs[i];
-      if(a == null ^ b == null || a != null && !a.equiv(b, coll[i], info)) return false;
-    }
-    return true;
+  private int index(final Var var) {
+    for(int i = 0; i < post.length; i++) if(post[i].is(var)) return i;
+    return -1;
   }
 
   @Override
@@ -265,7 +274,9 @@ public final class GroupBy extends GFLWOR.Clause {
     }
 
     // done
-    return new GroupBy(Arr.copyAll(ctx, scp, vs, specs), pEx, ps, nonOcc, info);
+    final GroupBy gb = new GroupBy(Arr.copyAll(ctx, scp, vs, specs), pEx, ps, nonOcc, info);
+    gb.aggr = aggr;
+    return gb;
   }
 
   @Override
@@ -286,6 +297,8 @@ public final class GroupBy extends GFLWOR.Clause {
         post = Array.delete(post, i--);
       }
     }
+    // aggregation modes will be reassigned when the FLWOR expression is optimized
+    if(preExpr.length < len) aggr = null;
     return preExpr.length < len;
   }
 
@@ -382,29 +395,4 @@ public final class GroupBy extends GFLWOR.Clause {
       return expr.exprSize();
     }
   }
-
-  /**
-   * A group of tuples of post-grouping variables.
-   *
-   * @author BaseX Team 2005-13, BSD License
-   * @author Leo Woerteler
-   */
-  private static final class Group {
-    /** Grouping key, may contain {@code null} values. */
-    final Item[] key;
-    /** Non-grouping variables. */
-    final ValueBuilder[] ngv;
-    /** Overflow list. */
-    Group next;
-
-    /**
-     * Constructor.
-     * @param k grouping key
-     * @param ng non-grouping variables
-     */
-    Group(final Item[] k, final ValueBuilder[] ng) {
-      key = k;
-      ngv = ng;
-    }
-  }
 }
@@ -0,0 +1,541 @@
+package org.basex.query.gflwor;
+
+import static org.basex.query.util.Err.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+
+/**
+ * This class groups the tuples of a {@code group by} clause.
+ *
+ * Groups are built in main memory until the estimated size of the cached tuples
+ * exceeds the specified memory limit. From then on, the tuples of existing groups are
+ * still added in main memory, whereas the tuples of all new groups are distributed to
+ * temporary files by the hash values of their keys. When the groups in main memory have
+ * been returned, the files are grouped one by one, and they are partitioned again if
+ * their tuples exceed the memory limit. If a tuple cannot be written to disk (e.g., if it
+ * contains constructed nodes or function items), the current partitions are read back,
+ * and all remaining tuples are kept in main memory.
+ *
+ * The values of non-grouping variables that are only counted or summed up are
+ * aggregated while the tuples are added.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+final class GroupTable implements Closeable {
+  /** Aggregation mode: all values are cached. */
+  static final int VALUES = 0;
+  /** Aggregation mode: items are counted. */
+  static final int COUNT = 1;
+  /** Aggregation mode: items are summed up. */
+  static final int SUM = 2;
+
+  /** Number of hash bits that are used to choose a partition. */
+  private static final int BITS = 4;
+  /** Number of partitions per level. */
+  private static final int PARTS = 1 << BITS;
+  /** Maximum number of items of a value that will be written to disk. */
+  private static final int MAXSEQ = 1 << 10;
+
+  /** Collations of the grouping keys (entries can be {@code null}). */
+  private final Collation[] colls;
+  /** Aggregation modes of the non-grouping variables. */
+  private final int[] aggr;
+  /** Query context. */
+  private final QueryContext ctx;
+  /** Input info. */
+  private final InputInfo info;
+  /** Memory limit (in bytes; {@code 0}: no limit). */
+  private final long max;
+  /** Databases referenced by the nodes in temporary files. */
+  private final ArrayList<Data> datas = new ArrayList<Data>(1);
+  /** Partitions that have been written to disk and are still to be grouped. */
+  private final LinkedList<Partition> pending = new LinkedList<Partition>();
+
+  /** Groups in main memory. */
+  private ArrayList<Group> groups = new ArrayList<Group>();
+  /** Hash table, mapping hash values to groups. */
+  private IntObjMap<Group> map = new IntObjMap<Group>();
+  /** Partitions of the current level ({@code null} as long as all groups fit in memory). */
+  private Partition[] parts;
+  /** Current partitioning level. */
+  private int level;
+  /** Estimated size of the cached tuples. */
+  private long mem;
+  /** Indicates if tuples may be written to disk. */
+  private boolean spill;
+  /** Indicates if this instance has been registered as temporary resource. */
+  private boolean temp;
+  /** Position of the next group to be returned. */
+  private int pos;
+
+  /**
+   * Constructor.
+   * @param cl collations of the grouping keys
+   * @param ag aggregation modes of the non-grouping variables
+   * @param m memory limit (in bytes; {@code 0}: no limit)
+   * @param cx query context
+   * @param ii input info
+   */
+  GroupTable(final Collation[] cl, final int[] ag, final long m, final QueryContext cx,
+      final InputInfo ii) {
+    colls = cl;
+    aggr = ag;
+    max = m;
+    ctx = cx;
+    info = ii;
+    spill = spillable();
+  }
+
+  /**
+   * Adds a tuple.
+   * @param key grouping key
+   * @param vals values of the non-grouping variables
+   * @throws QueryException query exception
+   */
+  void add(final Item[] key, final Value[] vals) throws QueryException {
+    final int hash = hash(key);
+    Group grp = find(key, hash);
+    if(grp == null && parts != null) {
+      if(write(key, hash, vals)) return;
+      // tuple cannot be written to disk: keep all remaining tuples in main memory
+      restore();
+      grp = find(key, hash);
+    }
+
+    long s = 0;
+    if(grp == null) {
+      // new group: add it to the list and insert it into the hash table
+      grp = new Group(key, aggr);
+      groups.add(grp);
+      final Group fst = map.get(hash);
+      if(fst == null) {
+        map.put(hash, grp);
+      } else {
+        grp.next = fst.next;
+        fst.next = grp;
+      }
+      s = 64 + (key.length + vals.length << 4);
+      for(final Item it : key) s = add(s, SortFile.size(it));
+    }
+    grp.add(vals, aggr, info);
+
+    if(spill && parts == null) {
+      for(int v = 0; v < vals.length; v++) if(aggr[v] == VALUES) s = add(s, size(vals[v]));
+      if(s == -1) {
+        spill = false;
+      } else {
+        mem += s;
+        if(mem > max) {
+          if(!temp) {
+            ctx.resource.add(this);
+            temp = true;
+          }
+          parts = new Partition[PARTS];
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the next group. Must be called after the last tuple has been added.
+   * @return group, or {@code null} if all groups have been returned
+   * @throws QueryException query exception
+   */
+  Group next() throws QueryException {
+    while(pos == groups.size()) {
+      flush();
+      if(pending.isEmpty()) {
+        close();
+        return null;
+      }
+      // group the tuples of the next partition
+      final Partition part = pending.removeFirst();
+      groups = new ArrayList<Group>();
+      map = new IntObjMap<Group>();
+      mem = 0;
+      pos = 0;
+      level = part.level;
+      spill = spillable();
+      part.read();
+    }
+    final Group grp = groups.get(pos);
+    // be nice to the garbage collector
+    groups.set(pos++, null);
+    return grp;
+  }
+
+  @Override
+  public void close() {
+    if(parts != null) {
+      for(final Partition part : parts) if(part != null) part.close();
+      parts = null;
+    }
+    for(final Partition part : pending) part.close();
+    pending.clear();
+    if(temp) {
+      ctx.resource.remove(this);
+      temp = false;
+    }
+  }
+
+  // PRIVATE METHODS ====================================================================
+
+  /**
+   * Checks if tuples of the current level may be written to disk. This is not the case
+   * if all hash bits have been consumed, or if all keys are compared via collations.
+   * @return result of check
+   */
+  private boolean spillable() {
+    if(max <= 0 || level >= Integer.SIZE / BITS) return false;
+    for(final Collation coll : colls) if(coll == null) return true;
+    return false;
+  }
+
+  /**
+   * Returns the group with the specified key.
+   * @param key grouping key
+   * @param hash hash value of the key
+   * @return group, or {@code null} if it does not exist
+   * @throws QueryException query exception
+   */
+  private Group find(final Item[] key, final int hash) throws QueryException {
+    for(Group g = map.get(hash); g != null; g = g.next) if(eq(key, g.key)) return g;
+    return null;
+  }
+
+  /**
+   * Computes the hash value of a grouping key.
+   * @param key grouping key
+   * @return hash value
+   * @throws QueryException query exception
+   */
+  private int hash(final Item[] key) throws QueryException {
+    int hash = 1;
+    for(int k = 0; k < key.length; k++) {
+      // If the values are compared using a special collation, we let them collide
+      // here and let the comparison do all the work later.
+      // This enables other non-collation specs to avoid the collision.
+      final Item it = key[k];
+      hash = 31 * hash + (it == null || colls[k] != null ? 0 : it.hash(info));
+    }
+    return hash;
+  }
+
+  /**
+   * Checks two keys for equality.
+   * @param as first key
+   * @param bs second key
+   * @return {@code true} if the compare as equal, {@code false} otherwise
+   * @throws QueryException query exception
+   */
+  private boolean eq(final Item[] as, final Item[] bs) throws QueryException {
+    for(int i = 0; i < as.length; i++) {
+      final Item a = as[i], b = bs[i];
+      if(a == null ^ b == null || a != null && !a.equiv(b, colls[i], info)) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Writes a tuple to the partition that is chosen by the hash value of its key.
+   * @param key grouping key
+   * @param hash hash value of the key
+   * @param vals values of the non-grouping variables
+   * @return {@code false} if the tuple cannot be written to disk
+   * @throws QueryException query exception
+   */
+  private boolean write(final Item[] key, final int hash, final Value[] vals)
+      throws QueryException {
+
+    for(final Item it : key) if(SortFile.size(it) == -1) return false;
+    for(final Value v : vals) if(size(v) == -1) return false;
+
+    // scramble the hash value and choose the bits of the current level
+    final int p = hash * 0x9E3779B9 >>> Integer.SIZE - BITS * (level + 1) & PARTS - 1;
+    try {
+      if(parts[p] == null) parts[p] = new Partition(level + 1);
+      parts[p].write(key, vals);
+      return true;
+    } catch(final IOException ex) {
+      throw IOERR.get(info, ex);
+    }
+  }
+
+  /**
+   * Reads back the partitions of the current level and disables spilling.
+   * @throws QueryException query exception
+   */
+  private void restore() throws QueryException {
+    final Partition[] ps = parts;
+    parts = null;
+    spill = false;
+    for(int p = 0; p < ps.length; p++) {
+      if(ps[p] != null) {
+        // remove partition from array, as it will be closed after reading
+        final Partition part = ps[p];
+        ps[p] = null;
+        part.read();
+      }
+    }
+  }
+
+  /**
+   * Closes the output streams of the partitions of the current level, and adds them to
+   * the list of pending partitions.
+   * @throws QueryException query exception
+   */
+  private void flush() throws QueryException {
+    if(parts == null) return;
+    final Partition[] ps = parts;
+    parts = null;
+    for(final Partition part : ps) {
+      if(part != null) {
+        pending.add(part);
+        part.finish();
+      }
+    }
+  }
+
+  /**
+   * Returns the estimated memory consumption of a value, or {@code -1} if the value
+   * cannot be written to disk.
+   * @param v value
+   * @return estimated size
+   */
+  private static long size(final Value v) {
+    if(v.size() > MAXSEQ) return -1;
+    long s = 16;
+    for(final Item it : v) {
+      s = add(s, SortFile.size(it));
+      if(s == -1) break;
+    }
+    return s;
+  }
+
+  /**
+   * Adds two estimated sizes.
+   * @param s1 first size (may be {@code -1})
+   * @param s2 second size (may be {@code -1})
+   * @return sum, or {@code -1} if one of the sizes is unknown
+   */
+  private static long add(final long s1, final long s2) {
+    return s1 == -1 || s2 == -1 ? -1 : s1 + s2;
+  }
+
+  /**
+   * Partition of tuples, which is written to a temporary file.
+   *
+   * @author BaseX Team 2005-13, BSD License
+   * @author Christian Gruen
+   */
+  private final class Partition {
+    /** Partitioning level of the contained tuples. */
+    final int level;
+    /** Temporary file. */
+    private final IOFile file;
+    /** Output stream ({@code null} if the file has been completely written). */
+    private DataOutput out;
+    /** Number of tuples. */
+    private int size;
+
+    /**
+     * Constructor.
+     * @param l partitioning level
+     * @throws IOException I/O exception
+     */
+    Partition(final int l) throws IOException {
+      level = l;
+      file = new IOFile(File.createTempFile("group", IO.BASEXSUFFIX));
+      out = new DataOutput(file);
+    }
+
+    /**
+     * Writes a tuple.
+     * @param key grouping key
+     * @param vals values of the non-grouping variables
+     * @throws IOException I/O exception
+     */
+    void write(final Item[] key, final Value[] vals) throws IOException {
+      for(final Item it : key) SortFile.write(out, it, datas);
+      for(final Value v : vals) SortFile.write(out, v, datas);
+      size++;
+    }
+
+    /**
+     * Closes the output stream.
+     * @throws QueryException query exception
+     */
+    void finish() throws QueryException {
+      if(out == null) return;
+      try {
+        out.close();
+        out = null;
+      } catch(final IOException ex) {
+        throw IOERR.get(info, ex);
+      }
+    }
+
+    /**
+     * Adds all tuples of this partition to the table and deletes the file.
+     * @throws QueryException query exception
+     */
+    void read() throws QueryException {
+      try {
+        finish();
+        final DataInput in = new DataInput(file);
+        try {
+          final int kl = colls.length, vl = aggr.length;
+          for(int t = 0; t < size; t++) {
+            final Item[] key = new Item[kl];
+            for(int k = 0; k < kl; k++) key[k] = SortFile.read(in, datas);
+            final Value[] vals = new Value[vl];
+            for(int v = 0; v < vl; v++) vals[v] = SortFile.readValue(in, datas);
+            add(key, vals);
+          }
+        } finally {
+          in.close();
+        }
+      } catch(final IOException ex) {
+        throw IOERR.get(info, ex);
+      } finally {
+        close();
+      }
+    }
+
+    /**
+     * Closes the output stream and deletes the file.
+     */
+    void close() {
+      if(out != null) {
+        try {
+          out.close();
+        } catch(final IOException ex) {
+          Util.debug(ex);
+        }
+        out = null;
+      }
+      file.delete();
+    }
+  }
+
+  /**
+   * A group of tuples of post-grouping variables.
+   *
+   * @author BaseX Team 2005-13, BSD License
+   * @author Leo Woerteler
+   */
+  static final class Group {
+    /** Grouping key, may contain {@code null} values. */
+    final Item[] key;
+    /** Values of the non-grouping variables ({@code null} if values are aggregated). */
+    private final ValueBuilder[] vals;
+    /** Number of items of counted variables. */
+    private final long[] counts;
+    /** Running sums of summed up variables (can be {@code null}). */
+    private final Item[] sums;
+    /** Overflow list. */
+    Group next;
+
+    /**
+     * Constructor.
+     * @param k grouping key
+     * @param ag aggregation modes of the non-grouping variables
+     */
+    Group(final Item[] k, final int[] ag) {
+      key = k;
+      final int vl = ag.length;
+      vals = new ValueBuilder[vl];
+      for(int v = 0; v < vl; v++) if(ag[v] == VALUES) vals[v] = new ValueBuilder();
+      counts = new long[vl];
+      sums = new Item[vl];
+    }
+
+    /**
+     * Adds the values of a tuple.
+     * @param values values of the non-grouping variables
+     * @param ag aggregation modes of the non-grouping variables
+     * @param ii input info
+     */
+    void add(final Value[] values, final int[] ag, final InputInfo ii) {
+      for(int v = 0; v < values.length; v++) {
+        if(ag[v] == COUNT) {
+          counts[v] += values[v].size();
+        } else if(vals[v] != null) {
+          vals[v].add(values[v]);
+        } else if(values[v] instanceof Item) {
+          sum(v, (Item) values[v], ii);
+        } else {
+          for(final Item it : values[v]) sum(v, it, ii);
+        }
+      }
+    }
+
+    /**
+     * Adds an item to the running sum of a variable.
+     * @param v index of the variable
+     * @param it item to be added
+     * @param ii input info
+     */
+    private void sum(final int v, final Item it, final InputInfo ii) {
+      if(vals[v] == null) {
+        final Item sum = sum(sums[v], it, ii);
+        if(sum != null) {
+          sums[v] = sum;
+          return;
+        }
+        // item cannot be summed up: cache running sum and remaining items
+        vals[v] = new ValueBuilder();
+        if(sums[v] != null) vals[v].add(sums[v]);
+      }
+      vals[v].add(it);
+    }
+
+    /**
+     * Returns the value of a non-grouping variable. If the items of the variable are
+     * counted, a sequence with the same number of items is returned. If they are summed
+     * up, the sum is returned.
+     * @param v index of the variable
+     * @param ag aggregation modes of the non-grouping variables
+     * @return value
+     */
+    Value value(final int v, final int[] ag) {
+      if(ag[v] == COUNT) return RangeSeq.get(1, counts[v], true);
+      if(vals[v] != null) return vals[v].value();
+      return sums[v] != null ? sums[v] : Empty.SEQ;
+    }
+
+    /**
+     * Adds an item to a running sum.
+     * @param sum running sum (can be {@code null})
+     * @param it item to be added
+     * @param ii input info
+     * @return new sum, or {@code null} if the item cannot be added without error;
+     *   in that case, the error will be raised by the summing function
+     */
+    private static Item sum(final Item sum, final Item it, final InputInfo ii) {
+      try {
+        final Item i = it.type.isUntyped() ? Dbl.get(it.string(ii), ii) : it;
+        if(i instanceof ANum) return sum == null ? i : Calc.PLUS.ev(ii, sum, i);
+      } catch(final QueryException ex) {
+        Util.debug(ex);
+      }
+      return null;
+    }
+  }
+}
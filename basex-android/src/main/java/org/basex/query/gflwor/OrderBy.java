@@ -2,9 +2,7 @@ package org.basex.query.gflwor;
 
 import static org.basex.query.QueryText.*;
 
-import java.util.*;
-import java.util.List;
-
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.gflwor.GFLWOR.Eval;
@@ -43,21 +41,25 @@ public final class OrderBy extends GFLWOR.Clause {
 
   @Override
   Eval eval(final Eval sub) {
+    return eval(sub, 0);
+  }
+
+  /**
+   * Returns an evaluator for this clause, which returns at most the specified number of
+   * tuples.
+   * @param sub wrapped evaluator
+   * @param limit maximum number of tuples that will be requested ({@code 0}: no limit)
+   * @return evaluator
+   */
+  Eval eval(final Eval sub, final long limit) {
     return new Eval() {
-      /** Sorted output tuples. */
-      private Value[][] tpls;
-      /** Permutation of the values. */
-      private Integer[] perm;
-      /** Current position. */
-      int pos;
+      /** Sorted tuples. */
+      private TupleSort sort;
       @Override
       public boolean next(final QueryContext ctx) throws QueryException {
-        if(tpls == null) sort(ctx);
-        if(pos == tpls.length) return false;
-        final int p = perm[pos++];
-        final Value[] tuple = tpls[p];
-        // free the space occupied by the tuple
-        tpls[p] = null;
+        if(sort == null) sort(ctx);
+        final Value[] tuple = sort.next();
+        if(tuple == null) return false;
         for(int i = 0; i < refs.length; i++) ctx.set(refs[i].var, tuple[i], info);
         return true;
       }
@@ -68,58 +70,18 @@ public final class OrderBy extends GFLWOR.Clause {
        * @throws QueryException evaluation exception
        */
       private void sort(final QueryContext ctx) throws QueryException {
-        // keys are stored at odd positions, values at even ones
-        List<Value[]> tuples = new ArrayList<Value[]>();
+        final long mem = (long) ctx.context.options.get(MainOptions.SORTMEM) << 20;
+        sort = new TupleSort(keys, refs.length, mem, limit, ctx, info);
         while(sub.next(ctx)) {
           final Item[] key = new Item[keys.length];
           for(int i = 0; i < keys.length; i++)
             key[i] = keys[i].expr.item(ctx, keys[i].info);
-          tuples.add(key);
 
           final Value[] vals = new Value[refs.length];
           for(int i = 0; i < refs.length; i++) vals[i] = refs[i].value(ctx);
-          tuples.add(vals);
-        }
-
-        final int len = tuples.size() >>> 1;
-        final Item[][] ks = new Item[len][];
-        perm = new Integer[len];
-        tpls = new Value[len][];
-        for(int i = 0; i < len; i++) {
-          perm[i] = i;
-          tpls[i] = tuples.get(i << 1 | 1);
-          ks[i] = (Item[]) tuples.get(i << 1);
-        }
-        // be nice to the garbage collector
-        tuples = null;
-        try {
-          Arrays.sort(perm, new Comparator<Integer>() {
-            @Override
-            public int compare(final Integer x, final Integer y) {
-              try {
-                final Item[] a = ks[x], b = ks[y];
-                for(int k = 0; k < keys.length; k++) {
-                  final Key or = keys[k];
-                  Item m = a[k], n = b[k];
-                  if(m == Dbl.NAN || m == Flt.NAN) m = null;
-                  if(n == Dbl.NAN || n == Flt.NAN) n = null;
-                  if(m != null && n != null && !m.comparable(n))
-                    throw Err.castError(or.info, m.type, n);
-
-                  final int c = m == null
-                      ? n == null ? 0                 : or.least ? -1 : 1
-                      : n == null ? or.least ? 1 : -1 : m.diff(n, or.coll, or.info);
-                  if(c != 0) return or.desc ? -c : c;
-                }
-                return 0;
-              } catch(final QueryException ex) {
-                throw new QueryRTException(ex);
-              }
-            }
-          });
-        } catch(final QueryRTException ex) {
-          throw ex.getCause();
+          sort.add(key, vals);
         }
+        sort.sort();
       }
     };
   }
@@ -0,0 +1,141 @@
+package org.basex.query.gflwor;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+
+/**
+ * Evaluates the tuples of a {@code for} clause in parallel.
+ *
+ * The items of the input sequence are split into ranges, which are evaluated by the
+ * threads of a fixed thread pool. Each range is evaluated with a forked query context,
+ * and the results of all ranges are concatenated in the order of the input items.
+ * A plain executor service is used, as fork/join pools are not available on older
+ * Android versions.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+final class ParallelFor implements Callable<ValueBuilder> {
+  /** Number of ranges per thread (smaller ranges improve the load balancing). */
+  private static final int RANGES = 4;
+  /** Indicates if the current thread evaluates a range. */
+  private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<Boolean>();
+
+  /** For clause. */
+  private final For fr;
+  /** Input items. */
+  private final Value input;
+  /** Expression that is evaluated for each item. */
+  private final Expr rest;
+  /** Query context. */
+  private final QueryContext ctx;
+  /** First item to be evaluated. */
+  private final long start;
+  /** Last item to be evaluated (exclusive). */
+  private final long end;
+
+  /**
+   * Constructor.
+   * @param f for clause
+   * @param in input items
+   * @param r expression that is evaluated for each item
+   * @param cx query context
+   * @param s first item to be evaluated
+   * @param e last item to be evaluated (exclusive)
+   */
+  private ParallelFor(final For f, final Value in, final Expr r, final QueryContext cx,
+      final long s, final long e) {
+    fr = f;
+    input = in;
+    rest = r;
+    ctx = cx;
+    start = s;
+    end = e;
+  }
+
+  /**
+   * Indicates if the current thread is already evaluating a parallel for clause.
+   * @return result of check
+   */
+  static boolean active() {
+    return ACTIVE.get() != null;
+  }
+
+  /**
+   * Evaluates the specified expression for all items of the input sequence.
+   * @param fr for clause
+   * @param in input items
+   * @param rest expression that is evaluated for each item
+   * @param threads maximum number of threads
+   * @param ctx query context
+   * @return resulting items
+   * @throws QueryException query exception
+   */
+  static Value value(final For fr, final Value in, final Expr rest, final int threads,
+      final QueryContext ctx) throws QueryException {
+
+    final long size = in.size();
+    // single items are evaluated in the current thread
+    if(size < 2) return new ParallelFor(fr, in, rest, ctx, 0, size).eval(ctx).value();
+
+    final long max = Math.max(1, size / ((long) threads * RANGES));
+    final ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      final ArrayList<Future<ValueBuilder>> futures = new ArrayList<Future<ValueBuilder>>();
+      for(long s = 0; s < size; s += max) {
+        futures.add(pool.submit(new ParallelFor(fr, in, rest, ctx, s, Math.min(size, s + max))));
+      }
+      final ValueBuilder vb = new ValueBuilder();
+      for(final Future<ValueBuilder> future : futures) vb.add(future.get().value());
+      return vb.value();
+    } catch(final InterruptedException ex) {
+      throw new QueryException(ex);
+    } catch(final ExecutionException ex) {
+      final Throwable th = ex.getCause();
+      if(th instanceof QueryException) throw (QueryException) th;
+      if(th instanceof QueryRTException) throw ((QueryRTException) th).getCause();
+      if(th instanceof RuntimeException) throw (RuntimeException) th;
+      if(th instanceof Error) throw (Error) th;
+      throw new QueryException(th);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Override
+  public ValueBuilder call() throws QueryException {
+    ACTIVE.set(Boolean.TRUE);
+    final QueryContext qc = ctx.fork();
+    try {
+      return eval(qc);
+    } finally {
+      qc.close();
+      ACTIVE.remove();
+    }
+  }
+
+  /**
+   * Evaluates the items of the assigned range.
+   * @param qc query context
+   * @return resulting items
+   * @throws QueryException query exception
+   */
+  private ValueBuilder eval(final QueryContext qc) throws QueryException {
+    final ValueBuilder vb = new ValueBuilder();
+    for(long i = start; i < end; i++) {
+      // check if the original query has been stopped
+      ctx.checkStop();
+      qc.set(fr.var, input.itemAt(i), fr.info);
+      if(fr.pos != null) qc.set(fr.pos, Int.get(i + 1), fr.info);
+      final Iter ir = qc.iter(rest);
+      for(Item it; (it = ir.next()) != null;) vb.add(it);
+    }
+    return vb;
+  }
+}
@@ -0,0 +1,240 @@
+package org.basex.query.gflwor;
+
+import static org.basex.query.util.Err.*;
+
+import java.io.*;
+import java.math.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Sorted run of tuples, which has been written to a temporary file.
+ * Only the items accepted by {@link #size(Item)} can be serialized.
+ * The static methods are also used to write the partitions of {@code group by}.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+final class SortFile extends SortRun {
+  /** Item types. */
+  private static final AtomType[] TYPES = AtomType.values();
+  /** Item tags. */
+  private static final int EMPTY = 0, INT = 1, DBL = 2, FLT = 3, DEC = 4, BLN = 5,
+      STR = 6, ATM = 7, NODE = 8;
+
+  /** Sort. */
+  private final TupleSort sort;
+  /** Temporary file. */
+  private final IOFile file;
+  /** Number of remaining tuples. */
+  private int size;
+  /** Input stream (opened when the first tuple is requested). */
+  private DataInput in;
+
+  /**
+   * Constructor.
+   * @param ts sort
+   * @param fl temporary file
+   */
+  private SortFile(final TupleSort ts, final IOFile fl) {
+    sort = ts;
+    file = fl;
+  }
+
+  /**
+   * Writes the tuples of the specified run to a temporary file.
+   * @param run sorted run
+   * @param ts sort
+   * @return file run
+   * @throws QueryException query exception
+   */
+  static SortFile write(final SortRun run, final TupleSort ts) throws QueryException {
+    SortFile sf = null;
+    try {
+      sf = new SortFile(ts, new IOFile(File.createTempFile("sort", IO.BASEXSUFFIX)));
+      final DataOutput out = new DataOutput(sf.file);
+      try {
+        while(run.next()) {
+          for(final Item it : run.key) write(out, it, ts.datas);
+          for(final Value v : run.tuple) write(out, v, ts.datas);
+          sf.size++;
+        }
+      } finally {
+        out.close();
+      }
+      return sf;
+    } catch(final IOException ex) {
+      if(sf != null) sf.close();
+      throw IOERR.get(ts.info, ex);
+    } finally {
+      run.close();
+    }
+  }
+
+  @Override
+  boolean next() throws QueryException {
+    if(size == 0) {
+      close();
+      return false;
+    }
+    try {
+      if(in == null) in = new DataInput(file);
+      final int kl = sort.keys.length, vl = sort.refs;
+      final Item[] k = new Item[kl];
+      for(int i = 0; i < kl; i++) k[i] = read(in, sort.datas);
+      final Value[] t = new Value[vl];
+      for(int i = 0; i < vl; i++) t[i] = readValue(in, sort.datas);
+      key = k;
+      tuple = t;
+      size--;
+      return true;
+    } catch(final IOException ex) {
+      close();
+      throw IOERR.get(sort.info, ex);
+    }
+  }
+
+  @Override
+  void close() {
+    if(in != null) {
+      try {
+        in.close();
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+      in = null;
+    }
+    file.delete();
+  }
+
+  /**
+   * Returns the estimated memory consumption of an item, or {@code -1} if the item
+   * cannot be written to disk.
+   * @param it item (may be {@code null})
+   * @return estimated size
+   */
+  static long size(final Item it) {
+    if(it == null) return 0;
+    if(it.score() != 0) return -1;
+    final Class<?> c = it.getClass();
+    if(c == Int.class || c == Dbl.class || c == Flt.class || c == Bln.class) return 24;
+    if(c == Str.class) return 48 + ((Str) it).string().length;
+    if(c == Atm.class) return 48 + ((Atm) it).string(null).length;
+    if(c == Dec.class) return 64;
+    if(c == DBNode.class) return 40;
+    return -1;
+  }
+
+  /**
+   * Writes a value, the items of which must have been accepted by {@link #size(Item)}.
+   * @param out output stream
+   * @param v value
+   * @param datas databases referenced by the written nodes
+   * @throws IOException I/O exception
+   */
+  static void write(final DataOutput out, final Value v, final ArrayList<Data> datas)
+      throws IOException {
+    out.writeNum((int) v.size());
+    for(final Item it : v) write(out, it, datas);
+  }
+
+  /**
+   * Reads a value.
+   * @param in input stream
+   * @param datas databases referenced by the written nodes
+   * @return value
+   * @throws IOException I/O exception
+   */
+  static Value readValue(final DataInput in, final ArrayList<Data> datas)
+      throws IOException {
+    final int s = in.readNum();
+    final Item[] items = new Item[s];
+    for(int i = 0; i < s; i++) items[i] = read(in, datas);
+    return Seq.get(items, s);
+  }
+
+  /**
+   * Writes an item, which must have been accepted by {@link #size(Item)}.
+   * @param out output stream
+   * @param it item (may be {@code null})
+   * @param datas databases referenced by the written nodes
+   * @throws IOException I/O exception
+   */
+  static void write(final DataOutput out, final Item it, final ArrayList<Data> datas)
+      throws IOException {
+    if(it == null) {
+      out.write1(EMPTY);
+    } else if(it instanceof Int) {
+      out.write1(INT);
+      out.write1(((AtomType) it.type).ordinal());
+      out.write8(((Int) it).itr());
+    } else if(it instanceof Dbl) {
+      out.write1(DBL);
+      out.write8(Double.doubleToRawLongBits(((Dbl) it).dbl()));
+    } else if(it instanceof Flt) {
+      out.write1(FLT);
+      out.write8(Float.floatToRawIntBits(((Flt) it).flt()));
+    } else if(it instanceof Dec) {
+      out.write1(DEC);
+      out.writeToken(((Dec) it).string());
+    } else if(it instanceof Bln) {
+      out.write1(BLN);
+      out.writeBool(((Bln) it).bool(null));
+    } else if(it instanceof Str) {
+      out.write1(STR);
+      out.write1(((AtomType) it.type).ordinal());
+      out.writeToken(((Str) it).string());
+    } else if(it instanceof Atm) {
+      out.write1(ATM);
+      out.writeToken(((Atm) it).string(null));
+    } else {
+      final DBNode n = (DBNode) it;
+      out.write1(NODE);
+      int d = datas.indexOf(n.data);
+      if(d == -1) {
+        d = datas.size();
+        datas.add(n.data);
+      }
+      out.writeNum(d);
+      out.writeNum(n.pre);
+    }
+  }
+
+  /**
+   * Reads an item.
+   * @param input input stream
+   * @param datas databases referenced by the written nodes
+   * @return item (may be {@code null})
+   * @throws IOException I/O exception
+   */
+  static Item read(final DataInput input, final ArrayList<Data> datas) throws IOException {
+    switch(input.read()) {
+      case INT:
+        final AtomType type = TYPES[input.read()];
+        return Int.get(input.read8(), type);
+      case DBL: return Dbl.get(Double.longBitsToDouble(input.read8()));
+      case FLT: return Flt.get(Float.intBitsToFloat((int) input.read8()));
+      case DEC: return Dec.get(new BigDecimal(Token.string(input.readToken())));
+      case BLN: return Bln.get(input.readBool());
+      case STR:
+        final AtomType st = TYPES[input.read()];
+        return new Str(input.readToken(), st);
+      case ATM: return new Atm(input.readToken());
+      case NODE:
+        final int d = input.readNum();
+        return new DBNode(datas.get(d), input.readNum());
+      default: return null;
+    }
+  }
+}
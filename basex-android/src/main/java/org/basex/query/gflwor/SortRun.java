@@ -0,0 +1,30 @@
+package org.basex.query.gflwor;
+
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+
+/**
+ * Sorted run of tuples, which are returned by the {@code order by} clause.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+abstract class SortRun {
+  /** Sort keys of the current tuple. */
+  Item[] key;
+  /** Values of the current tuple. */
+  Value[] tuple;
+
+  /**
+   * Moves to the next tuple.
+   * @return {@code false} if all tuples have been returned
+   * @throws QueryException query exception
+   */
+  abstract boolean next() throws QueryException;
+
+  /**
+   * Releases the resources of this run.
+   */
+  void close() { }
+}
@@ -0,0 +1,586 @@
+package org.basex.query.gflwor;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.query.*;
+import org.basex.query.gflwor.OrderBy.Key;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.util.*;
+
+/**
+ * This class sorts the tuples of an {@code order by} clause.
+ *
+ * Tuples are cached in main memory until their estimated size exceeds the specified
+ * memory limit. The cached tuples are then sorted and written to a temporary file.
+ * Finally, all sorted runs are merged. Runs are merged in advance if too many
+ * temporary files exist. If a tuple cannot be written to disk (e.g., if it contains
+ * constructed nodes or function items), all remaining tuples are kept in main memory.
+ *
+ * Sort keys of the same type are compared via primitive arrays.
+ *
+ * If only the first tuples will be requested, the best tuples are kept in a bounded
+ * heap, and all other tuples are discarded.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+final class TupleSort implements Closeable {
+  /** Maximum number of runs that will be merged at once. */
+  private static final int MERGE = 32;
+  /** Maximum number of items of a value that will be written to disk. */
+  private static final int MAXSEQ = 1 << 10;
+  /** Maximum integer that can be represented as double without loss of precision. */
+  private static final long MAXDBL = 1L << 53;
+  /** Maximum number of tuples that will be kept in a bounded heap. */
+  private static final int MAXTOP = 1 << 16;
+
+  /** Sort keys. */
+  final Key[] keys;
+  /** Number of values per tuple. */
+  final int refs;
+  /** Input info. */
+  final InputInfo info;
+  /** Databases referenced by the nodes in temporary files. */
+  final ArrayList<Data> datas = new ArrayList<Data>(1);
+
+  /** Query context. */
+  private final QueryContext ctx;
+  /** Memory limit (in bytes). */
+  private final long max;
+  /** Runs that have been written to disk. */
+  private final ArrayList<SortRun> runs = new ArrayList<SortRun>();
+
+  /** Keys of the cached tuples. */
+  private Item[][] ks = new Item[Array.CAPACITY][];
+  /** Values of the cached tuples. */
+  private Value[][] vs = new Value[Array.CAPACITY][];
+  /** Number of cached tuples. */
+  private int size;
+  /** Estimated size of the cached tuples. */
+  private long mem;
+  /** Indicates if tuples may be written to disk. */
+  private boolean spill;
+  /** Sorted tuples. */
+  private SortRun result;
+  /** Bounded heap with the best tuples; the worst tuple is on top (can be {@code null}). */
+  private MinHeap<Tuple, Tuple> heap;
+  /** Maximum number of tuples in the heap. */
+  private int limit;
+  /** Number of tuples that have been added to the heap. */
+  private long count;
+
+  /**
+   * Constructor.
+   * @param k sort keys
+   * @param r number of values per tuple
+   * @param m memory limit (in bytes; {@code 0}: no limit)
+   * @param l maximum number of tuples that will be requested ({@code 0}: no limit)
+   * @param cx query context
+   * @param ii input info
+   */
+  TupleSort(final Key[] k, final int r, final long m, final long l, final QueryContext cx,
+      final InputInfo ii) {
+    keys = k;
+    refs = r;
+    max = m;
+    ctx = cx;
+    info = ii;
+    if(l > 0 && l <= MAXTOP) {
+      limit = (int) l;
+      heap = new MinHeap<Tuple, Tuple>(Math.min(limit, Array.CAPACITY), new Comparator<Tuple>() {
+        @Override
+        public int compare(final Tuple a, final Tuple b) {
+          try {
+            // worse tuples are smaller; of two equal tuples, the later one is worse
+            final int c = TupleSort.this.compare(b.key, a.key);
+            return c != 0 ? c : a.pos > b.pos ? -1 : 1;
+          } catch(final QueryException ex) {
+            throw new QueryRTException(ex);
+          }
+        }
+      });
+    } else {
+      spill = m > 0;
+    }
+  }
+
+  /**
+   * Adds a tuple.
+   * @param key sort keys
+   * @param tuple values
+   * @throws QueryException query exception
+   */
+  void add(final Item[] key, final Value[] tuple) throws QueryException {
+    // nodes are compared as untyped strings
+    for(int k = 0; k < key.length; k++) {
+      if(key[k] instanceof ANode) key[k] = new Atm(key[k].string(info));
+    }
+    if(heap != null) {
+      top(key, tuple);
+      return;
+    }
+    if(size == ks.length) {
+      final int s = Array.newSize(size);
+      ks = Arrays.copyOf(ks, s);
+      vs = Arrays.copyOf(vs, s);
+    }
+    ks[size] = key;
+    vs[size++] = tuple;
+
+    if(spill) {
+      final long s = size(key, tuple);
+      if(s == -1) {
+        spill = false;
+      } else {
+        mem += s;
+        if(mem > max) spill();
+      }
+    }
+  }
+
+  /**
+   * Sorts all tuples. Must be called after the last tuple has been added.
+   * @throws QueryException query exception
+   */
+  void sort() throws QueryException {
+    if(heap != null) {
+      // the heap returns the worst tuple first
+      final int s = heap.size();
+      ks = new Item[s][];
+      vs = new Value[s][];
+      final int[] order = new int[s];
+      for(int o = s; --o >= 0;) {
+        final Tuple t = heap.removeMin();
+        ks[o] = t.key;
+        vs[o] = t.tuple;
+        order[o] = o;
+      }
+      heap = null;
+      result = new Cache(order);
+      return;
+    }
+    final SortRun run = new Cache(order());
+    if(runs.isEmpty()) {
+      result = run;
+    } else {
+      runs.add(run);
+      result = new Merge(runs.toArray(new SortRun[runs.size()]));
+      runs.clear();
+    }
+  }
+
+  /**
+   * Returns the next sorted tuple.
+   * @return values, or {@code null} if all tuples have been returned
+   * @throws QueryException query exception
+   */
+  Value[] next() throws QueryException {
+    if(result.next()) return result.tuple;
+    close();
+    return null;
+  }
+
+  @Override
+  public void close() {
+    if(result != null) result.close();
+    for(final SortRun run : runs) run.close();
+    runs.clear();
+    ctx.resource.remove(this);
+  }
+
+  /**
+   * Compares the keys of two tuples.
+   * @param a sort keys of the first tuple
+   * @param b sort keys of the second tuple
+   * @return result of comparison
+   * @throws QueryException query exception
+   */
+  int compare(final Item[] a, final Item[] b) throws QueryException {
+    for(int k = 0; k < keys.length; k++) {
+      final Key or = keys[k];
+      Item m = a[k], n = b[k];
+      if(m == Dbl.NAN || m == Flt.NAN) m = null;
+      if(n == Dbl.NAN || n == Flt.NAN) n = null;
+      if(m != null && n != null && !m.comparable(n))
+        throw Err.castError(or.info, m.type, n);
+
+      final int c = m == null
+          ? n == null ? 0                 : or.least ? -1 : 1
+          : n == null ? or.least ? 1 : -1 : m.diff(n, or.coll, or.info);
+      if(c != 0) return or.desc ? -c : c;
+    }
+    return 0;
+  }
+
+  // PRIVATE METHODS ====================================================================
+
+  /**
+   * Adds a tuple to the bounded heap if it is better than the worst tuple of the heap.
+   * @param key sort keys
+   * @param tuple values
+   * @throws QueryException query exception
+   */
+  private void top(final Item[] key, final Value[] tuple) throws QueryException {
+    try {
+      // skip tuples that are not better than the worst tuple
+      if(heap.size() == limit && compare(key, heap.minKey().key) >= 0) return;
+      final Tuple t = new Tuple(key, tuple, count++);
+      heap.insert(t, t);
+      if(heap.size() > limit) heap.removeMin();
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * Sorts the cached tuples and writes them to a temporary file.
+   * @throws QueryException query exception
+   */
+  private void spill() throws QueryException {
+    if(runs.isEmpty()) ctx.resource.add(this);
+    runs.add(SortFile.write(new Cache(order()), this));
+    ks = new Item[Array.CAPACITY][];
+    vs = new Value[Array.CAPACITY][];
+    size = 0;
+    mem = 0;
+
+    // merge runs if the maximum number of files has been reached
+    if(runs.size() == MERGE) {
+      final SortRun run = SortFile.write(new Merge(runs.toArray(new SortRun[MERGE])), this);
+      runs.clear();
+      runs.add(run);
+    }
+  }
+
+  /**
+   * Returns the estimated size of a tuple, or {@code -1} if it cannot be written to disk.
+   * @param key sort keys
+   * @param tuple values
+   * @return size
+   */
+  private static long size(final Item[] key, final Value[] tuple) {
+    long s = 16 + (key.length + tuple.length << 3);
+    for(final Item it : key) {
+      final long is = SortFile.size(it);
+      if(is == -1) return -1;
+      s += is;
+    }
+    for(final Value v : tuple) {
+      if(v.size() > MAXSEQ) return -1;
+      s += 16;
+      for(final Item it : v) {
+        final long is = SortFile.size(it);
+        if(is == -1) return -1;
+        s += is;
+      }
+    }
+    return s;
+  }
+
+  /**
+   * Returns the sorted order of the cached tuples. The tuples are compared via
+   * columns, which are created for each sort key.
+   * @return order
+   * @throws QueryException query exception
+   */
+  private int[] order() throws QueryException {
+    final int kl = keys.length;
+    final Column[] cols = new Column[kl];
+    for(int k = 0; k < kl; k++) cols[k] = column(k);
+    final int[] order = new int[size];
+    for(int o = 0; o < size; o++) order[o] = o;
+    sort(order, new int[size], 0, size, cols);
+    return order;
+  }
+
+  /**
+   * Stable merge sort.
+   * @param order order to be sorted
+   * @param tmp temporary array
+   * @param s start position
+   * @param e end position
+   * @param cols key columns
+   * @throws QueryException query exception
+   */
+  private void sort(final int[] order, final int[] tmp, final int s, final int e,
+      final Column[] cols) throws QueryException {
+
+    if(e - s < 8) {
+      // insertion sort for small ranges
+      for(int i = s + 1; i < e; i++) {
+        for(int j = i; j > s && compare(order[j - 1], order[j], cols) > 0; j--) {
+          final int t = order[j];
+          order[j] = order[j - 1];
+          order[j - 1] = t;
+        }
+      }
+      return;
+    }
+    final int m = s + e >>> 1;
+    sort(order, tmp, s, m, cols);
+    sort(order, tmp, m, e, cols);
+    if(compare(order[m - 1], order[m], cols) <= 0) return;
+
+    System.arraycopy(order, s, tmp, s, e - s);
+    for(int i = s, l = s, r = m; i < e; i++) {
+      order[i] = r >= e || l < m && compare(tmp[l], tmp[r], cols) <= 0 ? tmp[l++] : tmp[r++];
+    }
+  }
+
+  /**
+   * Compares two cached tuples.
+   * @param a index of the first tuple
+   * @param b index of the second tuple
+   * @param cols key columns
+   * @return result of comparison
+   * @throws QueryException query exception
+   */
+  private int compare(final int a, final int b, final Column[] cols) throws QueryException {
+    for(int k = 0; k < cols.length; k++) {
+      final Column col = cols[k];
+      final Key or = keys[k];
+      final boolean ea = col.empty[a], eb = col.empty[b];
+      final int c = ea ? eb ? 0 : or.least ? -1 : 1 : eb ? or.least ? 1 : -1 : col.diff(a, b);
+      if(c != 0) return or.desc ? -c : c;
+    }
+    return 0;
+  }
+
+  /**
+   * Creates a column for the specified sort key.
+   * @param k index of sort key
+   * @return column
+   */
+  private Column column(final int k) {
+    final boolean[] empty = new boolean[size];
+    boolean lng = true, dbl = true, flt = true, str = true;
+    for(int i = 0; i < size; i++) {
+      final Item it = ks[i][k];
+      if(it == null || it == Dbl.NAN || it == Flt.NAN) {
+        empty[i] = true;
+      } else {
+        final Class<?> c = it.getClass();
+        final boolean in = c == Int.class;
+        lng &= in;
+        dbl &= in ? Math.abs(((Int) it).itr()) <= MAXDBL :
+          c == Dbl.class && !Double.isNaN(((Dbl) it).dbl());
+        flt &= c == Flt.class && !Float.isNaN(((Flt) it).flt());
+        str &= c == Str.class || c == Atm.class;
+      }
+    }
+
+    final Item[][] kys = ks;
+    final int s = size;
+    if(lng) {
+      final long[] vals = new long[s];
+      for(int i = 0; i < s; i++) if(!empty[i]) vals[i] = ((Int) kys[i][k]).itr();
+      return new Column(empty) {
+        @Override
+        int diff(final int a, final int b) {
+          final long m = vals[a], n = vals[b];
+          return m < n ? -1 : m > n ? 1 : 0;
+        }
+      };
+    }
+    if(dbl || flt) {
+      final double[] vals = new double[s];
+      for(int i = 0; i < s; i++) {
+        if(!empty[i]) {
+          final Item it = kys[i][k];
+          vals[i] = it instanceof Int ? ((Int) it).itr() : it instanceof Dbl ?
+            ((Dbl) it).dbl() : ((Flt) it).flt();
+        }
+      }
+      return new Column(empty) {
+        @Override
+        int diff(final int a, final int b) {
+          final double m = vals[a], n = vals[b];
+          return m < n ? -1 : m > n ? 1 : 0;
+        }
+      };
+    }
+    final Collation coll = keys[k].coll;
+    if(str) {
+      final byte[][] vals = new byte[s][];
+      for(int i = 0; i < s; i++) {
+        if(!empty[i]) {
+          final Item it = kys[i][k];
+          vals[i] = it instanceof Str ? ((Str) it).string() : ((Atm) it).string(null);
+        }
+      }
+      return new Column(empty) {
+        @Override
+        int diff(final int a, final int b) {
+          return coll == null ? Token.diff(vals[a], vals[b]) : coll.compare(vals[a], vals[b]);
+        }
+      };
+    }
+    final InputInfo ii = keys[k].info;
+    return new Column(empty) {
+      @Override
+      int diff(final int a, final int b) throws QueryException {
+        final Item m = kys[a][k], n = kys[b][k];
+        if(!m.comparable(n)) throw Err.castError(ii, m.type, n);
+        return m.diff(n, coll, ii);
+      }
+    };
+  }
+
+  /** Tuple in the bounded heap. */
+  private static final class Tuple {
+    /** Sort keys. */
+    final Item[] key;
+    /** Values. */
+    final Value[] tuple;
+    /** Original position. */
+    final long pos;
+
+    /**
+     * Constructor.
+     * @param k sort keys
+     * @param t values
+     * @param p original position
+     */
+    Tuple(final Item[] k, final Value[] t, final long p) {
+      key = k;
+      tuple = t;
+      pos = p;
+    }
+  }
+
+  /** Sort key column. */
+  private abstract static class Column {
+    /** Empty keys. */
+    final boolean[] empty;
+
+    /**
+     * Constructor.
+     * @param e empty keys
+     */
+    Column(final boolean[] e) {
+      empty = e;
+    }
+
+    /**
+     * Compares the non-empty keys of two tuples.
+     * @param a index of the first tuple
+     * @param b index of the second tuple
+     * @return result of comparison
+     * @throws QueryException query exception
+     */
+    abstract int diff(int a, int b) throws QueryException;
+  }
+
+  /** Sorted run of cached tuples. */
+  private final class Cache extends SortRun {
+    /** Cached keys. */
+    private final Item[][] kys = ks;
+    /** Cached values. */
+    private final Value[][] vals = vs;
+    /** Sorted order. */
+    private final int[] order;
+    /** Current position. */
+    private int pos;
+
+    /**
+     * Constructor.
+     * @param o sorted order
+     */
+    Cache(final int[] o) {
+      order = o;
+    }
+
+    @Override
+    boolean next() {
+      if(pos == order.length) return false;
+      final int o = order[pos++];
+      key = kys[o];
+      tuple = vals[o];
+      // free the space occupied by the tuple
+      kys[o] = null;
+      vals[o] = null;
+      return true;
+    }
+  }
+
+  /** Merged runs. Tuples with equal keys are returned in the order of their runs. */
+  private final class Merge extends SortRun {
+    /** Runs. */
+    private final SortRun[] rs;
+    /** Heap, referencing the runs with the smallest current tuples. */
+    private final int[] heap;
+    /** Heap size. */
+    private int hs;
+    /** Run of the current tuple. */
+    private int curr = -1;
+
+    /**
+     * Constructor.
+     * @param r runs
+     * @throws QueryException query exception
+     */
+    Merge(final SortRun[] r) throws QueryException {
+      rs = r;
+      heap = new int[r.length];
+      for(int i = 0; i < r.length; i++) {
+        if(r[i].next()) heap[hs++] = i;
+      }
+      for(int h = (hs >>> 1) - 1; h >= 0; h--) down(h);
+    }
+
+    @Override
+    boolean next() throws QueryException {
+      // advance run of the last returned tuple
+      if(curr != -1) {
+        if(!rs[curr].next()) heap[0] = heap[--hs];
+        if(hs > 1) down(0);
+      }
+      if(hs == 0) return false;
+      curr = heap[0];
+      key = rs[curr].key;
+      tuple = rs[curr].tuple;
+      return true;
+    }
+
+    @Override
+    void close() {
+      for(final SortRun run : rs) run.close();
+    }
+
+    /**
+     * Moves a heap entry down.
+     * @param h heap position
+     * @throws QueryException query exception
+     */
+    private void down(final int h) throws QueryException {
+      int p = h;
+      final int r = heap[p];
+      while(true) {
+        int c = (p << 1) + 1;
+        if(c >= hs) break;
+        if(c + 1 < hs && less(heap[c + 1], heap[c])) c++;
+        if(!less(heap[c], r)) break;
+        heap[p] = heap[c];
+        p = c;
+      }
+      heap[p] = r;
+    }
+
+    /**
+     * Checks if the current tuple of the first run is smaller than that of the second.
+     * @param a first run
+     * @param b second run
+     * @return result of check
+     * @throws QueryException query exception
+     */
+    private boolean less(final int a, final int b) throws QueryException {
+      final int c = compare(rs[a].key, rs[b].key);
+      return c < 0 || c == 0 && a < b;
+    }
+  }
+}
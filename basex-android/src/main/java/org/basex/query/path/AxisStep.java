@@ -30,7 +30,7 @@ final class AxisStep extends Step {
   @Override
   public NodeIter iter(final QueryContext ctx) throws QueryException {
     // evaluate step
-    final AxisIter ai = axis.iter(checkNode(ctx));
+    final AxisIter ai = iter(checkNode(ctx), ctx);
     final NodeSeqBuilder nc = new NodeSeqBuilder();
     for(ANode n; (n = ai.next()) != null;) {
       if(test.eq(n)) nc.add(n.finish());
@@ -62,20 +62,32 @@ final class CachedPath extends AxisPath {
       if(!cache || citer == null || lvalue != r && !(r instanceof ANode &&
           lvalue instanceof ANode && ((ANode) lvalue).is((ANode) r))) {
         lvalue = r;
-        citer = new NodeSeqBuilder().check();
-        if(r != null) {
+        NodeSeqBuilder nodes = new NodeSeqBuilder().check();
+        int s = 0;
+        if(root != null) {
+          // evaluate all steps with the sorted root nodes
           final Iter ir = ctx.iter(r);
           for(Item it; (it = ir.next()) != null;) {
             // ensure that root only returns nodes
-            if(root != null && !(it instanceof ANode)) throw PATHNODE.get(info, it.type);
-            ctx.value = it;
-            iter(0, citer, ctx);
+            if(!(it instanceof ANode)) throw PATHNODE.get(info, it.type);
+            nodes.add((ANode) it);
           }
         } else {
-          ctx.value = null;
-          iter(0, citer, ctx);
+          // evaluate first step with the context value
+          if(r != null) {
+            final Iter ir = ctx.iter(r);
+            for(Item it; (it = ir.next()) != null;) {
+              ctx.value = it;
+              add(step(0), nodes, ctx);
+            }
+          } else {
+            ctx.value = null;
+            add(step(0), nodes, ctx);
+          }
+          s = 1;
         }
-        citer.sort();
+        for(; s < steps.length; s++) nodes = iter(step(s), nodes.sort(), ctx);
+        citer = nodes.sort();
       } else {
         citer.reset();
       }
@@ -88,26 +100,59 @@ final class CachedPath extends AxisPath {
   }
 
   /**
-   * Recursive step iterator.
-   * @param l current step
-   * @param nc node cache
+   * Evaluates a step for all context nodes.
+   * If the step has no positional predicates and addresses the descendants of
+   * database nodes, a staircase join will be performed: context nodes that are
+   * descendants of a previous context node will be skipped, as their results have
+   * already been returned. As a result, the subtrees are only traversed once, and
+   * the results will be returned in document order.
+   * @param step step
+   * @param nodes sorted context nodes
    * @param ctx query context
+   * @return resulting nodes
    * @throws QueryException query exception
    */
-  private void iter(final int l, final NodeSeqBuilder nc, final QueryContext ctx)
-      throws QueryException {
+  private static NodeSeqBuilder iter(final Step step, final NodeSeqBuilder nodes,
+      final QueryContext ctx) throws QueryException {
+
+    final boolean stairs = step instanceof IterStep &&
+        (step.axis == Axis.DESC || step.axis == Axis.DESCORSELF) && nodes.dbnodes();
+    final NodeSeqBuilder nb = new NodeSeqBuilder().check();
+    final int ns = (int) nodes.size();
+    int end = -1;
+    double sc = 0;
+    for(int n = 0; n < ns; n++) {
+      final ANode node = nodes.get(n);
+      if(stairs) {
+        final DBNode db = (DBNode) node;
+        if(db.pre < end) {
+          // skip descendants, unless a higher score needs to be assigned to the results
+          if(db.score() <= sc) continue;
+        } else {
+          end = db.pre + db.data.size(db.pre, db.data.kind(db.pre));
+          sc = db.score();
+        }
+      }
+      ctx.value = node;
+      add(step, nb, ctx);
+    }
+    return nb;
+  }
 
+  /**
+   * Adds the results of a step for the current context value.
+   * @param step step
+   * @param nb node builder
+   * @param ctx query context
+   * @throws QueryException query exception
+   */
+  private static void add(final Step step, final NodeSeqBuilder nb, final QueryContext ctx)
+      throws QueryException {
     // cast is safe (steps will always return a {@link NodeIter} instance
-    final NodeIter ni = (NodeIter) ctx.iter(steps[l]);
-    final boolean more = l + 1 != steps.length;
+    final NodeIter ni = (NodeIter) ctx.iter(step);
     for(ANode node; (node = ni.next()) != null;) {
-      if(more) {
-        ctx.value = node;
-        iter(l + 1, nc, ctx);
-      } else {
-        ctx.checkStop();
-        nc.add(node);
-      }
+      ctx.checkStop();
+      nb.add(node);
     }
   }
 
@@ -4,12 +4,14 @@ import static org.basex.query.QueryText.*;
 
 import java.util.*;
 
+import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.index.name.*;
 import org.basex.index.path.*;
 import org.basex.index.stats.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.iter.*;
 import org.basex.query.path.Test.Mode;
 import org.basex.query.util.*;
 import org.basex.query.value.node.*;
@@ -173,6 +175,32 @@ public abstract class Step extends Preds {
     }
   }
 
+  /**
+   * Returns an iterator for the nodes of the step axis.
+   * If the step addresses named descendant elements of a database node,
+   * and if the element name index is available, or if the subtree is large enough to
+   * justify its creation, the nodes are retrieved from the index.
+   * @param node context node
+   * @param ctx query context
+   * @return iterator
+   */
+  final AxisIter iter(final ANode node, final QueryContext ctx) {
+    if((axis == Axis.DESC || axis == Axis.DESCORSELF) && node instanceof DBNode &&
+        test instanceof NameTest && test.type == NodeType.ELM &&
+        (test.mode == Mode.LN || test.mode == Mode.STD) &&
+        ctx.context.options.get(MainOptions.ELEMINDEX)) {
+      final DBNode db = (DBNode) node;
+      final Data data = db.data;
+      final int k = data.kind(db.pre);
+      if((k == Data.ELEM || k == Data.DOC) && (data.elemindex.exists() ||
+          data.size(db.pre, k) >= data.meta.size >>> 1)) {
+        final int[] names = data.elemindex.ids(((NameTest) test).ln);
+        return db.descendant(names, axis == Axis.DESCORSELF);
+      }
+    }
+    return axis.iter(node);
+  }
+
   /**
    * Adds predicates to the step.
    * @param prds predicates to be added
@@ -64,6 +64,7 @@ public final class DBCreate extends DBNew {
     // remove data instance from list of opened resources
     qc.resource.removeData(name);
     // check if addressed database is still pinned by any other process
+    qc.context.queries.close(name);
     if(qc.context.pinned(name)) throw BXDB_OPENED.get(info, name);
 
     initOptions();
@@ -166,6 +166,11 @@ final class Leaf extends TrieNode {
     ks.add(key);
   }
 
+  @Override
+  void cache(final MapBuilder mb) {
+    mb.add(hash, key, value);
+  }
+
   @Override
   boolean hasType(final AtomType kt, final SeqType vt) {
     return (kt == null || key.type.instanceOf(kt))
@@ -221,6 +221,11 @@ final class List extends TrieNode {
     for(final Item k : keys) ks.add(k);
   }
 
+  @Override
+  void cache(final MapBuilder mb) {
+    for(int i = 0; i < size; i++) mb.add(hash, keys[i], values[i]);
+  }
+
   @Override
   boolean hasType(final AtomType kt, final SeqType vt) {
     if(kt != null)
@@ -0,0 +1,162 @@
+package org.basex.query.value.map;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+
+/**
+ * Builder for creating a {@link Map} from a large number of bindings.
+ *
+ * Instead of copying a path of the trie for each new binding, all bindings are
+ * cached and the nodes of the trie are created in a single pass: the bindings are
+ * sorted by their bit-reversed hash codes, which groups them by the hash keys of all
+ * levels. If a key occurs more than once, the last binding is adopted.
+ * Maps with many bindings are merged with the existing trie instead of being cached.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Leo Woerteler
+ */
+public final class MapBuilder {
+  /** Maximum size of maps whose bindings will be cached. */
+  private static final int CACHE = 1 << Map.BITS;
+
+  /** Map with the bindings that precede the cached bindings. */
+  private Map map = Map.EMPTY;
+  /** Hash codes of the cached keys. */
+  private int[] hashes = new int[Array.CAPACITY];
+  /** Cached keys. */
+  private Item[] keys = new Item[Array.CAPACITY];
+  /** Cached values. */
+  private Value[] values = new Value[Array.CAPACITY];
+  /** Number of cached bindings. */
+  private int size;
+
+  /**
+   * Adds a binding. An existing binding with the same key will be replaced.
+   * @param key key
+   * @param value value
+   * @param ii input info
+   * @throws QueryException query exception
+   */
+  public void put(final Item key, final Value value, final InputInfo ii)
+      throws QueryException {
+    final Item k = Map.key(key, ii);
+    if(k != null) add(k.hash(ii), k, value);
+  }
+
+  /**
+   * Adds all bindings of the specified map. Existing bindings with the same keys
+   * will be replaced.
+   * @param mp map
+   * @param ii input info
+   * @throws QueryException query exception
+   */
+  public void put(final Map mp, final InputInfo ii) throws QueryException {
+    if(mp.mapSize() > CACHE) {
+      map = flush(ii).addAll(mp, ii);
+    } else {
+      mp.root.cache(this);
+    }
+  }
+
+  /**
+   * Returns the resulting map.
+   * @param ii input info
+   * @return map
+   * @throws QueryException query exception
+   */
+  public Map finish(final InputInfo ii) throws QueryException {
+    return flush(ii);
+  }
+
+  /**
+   * Caches a binding.
+   * @param hash hash code of the key
+   * @param key key
+   * @param value value
+   */
+  void add(final int hash, final Item key, final Value value) {
+    if(size == keys.length) {
+      final int s = Array.newSize(size);
+      hashes = Arrays.copyOf(hashes, s);
+      keys = Array.copy(keys, new Item[s]);
+      values = Array.copy(values, new Value[s]);
+    }
+    hashes[size] = hash;
+    keys[size] = key;
+    values[size++] = value;
+  }
+
+  /**
+   * Merges the cached bindings with the current map.
+   * @param ii input info
+   * @return current map
+   * @throws QueryException query exception
+   */
+  private Map flush(final InputInfo ii) throws QueryException {
+    if(size != 0) {
+      // sort bindings by their bit-reversed hash codes and their original order
+      final long[] order = new long[size];
+      for(int i = 0; i < size; i++) {
+        order[i] = (Integer.reverse(hashes[i]) & 0xFFFFFFFFL) << 32 | i;
+      }
+      Arrays.sort(order);
+      final Map cached = new Map(node(order, 0, size, 0, ii));
+      map = map.addAll(cached, ii);
+      size = 0;
+    }
+    return map;
+  }
+
+  /**
+   * Creates a trie node for the specified range of sorted bindings.
+   * @param order sorted bindings
+   * @param s first binding
+   * @param e last binding (exclusive)
+   * @param l level
+   * @param ii input info
+   * @return trie node
+   * @throws QueryException query exception
+   */
+  private TrieNode node(final long[] order, final int s, final int e, final int l,
+      final InputInfo ii) throws QueryException {
+
+    final int f = (int) order[s], h = hashes[f];
+    if(h == hashes[(int) order[e - 1]]) {
+      // all keys have the same hash code: create leaf or collision list
+      Item[] ks = { keys[f] };
+      Value[] vs = { values[f] };
+      outer: for(int o = s + 1; o < e; o++) {
+        final int i = (int) order[o];
+        for(int k = 0; k < ks.length; k++) {
+          if(TrieNode.eq(ks[k], keys[i], ii)) {
+            ks[k] = keys[i];
+            vs[k] = values[i];
+            continue outer;
+          }
+        }
+        ks = Array.add(ks, keys[i]);
+        vs = Array.add(vs, values[i]);
+      }
+      return ks.length == 1 ? new Leaf(h, ks[0], vs[0]) : new List(h, ks, vs);
+    }
+
+    // create branch with the bindings grouped by the hash key of the current level
+    final TrieNode[] ch = new TrieNode[TrieNode.KIDS];
+    int used = 0, sz = 0;
+    for(int o = s; o < e;) {
+      final int k = TrieNode.key(hashes[(int) order[o]], l);
+      int n = o + 1;
+      while(n < e && TrieNode.key(hashes[(int) order[n]], l) == k) n++;
+      final TrieNode nd = node(order, o, n, l + 1, ii);
+      ch[k] = nd;
+      used |= 1 << k;
+      sz += nd.size;
+      o = n;
+    }
+    return new Branch(ch, used, sz);
+  }
+}
@@ -48,6 +48,8 @@ abstract class TrieNode {
     @Override
     void keys(final ValueBuilder ks) { }
     @Override
+    void cache(final MapBuilder mb) { }
+    @Override
     boolean hasType(final AtomType kt, final SeqType vt) { return true; }
     @Override
     int hash(final InputInfo ii) { return 0; }
@@ -177,6 +179,12 @@ abstract class TrieNode {
    */
   abstract void keys(final ValueBuilder ks);
 
+  /**
+   * Caches all bindings of this subtree.
+   * @param mb map builder
+   */
+  abstract void cache(final MapBuilder mb);
+
   /**
    * Calculates the hash key for the given level.
    * @param hash hash value
@@ -230,6 +238,10 @@ abstract class TrieNode {
    * @throws QueryException query exception
    */
   static boolean eq(final Item a, final Item b, final InputInfo ii) throws QueryException {
+    // shortcuts for the most common key types
+    if(a instanceof Int && b instanceof Int) return ((Int) a).itr() == ((Int) b).itr();
+    if(a.type == AtomType.STR && b.type == AtomType.STR)
+      return Token.eq(((Str) a).string(), ((Str) b).string());
     return a.comparable(b) && a.eq(b, null, ii);
   }
 
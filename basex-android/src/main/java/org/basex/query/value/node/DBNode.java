@@ -7,6 +7,7 @@ import java.io.*;
 import org.basex.build.*;
 import org.basex.core.*;
 import org.basex.data.*;
+import org.basex.index.query.*;
 import org.basex.io.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
@@ -390,6 +391,30 @@ public class DBNode extends ANode {
     };
   }
 
+  /**
+   * Returns an iterator for all descendant elements with the specified names.
+   * The elements are retrieved from the element name index.
+   * @param names name ids
+   * @param self include the node itself
+   * @return iterator
+   */
+  public final AxisIter descendant(final int[] names, final boolean self) {
+    final IndexIterator ii = data.elemindex.iter(names, self ? pre : pre + 1,
+        pre + data.size(pre, data.kind(pre)));
+    return new AxisIter() {
+      final DBNode node = copy();
+      final double sc = node.score();
+
+      @Override
+      public ANode next() {
+        if(!ii.more()) return null;
+        node.set(ii.pre(), Data.ELEM);
+        if(!self) node.score(Scoring.step(sc));
+        return node;
+      }
+    };
+  }
+
   @Override
   public final AxisIter following() {
     return new AxisIter() {
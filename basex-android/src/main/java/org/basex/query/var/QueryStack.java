@@ -58,6 +58,16 @@ public final class QueryStack {
     }
   }
 
+  /**
+   * Copies the bindings and frame pointers of the specified stack to this stack.
+   * @param qs stack to be copied
+   */
+  public void assign(final QueryStack qs) {
+    stack = qs.stack.clone();
+    fp = qs.fp;
+    sl = qs.sl;
+  }
+
   /**
    * Calculates the position of the given variable on the stack.
    * @param v variable
@@ -0,0 +1,173 @@
+package org.basex.util;
+
+import java.util.*;
+
+/**
+ * This class compresses and decompresses blocks of bytes. It uses a simple LZ77 variant
+ * that is inspired by the LZ4 block format: a compressed block consists of sequences,
+ * each of which starts with a token byte. The upper four bits of the token contain the
+ * number of literals, which are copied to the output as they are, and the lower four
+ * bits contain the length of a subsequent match (minus {@link #MIN}). A match is
+ * referenced by its two-byte distance to the current output position. Lengths of
+ * {@code 15} and more are continued by additional bytes. The last sequence of a block
+ * consists of literals only.
+ *
+ * NOTE: compression is not thread-safe, as the hash table is reused.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class BlockCompress {
+  /** Minimum length of a match. */
+  private static final int MIN = 4;
+  /** Maximum distance of a match. */
+  private static final int DIST = 1 << 16;
+  /** Number of trailing bytes that are always stored as literals. */
+  private static final int LAST = 5;
+  /** Number of bits of the hash table. */
+  private static final int BITS = 12;
+
+  /** Hash table, referencing the last positions of 4-byte sequences. */
+  private final int[] table = new int[1 << BITS];
+
+  /**
+   * Compresses the specified bytes.
+   * @param src bytes to be compressed
+   * @param len number of bytes
+   * @return compressed bytes
+   */
+  public byte[] pack(final byte[] src, final int len) {
+    final byte[] dst = new byte[len + len / 255 + 16];
+    Arrays.fill(table, -1);
+
+    int o = 0, a = 0, i = 0;
+    final int lim = len - LAST - MIN;
+    while(i < lim) {
+      final int h = hash(src, i), r = table[h];
+      table[h] = i;
+      if(r < 0 || i - r >= DIST || !eq(src, r, i)) {
+        i++;
+        continue;
+      }
+      // extend match
+      int m = i + MIN, n = r + MIN;
+      while(m < len - LAST && src[m] == src[n]) {
+        m++;
+        n++;
+      }
+      o = sequence(src, a, i - a, i - r, m - i, dst, o);
+      i = m;
+      a = m;
+    }
+    o = sequence(src, a, len - a, 0, 0, dst, o);
+    return Arrays.copyOf(dst, o);
+  }
+
+  /**
+   * Decompresses the specified bytes.
+   * @param src compressed bytes
+   * @param dst target array, which must be large enough for the decompressed bytes
+   * @return number of decompressed bytes
+   */
+  public static int unpack(final byte[] src, final byte[] dst) {
+    final int sl = src.length;
+    int i = 0, o = 0;
+    while(i < sl) {
+      final int t = src[i++] & 0xFF;
+      // copy literals
+      int l = t >>> 4;
+      if(l == 15) {
+        int b;
+        do l += b = src[i++] & 0xFF; while(b == 255);
+      }
+      System.arraycopy(src, i, dst, o, l);
+      i += l;
+      o += l;
+      if(i == sl) break;
+
+      // copy match
+      final int d = src[i++] & 0xFF | (src[i++] & 0xFF) << 8;
+      int m = t & 0x0F;
+      if(m == 15) {
+        int b;
+        do m += b = src[i++] & 0xFF; while(b == 255);
+      }
+      m += MIN;
+      int r = o - d;
+      if(d >= m) {
+        System.arraycopy(dst, r, dst, o, m);
+        o += m;
+      } else {
+        // overlapping match: copy byte by byte
+        for(final int e = o + m; o < e;) dst[o++] = dst[r++];
+      }
+    }
+    return o;
+  }
+
+  /**
+   * Writes a sequence.
+   * @param src source bytes
+   * @param s offset of the literals
+   * @param l number of literals
+   * @param d distance of the match
+   * @param m length of the match ({@code 0} if the sequence contains no match)
+   * @param dst target bytes
+   * @param p position in the target bytes
+   * @return new position
+   */
+  private static int sequence(final byte[] src, final int s, final int l, final int d,
+      final int m, final byte[] dst, final int p) {
+
+    int o = p;
+    final int ml = m == 0 ? 0 : m - MIN;
+    dst[o++] = (byte) (Math.min(l, 15) << 4 | Math.min(ml, 15));
+    if(l >= 15) o = length(l - 15, dst, o);
+    System.arraycopy(src, s, dst, o, l);
+    o += l;
+    if(m != 0) {
+      dst[o++] = (byte) d;
+      dst[o++] = (byte) (d >>> 8);
+      if(ml >= 15) o = length(ml - 15, dst, o);
+    }
+    return o;
+  }
+
+  /**
+   * Writes the continuation bytes of a length.
+   * @param l remaining length
+   * @param dst target bytes
+   * @param p position in the target bytes
+   * @return new position
+   */
+  private static int length(final int l, final byte[] dst, final int p) {
+    int o = p, r = l;
+    for(; r >= 255; r -= 255) dst[o++] = (byte) 255;
+    dst[o++] = (byte) r;
+    return o;
+  }
+
+  /**
+   * Returns the hash value of the four bytes at the specified position.
+   * @param b bytes
+   * @param p position
+   * @return hash value
+   */
+  private static int hash(final byte[] b, final int p) {
+    final int v = (b[p] & 0xFF) | (b[p + 1] & 0xFF) << 8 | (b[p + 2] & 0xFF) << 16 |
+        (b[p + 3] & 0xFF) << 24;
+    return v * -1640531535 >>> 32 - BITS;
+  }
+
+  /**
+   * Compares the four bytes at the specified positions.
+   * @param b bytes
+   * @param p1 first position
+   * @param p2 second position
+   * @return result of check
+   */
+  private static boolean eq(final byte[] b, final int p1, final int p2) {
+    return b[p1] == b[p2] && b[p1 + 1] == b[p2 + 1] && b[p1 + 2] == b[p2 + 2] &&
+        b[p1 + 3] == b[p2 + 3];
+  }
+}
@@ -66,6 +66,15 @@ public final class MinHeap<K, V> {
     return val;
   }
 
+  /**
+   * Returns the smallest key from this heap.
+   * @return smallest key
+   */
+  @SuppressWarnings("unchecked")
+  public K minKey() {
+    return (K) vals[0];
+  }
+
   /**
    * returns the value of the smallest key from this heap.
    * @return value of the smallest key
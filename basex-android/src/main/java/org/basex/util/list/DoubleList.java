@@ -0,0 +1,82 @@
+package org.basex.util.list;
+
+import java.util.*;
+
+import org.basex.util.*;
+
+/**
+ * This is a simple container for native doubles.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class DoubleList extends ElementList {
+  /** Element container. */
+  private double[] list;
+
+  /**
+   * Default constructor.
+   */
+  public DoubleList() {
+    this(Array.CAPACITY);
+  }
+
+  /**
+   * Constructor, specifying an initial internal array size.
+   * @param capacity initial array capacity
+   */
+  public DoubleList(final int capacity) {
+    list = new double[capacity];
+  }
+
+  /**
+   * Adds an element to the array.
+   * @param element element to be added
+   */
+  public void add(final double element) {
+    if(size == list.length) list = Arrays.copyOf(list, newSize());
+    list[size++] = element;
+  }
+
+  /**
+   * Returns the element at the specified position.
+   * @param index index of the element to return
+   * @return element
+   */
+  public double get(final int index) {
+    return list[index];
+  }
+
+  /**
+   * Stores an element at the specified position.
+   * @param index index of the element to replace
+   * @param element element to be stored
+   */
+  public void set(final int index, final double element) {
+    if(index >= list.length) list = Arrays.copyOf(list, newSize(index + 1));
+    list[index] = element;
+    size = Math.max(size, index + 1);
+  }
+
+  /**
+   * Returns an array with all elements.
+   * @return array
+   */
+  public double[] toArray() {
+    return Arrays.copyOf(list, size);
+  }
+
+  /**
+   * Sorts the data.
+   * @return self reference
+   */
+  public DoubleList sort() {
+    Arrays.sort(list, 0, size);
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+}
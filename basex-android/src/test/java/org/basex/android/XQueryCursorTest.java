@@ -0,0 +1,126 @@
+package org.basex.android;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.query.value.type.*;
+import org.junit.*;
+
+/**
+ * Tests for class {@link XQueryCursor}.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class XQueryCursorTest extends SandboxTest {
+  /**
+   * Iterates over all results.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void items() throws IOException {
+    final XQueryCursor qc = new XQueryCursor("for $i in 1 to 3 return <a>{ $i }</a>", context);
+    try {
+      for(int i = 1; i <= 3; i++) {
+        assertTrue(qc.hasNext());
+        assertEquals("<a>" + i + "</a>", qc.next());
+        assertEquals(NodeType.ELM, qc.type());
+      }
+      assertFalse(qc.hasNext());
+      assertNull(qc.next());
+    } finally {
+      qc.close();
+    }
+  }
+
+  /**
+   * Binds external variables.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void bind() throws IOException {
+    final XQueryCursor qc = new XQueryCursor(
+        "declare variable $x external; declare variable $y external; $x * 2, $y", context);
+    try {
+      qc.bind("x", "21", "xs:integer").bind("y", "abc");
+      assertEquals("42", qc.next());
+      assertEquals(AtomType.ITR, qc.type());
+      assertEquals("abc", qc.next());
+      assertNull(qc.next());
+    } finally {
+      qc.close();
+    }
+  }
+
+  /**
+   * Checks that variables cannot be bound after the evaluation has started.
+   * @throws IOException I/O exception
+   */
+  @Test(expected = BaseXException.class)
+  public void bindLate() throws IOException {
+    final XQueryCursor qc = new XQueryCursor("declare variable $x external; $x", context);
+    try {
+      qc.bind("x", "1");
+      assertEquals("1", qc.next());
+      qc.bind("x", "2");
+    } finally {
+      qc.close();
+    }
+  }
+
+  /**
+   * Stops the evaluation before the remaining items are requested.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void stop() throws IOException {
+    final String query = "for $i in 1 to 2 return if($i = 1) then $i else error()";
+    XQueryCursor qc = new XQueryCursor(query, context);
+    assertEquals("1", qc.next());
+    qc.close();
+    assertFalse(qc.hasNext());
+
+    qc = new XQueryCursor(query, context);
+    try {
+      assertEquals("1", qc.next());
+      qc.next();
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      assertFalse(qc.hasNext());
+    } finally {
+      qc.close();
+    }
+  }
+
+  /**
+   * Checks that a cursor cannot be used by other threads once evaluation has started.
+   * @throws Exception exception
+   */
+  @Test
+  public void confined() throws Exception {
+    final XQueryCursor qc = new XQueryCursor("1, 2", context);
+    try {
+      assertEquals("1", qc.next());
+      final Throwable[] error = new Throwable[1];
+      final Thread thread = new Thread() {
+        @Override
+        public void run() {
+          try {
+            qc.close();
+          } catch(final Throwable th) {
+            error[0] = th;
+          }
+        }
+      };
+      thread.start();
+      thread.join();
+      assertTrue(error[0] instanceof IllegalStateException);
+      assertEquals("2", qc.next());
+    } finally {
+      qc.close();
+    }
+  }
+}
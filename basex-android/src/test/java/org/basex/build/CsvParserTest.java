@@ -5,6 +5,7 @@ import static org.junit.Assert.*;
 
 import java.io.*;
 
+import org.basex.build.CsvOptions.CsvFormat;
 import org.basex.core.*;
 import org.basex.core.MainOptions.MainParser;
 import org.basex.core.cmd.*;
@@ -108,6 +109,61 @@ public final class CsvParserTest extends SandboxTest {
     assertEquals("0", new XQuery("count(//Name)").execute(context));
   }
 
+  /**
+   * Converts CSV data to the attributes format.
+   * @throws Exception exception
+   */
+  @Test
+  public void attributes() throws Exception {
+    final CsvParserOptions copts = new CsvParserOptions();
+    copts.set(CsvOptions.HEADER, true);
+    copts.set(CsvOptions.FORMAT, CsvFormat.ATTRIBUTES);
+    new Set(MainOptions.CSVPARSER, copts).execute(context);
+
+    write("a,b c\n1,\" x \"\"y\"\" \"\n");
+    new CreateDB(NAME, TEMP).execute(context);
+    assertEquals("<csv><record><entry name=\"a\">1</entry><entry name=\"b c\">x \"y\"</entry>" +
+        "</record></csv>", query("."));
+    assertEquals(NAME + IO.CSVSUFFIX, query("base-uri(.) ! replace(., '.*/', '')"));
+  }
+
+  /**
+   * Parses a file with many records and entries spanning multiple lines.
+   * @throws Exception exception
+   */
+  @Test
+  public void records() throws Exception {
+    final TokenBuilder tb = new TokenBuilder("id,text\r\n");
+    for(int i = 0; i < 10000; i++) tb.addExt("%,\"l1\r\nl2,%\"\r\n", i, i);
+    new IOFile(TEMP).write(tb.finish());
+    new CreateDB(NAME, TEMP).execute(context);
+    assertEquals("10000", query("count(//record)"));
+    assertEquals("49995000", query("sum(//id ! xs:integer(.))"));
+    assertEquals("true", query("//record[last()]/text = 'l1&#10;l2,9999'"));
+  }
+
+  /**
+   * Parses entries with characters outside the Basic Multilingual Plane.
+   * @throws Exception exception
+   */
+  @Test
+  public void supplementary() throws Exception {
+    write("a,b\n\uD83D\uDE00,x\uD83D\uDE00y\n");
+    new CreateDB(NAME, TEMP).execute(context);
+    assertEquals("128512", query("string-to-codepoints(//a)"));
+    assertEquals("120 128512 121", query("string-to-codepoints(//b)"));
+  }
+
+  /**
+   * Runs a query and returns the result without indentation.
+   * @param query query
+   * @return result
+   * @throws BaseXException exception
+   */
+  private static String query(final String query) throws BaseXException {
+    return new XQuery(query).execute(context).replaceAll("\\s*\n\\s*", "");
+  }
+
   /**
    * Writes the specified test file.
    * @param data data to write
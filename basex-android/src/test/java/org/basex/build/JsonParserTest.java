@@ -0,0 +1,236 @@
+package org.basex.build;
+
+import static org.basex.util.Token.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.build.JsonOptions.JsonFormat;
+import org.basex.core.*;
+import org.basex.core.MainOptions.MainParser;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * JSON Parser Test.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class JsonParserTest extends SandboxTest {
+  /** Temporary JSON file. */
+  private static final String TEMP = Prop.TMP + NAME + IO.JSONSUFFIX;
+
+  /**
+   * Sets the JSON parser.
+   * @throws BaseXException exception
+   */
+  @BeforeClass
+  public static void before() throws BaseXException {
+    new Set(MainOptions.PARSER, MainParser.JSON).execute(context);
+  }
+
+  /**
+   * Removes the temporary JSON file and resets the parser.
+   * @throws BaseXException exception
+   */
+  @AfterClass
+  public static void after() throws BaseXException {
+    new IOFile(TEMP).delete();
+    new Set(MainOptions.PARSER, MainParser.XML).execute(context);
+  }
+
+  /**
+   * Resets the parser options.
+   * @throws BaseXException exception
+   */
+  @Before
+  public void init() throws BaseXException {
+    new Set(MainOptions.JSONPARSER, new JsonParserOptions()).execute(context);
+  }
+
+  /**
+   * Drops the database.
+   * @throws BaseXException exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Converts JSON to the direct format.
+   * @throws Exception exception
+   */
+  @Test
+  public void direct() throws Exception {
+    write("{ \"a\": [ 1, \" b \", null, true, {} ], \"c d\": \"\" }");
+    new CreateDB(NAME, TEMP).execute(context);
+    assertEquals("<json type=\"object\"><a type=\"array\"><_ type=\"number\">1</_><_>b</_>" +
+        "<_ type=\"null\"/><_ type=\"boolean\">true</_><_ type=\"object\"/></a>" +
+        "<c_0020d/></json>", query("."));
+    assertEquals(NAME + IO.JSONSUFFIX, query("base-uri(.) ! replace(., '.*/', '')"));
+  }
+
+  /**
+   * Converts JSON to the attributes format.
+   * @throws Exception exception
+   */
+  @Test
+  public void attributes() throws Exception {
+    final JsonParserOptions jopts = new JsonParserOptions();
+    jopts.set(JsonOptions.FORMAT, JsonFormat.ATTRIBUTES);
+    new Set(MainOptions.JSONPARSER, jopts).execute(context);
+
+    write("{ \"a\": [ 1, \"b\" ] }");
+    new CreateDB(NAME, TEMP).execute(context);
+    assertEquals("<json type=\"object\"><pair name=\"a\" type=\"array\">" +
+        "<item type=\"number\">1</item><item>b</item></pair></json>", query("."));
+  }
+
+  /**
+   * Merges type information.
+   * @throws Exception exception
+   */
+  @Test
+  public void merge() throws Exception {
+    final JsonParserOptions jopts = new JsonParserOptions();
+    jopts.set(JsonOptions.MERGE, true);
+    new Set(MainOptions.JSONPARSER, jopts).execute(context);
+
+    write("{ \"a\": 1, \"b\": \"c\" }");
+    new CreateDB(NAME, TEMP).execute(context);
+    assertEquals("<json objects=\"json\" numbers=\"a\"><a>1</a><b>c</b></json>", query("."));
+  }
+
+  /**
+   * Parses each line of the input as separate document.
+   * @throws Exception exception
+   */
+  @Test
+  public void lines() throws Exception {
+    final JsonParserOptions jopts = new JsonParserOptions();
+    jopts.set(JsonParserOptions.LINES, true);
+    new Set(MainOptions.JSONPARSER, jopts).execute(context);
+
+    write("{ \"a\": 1 }\n\n[ \"b\" ]\r\n{}");
+    new CreateDB(NAME, TEMP).execute(context);
+    assertEquals("3", query("count(db:open('" + NAME + "'))"));
+    assertEquals("1 3 4", query("string-join(db:open('" + NAME + "') ! " +
+        "replace(base-uri(), '.*/', ''), ' ')"));
+    assertEquals("<_>b</_>", query("db:open('" + NAME + "')[2]/json/_"));
+
+    // invalid line
+    write("{}\n{ \"a\" }\n");
+    try {
+      new CreateDB(NAME, TEMP).execute(context);
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      final String line = Util.info(Text.SCANPOS_X_X, new IOFile(TEMP).path(), 2);
+      assertTrue(ex.getMessage(), ex.getMessage().contains(line));
+    }
+  }
+
+  /**
+   * Parses a directory with a file with multiple lines in parallel.
+   * @throws Exception exception
+   */
+  @Test
+  public void linesParallel() throws Exception {
+    final JsonParserOptions jopts = new JsonParserOptions();
+    jopts.set(JsonParserOptions.LINES, true);
+    new Set(MainOptions.JSONPARSER, jopts).execute(context);
+
+    final IOFile dir = new IOFile(Prop.TMP, NAME);
+    dir.md();
+    try {
+      new IOFile(dir, "a.json").write(token("{ \"a\": 1 }\n[ 2 ]\n\n{ \"c\": 3 }\n{}\n"));
+      new IOFile(dir, "b.json").write(token("[ \"d\" ]\n"));
+      final String list = "string-join(db:list('" + NAME + "'), ' ')";
+      final String values = "string-join(db:open('" + NAME + "')//text(), ' ')";
+
+      new Set(MainOptions.CREATEFILTER, "*.json").execute(context);
+      new Set(MainOptions.PARSETHREADS, 0).execute(context);
+      new CreateDB(NAME, dir.path()).execute(context);
+      final String expList = query(list), expValues = query(values);
+      assertEquals("a.json/1 a.json/2 a.json/4 a.json/5 b.json/1", expList);
+
+      new Set(MainOptions.PARSETHREADS, 4).execute(context);
+      new CreateDB(NAME, dir.path()).execute(context);
+      assertEquals(expList, query(list));
+      assertEquals(expValues, query(values));
+    } finally {
+      new Set(MainOptions.CREATEFILTER, MainOptions.CREATEFILTER.value()).execute(context);
+      new Set(MainOptions.PARSETHREADS, MainOptions.PARSETHREADS.value()).execute(context);
+      dir.delete();
+    }
+  }
+
+  /**
+   * Replaces control characters that are invalid in XML.
+   * @throws Exception exception
+   */
+  @Test
+  public void control() throws Exception {
+    write("{ \"a\": \"\\u0000\\n\\t\\\"\", \"b\": \" \\u0001x \" }");
+    new CreateDB(NAME, TEMP).execute(context);
+    assertEquals("63 10 9 34", query("string-to-codepoints(//a)"));
+    assertEquals("?x", query("string(//b)"));
+
+    new Set(MainOptions.CHOP, false).execute(context);
+    try {
+      new CreateDB(NAME, TEMP).execute(context);
+      assertEquals("63 10 9 34", query("string-to-codepoints(//a)"));
+      assertEquals(" ?x ", query("string(//b)"));
+    } finally {
+      new Set(MainOptions.CHOP, true).execute(context);
+    }
+
+    final JsonParserOptions jopts = new JsonParserOptions();
+    jopts.set(JsonOptions.FORMAT, JsonFormat.ATTRIBUTES);
+    new Set(MainOptions.JSONPARSER, jopts).execute(context);
+    write("{ \"\\u0002k\": \"\\u0003\" }");
+    new CreateDB(NAME, TEMP).execute(context);
+    assertEquals("<json type=\"object\"><pair name=\"?k\">?</pair></json>", query("."));
+  }
+
+  /**
+   * Only creates text nodes for string values if whitespaces are not chopped.
+   * @throws Exception exception
+   */
+  @Test
+  public void whitespaces() throws Exception {
+    new Set(MainOptions.CHOP, false).execute(context);
+    try {
+      write("{\n  \"a\": [ 1, \" b \" ],\n  \"c\": \"\"\n}");
+      new CreateDB(NAME, TEMP).execute(context);
+      // no whitespace nodes are added for the indentation of the input
+      assertEquals("2", query("count(//text())"));
+      assertEquals("1| b ", query("string-join(//text(), '|')"));
+    } finally {
+      new Set(MainOptions.CHOP, true).execute(context);
+    }
+  }
+
+  /**
+   * Runs a query and returns the result without indentation.
+   * @param query query
+   * @return result
+   * @throws BaseXException exception
+   */
+  private static String query(final String query) throws BaseXException {
+    return new XQuery(query).execute(context).replaceAll("\\s*\n\\s*", "");
+  }
+
+  /**
+   * Writes the specified test file.
+   * @param data data to write
+   * @throws IOException I/O exception
+   */
+  private static void write(final String data) throws IOException {
+    new IOFile(TEMP).write(token(data));
+  }
+}
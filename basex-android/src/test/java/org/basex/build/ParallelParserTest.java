@@ -0,0 +1,110 @@
+package org.basex.build;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * Tests for parsing the documents of directories and archives in parallel.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelParserTest extends SandboxTest {
+  /** Test directory. */
+  private static final String DIR = "src/test/resources/";
+  /** Query for serializing all documents. */
+  private static final String DOCS = "for $d in db:open('" + NAME + "') " +
+      "return (document-uri($d), count($d//node()), serialize($d))";
+
+  /**
+   * Resets the options and drops the database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void tearDown() throws BaseXException {
+    new Set(MainOptions.PARSETHREADS, MainOptions.PARSETHREADS.value()).execute(context);
+    new Set(MainOptions.SKIPCORRUPT, false).execute(context);
+    new Set(MainOptions.MAINMEM, false).execute(context);
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Creates databases from directories and archives.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void create() throws BaseXException {
+    compare(DIR + "dir");
+    compare(DIR + "xml.zip");
+    compare(DIR + "factbook.zip");
+    compare(DIR + "xml.gz");
+    new Set(MainOptions.MAINMEM, true).execute(context);
+    compare(DIR + "dir");
+  }
+
+  /**
+   * Adds documents to an existing database.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void add() throws BaseXException {
+    new Set(MainOptions.PARSETHREADS, 4).execute(context);
+    new CreateDB(NAME, "<a/>").execute(context);
+    new Add("x", DIR + "dir").execute(context);
+    new Add("y", DIR + "xml.zip").execute(context);
+    final String result = new XQuery(DOCS).execute(context);
+
+    new Set(MainOptions.PARSETHREADS, 1).execute(context);
+    new CreateDB(NAME, "<a/>").execute(context);
+    new Add("x", DIR + "dir").execute(context);
+    new Add("y", DIR + "xml.zip").execute(context);
+    assertEquals(new XQuery(DOCS).execute(context), result);
+  }
+
+  /**
+   * Skips corrupt files.
+   * @throws Exception exception
+   */
+  @Test
+  public void skipCorrupt() throws Exception {
+    final IOFile dir = new IOFile(sandbox(), "corrupt");
+    assertTrue(dir.md());
+    for(int i = 0; i < 20; i++) {
+      new IOFile(dir, i + IO.XMLSUFFIX).write(Token.token(i % 3 == 0 ? "<x" : "<x>" + i + "</x>"));
+    }
+    new Set(MainOptions.PARSETHREADS, 4).execute(context);
+    new Set(MainOptions.SKIPCORRUPT, true).execute(context);
+    new CreateDB(NAME, dir.path()).execute(context);
+    assertEquals(13, context.data().resources.docs("").size());
+
+    new Set(MainOptions.SKIPCORRUPT, false).execute(context);
+    try {
+      new CreateDB(NAME, dir.path()).execute(context);
+      fail("Corrupt file was added to the database.");
+    } catch(final BaseXException ex) {
+      /* expected */
+    }
+    dir.delete();
+  }
+
+  /**
+   * Compares the documents of a database that has been created sequentially
+   * with the documents of a database that has been created in parallel.
+   * @param input input path
+   * @throws BaseXException database exception
+   */
+  private static void compare(final String input) throws BaseXException {
+    new Set(MainOptions.PARSETHREADS, 1).execute(context);
+    new CreateDB(NAME, input).execute(context);
+    final String expected = new XQuery(DOCS).execute(context);
+    new Set(MainOptions.PARSETHREADS, 4).execute(context);
+    new CreateDB(NAME, input).execute(context);
+    assertEquals(expected, new XQuery(DOCS).execute(context));
+  }
+}
@@ -0,0 +1,133 @@
+package org.basex.build;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.build.xml.*;
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.out.*;
+import org.basex.io.serial.*;
+import org.basex.query.value.node.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * Tests for the {@link XMLBufferParser}, which is expected to yield the same results
+ * as the {@link XMLParser}.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class XMLBufferParserTest extends SandboxTest {
+  /** Test documents. */
+  private static final String[] DOCS = {
+    "<x/>", " <x/> ", "<x>A</x>", "<x><x>", "<x/><x/>", "x<x/>", "<x/>x", "", "  ",
+    "<x>a&amp;b&lt;&gt;&quot;&apos;c</x>", "<x>&#65;&#x42;&#0;&#xZ;d&foo;e&amp</x>",
+    "<x a='1' b=\"2\" c='a&amp;b' d='l1\nl2\r\nl3\rl4'/>", "<x a='<'/>", "<x a='1/>",
+    "<x>\r\na\rb\r\n</x>", "<x><![CDATA[a<b]]>c]]&gt;<![CDATA[\r\n]]></x>", "<x>]]></x>",
+    "<?xml version='1.0' encoding='UTF-8'?><!--c--><?pi data ?><x><!-- a\r\nb -->" +
+    "<?p\r\nq?></x><!--e--><?z?>", "<?xml version='1.0' encoding='us-ascii'?><x/>",
+    "<x xmlns='A' xmlns:p='B'><p:y p:a='1' xml:space='preserve'> <z> </z></p:y></x>",
+    "<x><a xml:space='preserve'> <b xml:space='default'> </b> </a> </x>",
+    "<x><!-- a -- b --></x>", "<x><?xml ?></x>", "<x></y>", "</x>", "<x></x></x>",
+    "<x>ä中😀</x>", "<ä ö='ü'/>", "<x><y/ ></x>",
+    "<x a='1'b='2'/>", "<x 1='2'/>", "<x>&#1234567890123;</x>", "<x>a]b]]c</x>",
+    "\uFEFF<x/>", "<x><![CDATA[x</x>",
+    "<a:b:c/>", "<a:b/>", "<a:b></b>", "<x xmlns:a='A'><a:b:c/></x>", "<x a:b='1'/>",
+    "<x a:b:c='1'/>", "<x xmlns:a='A' a:b:c='1'/>", "<x:y xmlns:x='A'></x:y>",
+    "<x:y:z xmlns:x='A' xmlns:y='B'/>", "<x xmlns:a:b='A'/>", "<:x/>", "<x:/>"
+  };
+
+  /**
+   * Compares the results of both parsers.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void compare() throws IOException {
+    for(final boolean strip : new boolean[] { false, true }) {
+      for(final boolean chop : new boolean[] { false, true }) {
+        final MainOptions opts = new MainOptions();
+        opts.set(MainOptions.STRIPNS, strip);
+        opts.set(MainOptions.CHOP, chop);
+        for(final String doc : DOCS) compare(new IOContent(doc), opts);
+      }
+    }
+    // invalid UTF-8 sequences
+    compare(new IOContent(new byte[] { '<', 'x', '>', (byte) 0x80, 'a', (byte) 0xC3, 'b',
+        '<', '/', 'x', '>' }), new MainOptions());
+  }
+
+  /**
+   * Parses a file that exceeds the size of the input buffer.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void file() throws IOException {
+    final TokenBuilder tb = new TokenBuilder("<?xml version='1.0'?>\r\n<x>");
+    for(int i = 0; i < 20000; i++) {
+      tb.addExt("<a n='%' v='ä&amp;\n'>t中&lt;x\r\n<![CDATA[c]]></a>", i);
+      if(i % 1000 == 0) {
+        tb.add("<b>");
+        for(int j = 0; j < 100000; j++) tb.add('l');
+        tb.add("</b><!-- c --><?p i?>");
+      }
+    }
+    tb.add("</x>");
+    final IOFile file = new IOFile(sandbox(), NAME + IO.XMLSUFFIX);
+    file.write(tb.finish());
+
+    assertTrue(XMLBufferParser.supports(file));
+    compare(file, new MainOptions());
+  }
+
+  /**
+   * Checks which inputs are processed by the parser.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void supports() throws IOException {
+    assertTrue(XMLBufferParser.supports(new IOContent("<x/>")));
+    assertTrue(XMLBufferParser.supports(new IOContent("<?xml version='1.0'?><!--c--><x/>")));
+    assertFalse(XMLBufferParser.supports(new IOContent("<!DOCTYPE x><x/>")));
+    assertFalse(XMLBufferParser.supports(
+        new IOContent("<?xml version='1.0' encoding='ISO-8859-1'?><x/>")));
+    assertFalse(XMLBufferParser.supports(new IOContent("")));
+  }
+
+  /**
+   * Compares the results of both parsers.
+   * @param io input
+   * @param opts database options
+   */
+  private static void compare(final IO io, final MainOptions opts) {
+    final String expected = parse(io, opts, false), result = parse(io, opts, true);
+    // error messages may differ
+    if(expected.startsWith("!") && result.startsWith("!")) return;
+    assertEquals(io.toString(), expected, result);
+  }
+
+  /**
+   * Parses a document and returns its serialization, or an error string.
+   * @param io input
+   * @param opts database options
+   * @param buffer use buffer parser
+   * @return result
+   */
+  private static String parse(final IO io, final MainOptions opts, final boolean buffer) {
+    try {
+      final Parser parser = buffer ? new XMLBufferParser(io, opts) : new XMLParser(io, opts);
+      final Data data = MemBuilder.build(NAME, parser);
+      final ArrayOutput ao = new ArrayOutput();
+      final Serializer ser = Serializer.get(ao);
+      ser.serialize(new DBNode(data, 0));
+      ser.close();
+      return ao.toString();
+    } catch(final IOException ex) {
+      return "!" + ex.getMessage();
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package org.basex.data;
+
+import static org.basex.util.Token.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.in.DataInput;
+import org.junit.*;
+
+/**
+ * Tests for databases with texts and attribute values that are compressed in blocks.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class CompressedDataTest extends SandboxTest {
+  /** Test file. */
+  private static final String FILE = "src/test/resources/factbook.zip";
+  /** Updating queries. */
+  private static final String[] UPDATES = {
+    "for $t in (//text())[position() mod 3 = 0] return replace value of node $t with $t || 'x'",
+    "for $a in (//@*)[position() mod 4 = 0] return replace value of node $a with 'y'",
+    "delete node (//text())[position() mod 5 = 0]",
+    "for $e in (//*)[position() mod 50 = 0] return insert node <n a='{ name($e) }'>{" +
+      " string($e/@*[1]) }</n> into $e"
+  };
+  /** Query that checks the contents of the database. */
+  private static final String CHECK = "(xs:string(hash:md5(serialize(/)))," +
+    "string(sum(//text() ! string-length()) + sum(//@* ! string-length()))," +
+    "string(count(//*[text() = 'Europe'])), string(count(//*[@name = 'Germany'])))";
+
+  /**
+   * Resets the options and drops the database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void tearDown() throws BaseXException {
+    new Set(MainOptions.COMPRESS, false).execute(context);
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Compares the results of compressed and uncompressed databases.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void compare() throws BaseXException {
+    final String[] expected = run();
+    new Set(MainOptions.COMPRESS, true).execute(context);
+    assertArrayEquals(expected, run());
+    assertTrue(context.data().meta.compress);
+  }
+
+  /**
+   * Checks if the compression flag is preserved when a database is optimized.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void optimize() throws BaseXException {
+    new Set(MainOptions.COMPRESS, true).execute(context);
+    new CreateDB(NAME, FILE).execute(context);
+    final String expected = new XQuery(CHECK).execute(context);
+    new Set(MainOptions.COMPRESS, false).execute(context);
+    new OptimizeAll().execute(context);
+    assertTrue(context.data().meta.compress);
+    assertEquals(expected, new XQuery(CHECK).execute(context));
+  }
+
+  /**
+   * Checks if compressed databases are stored with the current storage version,
+   * which cannot be opened by older versions.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void storage() throws IOException {
+    new Set(MainOptions.COMPRESS, true).execute(context);
+    new CreateDB(NAME, FILE).execute(context);
+    final MetaData meta = context.data().meta;
+    new Close().execute(context);
+
+    final DataInput in = new DataInput(meta.dbfile(DataText.DATAINF));
+    try {
+      assertEquals(DataText.DBSTR, string(in.readToken()));
+      assertEquals(DataText.STORAGE, string(in.readToken()));
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Creates and updates a database and returns the query results.
+   * @return results
+   * @throws BaseXException database exception
+   */
+  private static String[] run() throws BaseXException {
+    new CreateDB(NAME, FILE).execute(context);
+    final int ul = UPDATES.length;
+    final String[] results = new String[ul + 2];
+    results[0] = new XQuery(CHECK).execute(context);
+    for(int u = 0; u < ul; u++) {
+      new XQuery(UPDATES[u]).execute(context);
+      results[u + 1] = new XQuery(CHECK).execute(context);
+    }
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    results[ul + 1] = new XQuery(CHECK).execute(context);
+    return results;
+  }
+}
@@ -2,9 +2,12 @@ package org.basex.data;
 
 import static org.junit.Assert.*;
 
+import java.io.*;
 import java.util.*;
 
 import org.basex.index.*;
+import org.basex.io.*;
+import org.basex.util.*;
 import org.basex.util.list.*;
 import org.junit.*;
 
@@ -102,6 +105,27 @@ public final class IdPreMapTest {
     }
   }
 
+  /**
+   * Correctness: writes the map to disk and reads it again.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void writeCorrectness() throws IOException {
+    for(int i = 0, cnt = BASEID + 1, id = BASEID + 1; i < ITERATIONS; ++i) {
+      if(RANDOM.nextBoolean() || cnt == 0) insert(RANDOM.nextInt(++cnt), id++);
+      else delete(RANDOM.nextInt(cnt--));
+    }
+    final IOFile file = new IOFile(Prop.TMP, Util.className(this));
+    try {
+      testedmap.write(file);
+      assertTrue(IdPreMap.valid(file));
+      testedmap = new IdPreMap(file);
+    } finally {
+      file.delete();
+    }
+    check();
+  }
+
   /** Insert performance: insert at random positions. */
   @Test
   public void insertPerformance() {
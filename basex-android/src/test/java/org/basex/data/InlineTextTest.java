@@ -0,0 +1,122 @@
+package org.basex.data;
+
+import static org.basex.data.DataText.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.in.DataInput;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.junit.*;
+
+/**
+ * Tests for values that are inlined in the table ({@link InlineText}).
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class InlineTextTest extends SandboxTest {
+  /** Query that checks the contents of the database. */
+  private static final String CHECK = "(serialize(/), //text() ! string-length()," +
+    "//@* ! string-length(), //*[@t = 'green'] ! name(), sum(//n))";
+
+  /**
+   * Drops the database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void tearDown() throws BaseXException {
+    new DropDB(NAME).execute(context);
+  }
+
+  /** Inlines and restores values. */
+  @Test
+  public void inline() {
+    final TokenSet dict = new TokenSet();
+    for(final String s : new String[] { "", "a", "ab12", "hello", "-1", "01", "123" }) {
+      final long o = InlineText.inline(Token.token(s));
+      assertTrue(s, InlineText.inlined(o));
+      assertEquals(s, Token.string(InlineText.token(o, dict)));
+      assertEquals(s.length(), InlineText.length(o, dict));
+    }
+    for(final String s : new String[] { "hello!", "ä", "2147483647" }) {
+      assertEquals(s, -1, InlineText.inline(Token.token(s)));
+    }
+    final long o = InlineText.dict(dict.put(Token.token("category")));
+    assertTrue(InlineText.inlined(o));
+    assertEquals("category", Token.string(InlineText.token(o, dict)));
+    assertEquals(8, InlineText.length(o, dict));
+    assertEquals(12, InlineText.itr(InlineText.inline(Token.token("12")), dict));
+  }
+
+  /**
+   * Creates and updates a database.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void database() throws BaseXException {
+    final String[] colors = { "green", "yellow", "purple", "orange" };
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 0; i < 1000; i++) {
+      sb.append("<a t='").append(colors[i % 4]).append("' u='unique").append(i).
+        append("'><b>x").append(i % 100).append("</b><n>").append(i).append("</n></a>");
+    }
+    final String xml = sb.append("</x>").toString();
+    new CreateDB(NAME, xml).execute(context);
+    final String expected = new XQuery(CHECK).execute(context);
+
+    // texts file only contains document name; only unique attribute values are stored
+    final DiskData data = (DiskData) context.data();
+    assertTrue(data.meta.dbfile(DATATXT).length() < 32);
+    assertTrue(data.meta.dbfile(DATAATV).length() > 0);
+
+    // results are identical to a main-memory database
+    new Set(MainOptions.MAINMEM, true).execute(context);
+    try {
+      new CreateDB(NAME, xml).execute(context);
+      assertEquals(expected, new XQuery(CHECK).execute(context));
+    } finally {
+      new Set(MainOptions.MAINMEM, false).execute(context);
+    }
+
+    // update values
+    final String update = "for $a in //a[position() mod 3 = 0] return (" +
+      "replace value of node $a/@t with 'orange'," +
+      "replace value of node $a/@u with 'u'," +
+      "replace value of node $a/b/text() with 'a longer text'," +
+      "insert node attribute v { 'purple' } into $a)";
+    new XQuery(update).execute(context);
+    final String updated = new XQuery(CHECK).execute(context);
+
+    new CreateDB(NAME, xml).execute(context);
+    new XQuery(update).execute(context);
+    assertEquals(updated, new XQuery(CHECK).execute(context));
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    assertEquals(updated, new XQuery(CHECK).execute(context));
+  }
+
+  /**
+   * Checks if databases with inlined values and a dictionary are stored with the
+   * current storage version, which cannot be opened by older versions.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void storage() throws IOException {
+    new CreateDB(NAME, "<x><a t='green'/><a t='green'/><a t='yellow'/></x>").execute(context);
+    final MetaData meta = context.data().meta;
+    new Close().execute(context);
+
+    final DataInput in = new DataInput(meta.dbfile(DATAINF));
+    try {
+      assertEquals(DBSTR, Token.string(in.readToken()));
+      assertEquals(STORAGE, Token.string(in.readToken()));
+    } finally {
+      in.close();
+    }
+  }
+}
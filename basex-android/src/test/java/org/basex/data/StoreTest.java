@@ -1,9 +1,18 @@
 package org.basex.data;
 
+import static org.basex.util.Token.*;
 import static org.junit.Assert.*;
 
+import java.io.*;
+
+import org.basex.build.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
 import org.basex.*;
 import org.junit.*;
 
@@ -42,6 +51,29 @@ public final class StoreTest extends SandboxTest {
     run(new Set(MainOptions.UPDINDEX, false));
   }
 
+  /**
+   * Checks if databases with a newer storage version are rejected.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void storage() throws IOException {
+    // older versions must reject databases with the current storage format
+    assertTrue(new Version(DataText.STORAGE).compareTo(new Version("7.8")) > 0);
+
+    final ArrayOutput ao = new ArrayOutput();
+    final DataOutput out = new DataOutput(ao);
+    out.writeToken(token(DataText.DBSTR));
+    out.writeToken(token("99.0"));
+    out.writeToken(EMPTY);
+    out.close();
+    try {
+      new MetaData(context.options).read(new DataInput(new IOContent(ao.toArray())));
+      fail("Newer storage version was accepted.");
+    } catch(final BuildException ex) {
+      // expected
+    }
+  }
+
   /**
    * Replaces text nodes with random double values.
    * @throws BaseXException database exception
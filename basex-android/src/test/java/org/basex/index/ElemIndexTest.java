@@ -0,0 +1,189 @@
+package org.basex.index;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.List;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.*;
+import org.junit.runner.*;
+import org.junit.runners.*;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * This class tests the element name index, which is used for descendant steps,
+ * and which must be consistent after updates.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+@RunWith(Parameterized.class)
+public final class ElemIndexTest extends SandboxTest {
+  /** Queries to be checked. */
+  private static final String[] QUERIES = {
+    "//b/@id/string()", "//c/@id/string()", "/a//a//b/@id/string()",
+    "//a/descendant-or-self::a/@id/string()", "//x:b/@id/string()", "count(//*:b)",
+    "//b[2]/@id/string()", "//d/@id/string()"
+  };
+
+  /** Main-memory flag. */
+  private final boolean mainmem;
+  /** Flag for automatic index updates. */
+  private final boolean updindex;
+
+  /**
+   * Constructor.
+   * @param mm main-memory flag
+   * @param ui flag for automatic index updates
+   */
+  public ElemIndexTest(final boolean mm, final boolean ui) {
+    mainmem = mm;
+    updindex = ui;
+  }
+
+  /**
+   * Test parameters.
+   * @return parameters
+   */
+  @Parameters
+  public static Collection<Object[]> params() {
+    final List<Object[]> params = new ArrayList<Object[]>();
+    params.add(new Object[] { false, false });
+    params.add(new Object[] { false, true });
+    params.add(new Object[] { true, false });
+    return params;
+  }
+
+  /**
+   * Creates the test database.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void init() throws BaseXException {
+    context.options.set(MainOptions.MAINMEM, mainmem);
+    context.options.set(MainOptions.UPDINDEX, updindex);
+    new CreateDB(NAME, "<a id='0' xmlns:x='x'><b id='1'><a id='2'><b id='3'/></a></b>" +
+        "<c id='4'><b id='5'/><x:b id='6'/></c></a>").execute(context);
+  }
+
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    context.options.set(MainOptions.MAINMEM, false);
+    context.options.set(MainOptions.UPDINDEX, false);
+    context.options.set(MainOptions.ELEMINDEX, MainOptions.ELEMINDEX.value());
+  }
+
+  /**
+   * Queries the initial database.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void query() throws BaseXException {
+    check();
+    assertEquals("1 3 5", query("//b/@id/string()"));
+    assertEquals("3", query("/a/b//b/@id/string()"));
+  }
+
+  /**
+   * Inserts nodes.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void insert() throws BaseXException {
+    check();
+    update("insert node <b id='7'><d id='8'/></b> into //c");
+    update("insert node <b id='9'/> before /a/b");
+    update("insert node <c id='10'><b id='11'/></c> after //a[@id = '2']/b");
+    update("insert node attribute n { 1 } into (//c)[1]");
+    update("insert node <a id='12'><b id='13'/><d/></a> as first into /a/b[@id = '1']");
+    assertEquals("9 1 13 3 11 5 7", query("//b/@id/string()"));
+  }
+
+  /**
+   * Deletes nodes.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void delete() throws BaseXException {
+    check();
+    update("delete node //b[@id = '5']");
+    update("delete node //@id[. = '4']");
+    update("delete node /a/b/a");
+    assertEquals("1", query("//b/@id/string()"));
+    update("insert node <b id='7'/> into /a");
+    update("delete node /a/b[1]");
+    assertEquals("7", query("//b/@id/string()"));
+  }
+
+  /**
+   * Replaces and renames nodes.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void replace() throws BaseXException {
+    check();
+    update("replace node /a/b with <c id='7'><b id='8'/><b id='9'/></c>");
+    update("replace node //b[@id = '5'] with <b id='10'/>");
+    update("rename node //c[@id = '4'] as 'b'");
+    update("rename node //b[@id = '8'] as 'e'");
+    update("rename node //x:b as 'x:c'");
+    update("rename node //b[@id = '9'] as 'x:b'");
+    assertEquals("4 10", query("//b/@id/string()"));
+    update("replace node //*[@id = '4'] with <b id='11'><b id='12'/></b>");
+    assertEquals("11 12", query("//b/@id/string()"));
+  }
+
+  /**
+   * Performs bulk updates.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void bulk() throws BaseXException {
+    check();
+    update("for $i in 1 to 100 return insert node <b id='{ $i + 10 }'><c/></b> into //c");
+    update("for $b in //b[@id mod 3 = 0] return delete node $b");
+    update("for $b in //b[@id mod 5 = 0] return rename node $b as 'd'");
+    update("for $c in //c[@id] return insert node <b id='0'/> as first into $c");
+  }
+
+  /**
+   * Performs an update and checks the results of the test queries.
+   * @param update updating query
+   * @throws BaseXException database exception
+   */
+  private void update(final String update) throws BaseXException {
+    query(update);
+    check();
+  }
+
+  /**
+   * Compares the results of the test queries with and without element name index.
+   * @throws BaseXException database exception
+   */
+  private static void check() throws BaseXException {
+    for(final String query : QUERIES) {
+      context.options.set(MainOptions.ELEMINDEX, false);
+      final String expected = query(query);
+      context.options.set(MainOptions.ELEMINDEX, true);
+      assertEquals(query, expected, query(query));
+    }
+  }
+
+  /**
+   * Evaluates a query.
+   * @param query query
+   * @return result
+   * @throws BaseXException database exception
+   */
+  private static String query(final String query) throws BaseXException {
+    return new XQuery("declare namespace x='x'; " + query).execute(context);
+  }
+}
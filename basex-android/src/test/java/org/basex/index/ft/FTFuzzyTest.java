@@ -0,0 +1,69 @@
+package org.basex.index.ft;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.basex.util.*;
+import org.basex.util.list.*;
+import org.junit.*;
+
+/**
+ * Tests for class {@link FTFuzzy}.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class FTFuzzyTest {
+  /**
+   * Compares the results with the ones of the Levenshtein implementation.
+   */
+  @Test
+  public void levenshtein() {
+    final Random rnd = new Random(0);
+    final Levenshtein ls = new Levenshtein();
+    for(int q = 0; q < 50; q++) {
+      final byte[] query = token(rnd, 3 + rnd.nextInt(8));
+      for(int l = Math.max(1, query.length - 2); l <= query.length + 2; l++) {
+        final TokenList tl = new TokenList();
+        for(int t = 0; t < 500; t++) tl.add(token(rnd, l));
+        final FTFuzzy fz = new FTFuzzy(query, 0);
+        byte[] prefix = null;
+        for(final byte[] t : tl.sort(true)) {
+          final int d = fz.match(t);
+          final boolean sim = ls.similar(t, query, 0);
+          assertEquals(Token.string(t) + "/" + Token.string(query), sim, d == -1);
+          // no token with a returned prefix must be similar
+          if(prefix != null && Token.startsWith(t, prefix)) assertFalse(sim);
+          if(d > 0) prefix = Arrays.copyOf(t, d);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests the pruning of dissimilar prefixes.
+   */
+  @Test
+  public void prefix() {
+    final FTFuzzy fz = new FTFuzzy(Token.token("house"), 1);
+    assertEquals(-1, fz.match(Token.token("hous")));
+    assertEquals(-1, fz.match(Token.token("houses")));
+    assertEquals(-1, fz.match(Token.token("mouse")));
+    assertEquals(-1, fz.match(Token.token("hosue")));
+    assertEquals(2, fz.match(Token.token("xxuse")));
+    assertEquals(4, fz.match(Token.token("hoxxe")));
+  }
+
+  /**
+   * Returns a random token with a small alphabet.
+   * @param rnd random generator
+   * @param l length
+   * @return token
+   */
+  private static byte[] token(final Random rnd, final int l) {
+    final byte[] t = new byte[l];
+    for(int i = 0; i < l; i++) t[i] = (byte) ('a' + rnd.nextInt(4));
+    return t;
+  }
+}
@@ -0,0 +1,106 @@
+package org.basex.index.value;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+import org.junit.*;
+
+/**
+ * Tests for class {@link MergeIterator}.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class MergeIteratorTest {
+  /** Temporary file. */
+  private IOFile file;
+  /** File access. */
+  private DataAccess da;
+
+  /**
+   * Creates the temporary file.
+   * @throws IOException I/O exception
+   */
+  @Before
+  public void setUp() throws IOException {
+    file = new IOFile(File.createTempFile("ids", IO.BASEXSUFFIX));
+    da = new DataAccess(file);
+  }
+
+  /**
+   * Closes and deletes the temporary file.
+   */
+  @After
+  public void tearDown() {
+    da.close();
+    file.delete();
+  }
+
+  /**
+   * Iterates over a single list.
+   */
+  @Test
+  public void single() {
+    final int[] ids = { 1, 5, 100, 20000, 1 << 30 };
+    final long[] offsets = { write(ids) };
+    assertArrayEquals(ids, pres(new MergeIterator(da, offsets, new int[] { 5 }, 5)));
+  }
+
+  /**
+   * Merges several lists, including an empty one.
+   */
+  @Test
+  public void merge() {
+    final Random rnd = new Random(0);
+    final int ls = 50;
+    final long[] offsets = new long[ls];
+    final int[] counts = new int[ls];
+    final IntList all = new IntList();
+    int s = 0;
+    for(int l = 0; l < ls; l++) {
+      final IntList il = new IntList();
+      final int c = l == 7 ? 0 : rnd.nextInt(100);
+      for(int i = 0; i < c; i++) {
+        il.add(i * ls + l);
+        all.add(i * ls + l);
+      }
+      offsets[l] = write(il.toArray());
+      counts[l] = c;
+      s += c;
+    }
+    final MergeIterator mi = new MergeIterator(da, offsets, counts, s);
+    assertEquals(s, mi.size());
+    assertArrayEquals(all.sort().toArray(), pres(mi));
+  }
+
+  /**
+   * Appends an id list with the distances of the specified ids to the file.
+   * @param ids ids
+   * @return offset to the first id
+   */
+  private long write(final int[] ids) {
+    final int s = ids.length;
+    final int[] dist = new int[s];
+    for(int i = 0; i < s; i++) dist[i] = ids[i] - (i == 0 ? 0 : ids[i - 1]);
+    final long o = da.length();
+    da.writeNums(o, dist);
+    return o + Num.length(s);
+  }
+
+  /**
+   * Returns all pre values of the specified iterator.
+   * @param mi iterator
+   * @return pre values
+   */
+  private static int[] pres(final MergeIterator mi) {
+    final IntList il = new IntList();
+    while(mi.more()) il.add(mi.pre());
+    return il.toArray();
+  }
+}
@@ -0,0 +1,121 @@
+package org.basex.index.value;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.*;
+
+/**
+ * Tests for building value and full-text indexes in parallel and by merging partial
+ * index structures.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class ValueIndexBuilderTest extends SandboxTest {
+  /** Queries that access the index structures. */
+  private static final String[] QUERIES = {
+    "count(//a[text() = '17'])",
+    "string-join(for $i in (0 to 50) return string(count(//a[text() = string($i)])), ',')",
+    "string-join(for $i in (0 to 50) return string(count(//a[@v = string($i * 3)])), ',')",
+    "count(//a[text() = '41' or @v = 'x'])",
+    "count(//a[number(text()) > 30 and number(text()) <= 35])",
+    "count(//a[text() contains text 'word7'])",
+    "string-join(for $i in (0 to 20) return " +
+      "string(count(//b[text() contains text { 'w' || $i }])), ',')"
+  };
+
+  /**
+   * Creates the test database.
+   * @throws BaseXException database exception
+   */
+  private static void create() throws BaseXException {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 0; i < 20000; i++) {
+      sb.append("<a v='").append(i * 7 % 500).append("'>").append(i * 13 % 997).
+        append("</a><b>w").append(i % 31).append(" word").append(i % 11).append("</b>");
+    }
+    new CreateDB(NAME, sb.append("</x>").toString()).execute(context);
+  }
+
+  /**
+   * Drops the database and resets the options.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(MainOptions.INDEXTHREADS, MainOptions.INDEXTHREADS.value()).execute(context);
+    new Set(MainOptions.INDEXSPLITSIZE, MainOptions.INDEXSPLITSIZE.value()).execute(context);
+    new Set(MainOptions.FTINDEXSPLITSIZE,
+        MainOptions.FTINDEXSPLITSIZE.value()).execute(context);
+    new Set(MainOptions.TEXTINDEX, true).execute(context);
+    new Set(MainOptions.ATTRINDEX, true).execute(context);
+    new Set(MainOptions.FTINDEX, false).execute(context);
+  }
+
+  /**
+   * Compares query results of indexes built in a single step, with merged partial
+   * indexes, and in parallel.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void build() throws BaseXException {
+    // results without index structures
+    new Set(MainOptions.TEXTINDEX, false).execute(context);
+    new Set(MainOptions.ATTRINDEX, false).execute(context);
+    create();
+    final String[] expected = results();
+
+    new Set(MainOptions.TEXTINDEX, true).execute(context);
+    new Set(MainOptions.ATTRINDEX, true).execute(context);
+    new Set(MainOptions.FTINDEX, true).execute(context);
+    create();
+    check(expected);
+
+    // partial indexes are merged
+    new Set(MainOptions.INDEXSPLITSIZE, 1000).execute(context);
+    new Set(MainOptions.FTINDEXSPLITSIZE, 1000).execute(context);
+    new OptimizeAll().execute(context);
+    check(expected);
+
+    // indexes are built in parallel
+    new Set(MainOptions.INDEXTHREADS, 3).execute(context);
+    create();
+    check(expected);
+    new OptimizeAll().execute(context);
+    check(expected);
+    new CreateIndex("text").execute(context);
+    check(expected);
+  }
+
+  /**
+   * Checks the query results and ensures that the indexes exist.
+   * @param expected expected results
+   */
+  private static void check(final String[] expected) {
+    assertTrue(context.data().meta.textindex);
+    assertTrue(context.data().meta.attrindex);
+    assertTrue(context.data().meta.ftxtindex);
+    assertArrayEquals(expected, results());
+  }
+
+  /**
+   * Returns the results of all queries.
+   * @return results
+   */
+  private static String[] results() {
+    final int ql = QUERIES.length;
+    final String[] results = new String[ql];
+    for(int q = 0; q < ql; q++) {
+      try {
+        results[q] = new XQuery(QUERIES[q]).execute(context);
+      } catch(final BaseXException ex) {
+        fail(ex.getMessage());
+      }
+    }
+    return results;
+  }
+}
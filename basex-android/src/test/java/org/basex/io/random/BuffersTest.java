@@ -0,0 +1,95 @@
+package org.basex.io.random;
+
+import static org.junit.Assert.*;
+
+import org.basex.util.list.*;
+import org.junit.*;
+
+/**
+ * Tests for class {@link Buffers}.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class BuffersTest {
+  /**
+   * Checks that buffered blocks are found again and counted as hits.
+   */
+  @Test
+  public void hits() {
+    final Buffers bm = new Buffers(4);
+    for(int b = 0; b < 4; b++) {
+      assertTrue(bm.cursor(b));
+      bm.current().pos = b;
+    }
+    for(int b = 3; b >= 0; b--) {
+      assertFalse(bm.cursor(b));
+      assertEquals(b, bm.current().pos);
+    }
+    assertArrayEquals(new String[] { "4", "4", "4", "0" }, stats(bm));
+  }
+
+  /**
+   * Checks that frequently used blocks survive a scan over other blocks.
+   */
+  @Test
+  public void evictions() {
+    final Buffers bm = new Buffers(4);
+    // reference block 0 several times
+    assertTrue(bm.cursor(0));
+    bm.current().pos = 0;
+    for(int i = 0; i < 3; i++) {
+      assertTrue(bm.cursor(100 + i));
+      bm.current().pos = 100 + i;
+      assertFalse(bm.cursor(0));
+    }
+    // scan over other blocks
+    for(int b = 1; b < 6; b++) {
+      assertTrue(bm.cursor(b));
+      bm.current().pos = b;
+    }
+    assertFalse(bm.cursor(0));
+    assertEquals(0, bm.current().pos);
+  }
+
+  /**
+   * Checks that the current buffer is never chosen as victim.
+   */
+  @Test
+  public void current() {
+    final Buffers bm = new Buffers(2);
+    assertTrue(bm.cursor(0));
+    final Buffer bf = bm.current();
+    bf.pos = 0;
+    assertTrue(bm.cursor(1));
+    assertNotSame(bf, bm.current());
+  }
+
+  /**
+   * Checks that restoring a buffer is not counted as access.
+   */
+  @Test
+  public void restore() {
+    final Buffers bm = new Buffers(4);
+    assertTrue(bm.cursor(0));
+    bm.current().pos = 0;
+    final int o = bm.offset();
+    assertTrue(bm.cursor(1));
+    bm.current().pos = 1;
+    assertTrue(bm.restore(o, 0));
+    assertEquals(0, bm.current().pos);
+    assertFalse(bm.restore(o, 1));
+    assertArrayEquals(new String[] { "4", "0", "2", "0" }, stats(bm));
+  }
+
+  /**
+   * Returns the statistics of the specified buffer manager.
+   * @param bm buffer manager
+   * @return statistics
+   */
+  private static String[] stats(final Buffers bm) {
+    final TokenList tl = new TokenList();
+    bm.info(tl);
+    return tl.toStringArray();
+  }
+}
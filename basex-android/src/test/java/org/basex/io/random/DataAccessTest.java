@@ -3,6 +3,7 @@ package org.basex.io.random;
 import static org.junit.Assert.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.io.*;
 import org.basex.util.*;
@@ -196,6 +197,54 @@ public class DataAccessTest {
     assertEquals(STR, Token.string(da.readToken(BLOCK_BOUNDARY_POS)));
   }
 
+  /** Test method for {@link DataAccess#num(long)}. */
+  @Test
+  public final void testNum() {
+    long off = STR_BIN.length + BYTE_BIN.length + LONG_BIN.length +
+        INT_BIN.length;
+    da.cursor(0);
+    assertEquals(CINT5, da.num(off));
+    off += CINT5_BIN.length;
+    assertEquals(CINT4, da.num(off));
+    off += CINT4_BIN.length;
+    assertEquals(CINT2, da.num(off));
+    off += CINT2_BIN.length;
+    assertEquals(CINT1, da.num(off));
+    // file cursor must not be changed
+    assertEquals(0L, da.cursor());
+  }
+
+  /** Test method for {@link DataAccess#token(long)}. */
+  @Test
+  public final void testToken() {
+    assertEquals(STR, Token.string(da.token(0L)));
+    assertEquals(STR, Token.string(da.token(BLOCK_BOUNDARY_POS)));
+    // modifications must be visible to subsequent reads
+    da.writeToken(0L, Token.token(STR.toUpperCase(Locale.ENGLISH)));
+    assertEquals(STR.toUpperCase(Locale.ENGLISH), Token.string(da.token(0L)));
+  }
+
+  /**
+   * Test method for reading and writing memory-mapped files.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public final void testMapped() throws IOException {
+    da.close();
+    da = new DataAccess(file, 16, true);
+    assertEquals(STR, Token.string(da.readToken(0L)));
+    assertEquals(STR, Token.string(da.token(BLOCK_BOUNDARY_POS)));
+    final long off = STR_BIN.length + BYTE_BIN.length + LONG_BIN.length +
+        INT_BIN.length;
+    da.cursor(off);
+    assertEquals(CINT5, da.readNum());
+    assertEquals(CINT4, da.readNum());
+    // first write operation discards the mapping
+    da.write4(off, INT);
+    assertEquals(INT, da.read4(off));
+    assertEquals(STR, Token.string(da.readToken(0L)));
+  }
+
   /** Test method for {@link DataAccess#readToken()}. */
   @Test
   public final void testReadToken() {
@@ -341,6 +390,23 @@ public class DataAccessTest {
     assertContent(pos, CINT1_BIN);
   }
 
+  /**
+   * Test method for {@link DataAccess#token(long)}, called during an update.
+   */
+  @Test
+  public final void testTokenUpdate() {
+    final long pos = RANDOM_POS;
+    // cache block in the current thread
+    da.num(pos);
+    da.writeToken(pos, Token.token(STR_LONG));
+    final long cursor = da.cursor();
+    // written token is visible; cursor is not changed
+    assertEquals(STR_LONG, Token.string(da.token(pos)));
+    assertEquals(cursor, da.cursor());
+    da.flush();
+    assertEquals(STR_LONG, Token.string(da.token(pos)));
+  }
+
   /** Test method for {@link DataAccess#free(long, int)}. */
   @Ignore
   @Test
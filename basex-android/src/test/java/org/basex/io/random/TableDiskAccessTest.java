@@ -0,0 +1,106 @@
+package org.basex.io.random;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * Tests for class {@link TableDiskAccess}, which compare the results of tables that are
+ * accessed via buffers and via a memory mapping ({@link MainOptions#MMAP}).
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class TableDiskAccessTest extends SandboxTest {
+  /** Number of elements. */
+  private static final int SIZE = 20000;
+
+  /**
+   * Creates the test database.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void init() throws BaseXException {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 0; i < SIZE; i++) {
+      sb.append("<a n='").append(i).append("'>t").append(i).append("<!--c--></a>");
+    }
+    new CreateDB(NAME, sb.append("</x>").toString()).execute(context);
+  }
+
+  /**
+   * Resets the options and drops the database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new Set(MainOptions.MMAP, false).execute(context);
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Compares the entries of a table with a regular page index.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void regular() throws BaseXException {
+    compare();
+  }
+
+  /**
+   * Compares the entries of a table whose pages have been reordered by updates.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void updated() throws BaseXException {
+    new XQuery("for $a in //a[position() mod 500 = 0] return (" +
+      "insert node <b c='{ $a/@n }'>{ (1 to 100) ! <c>{ . }</c> }</b> into $a," +
+      "delete node $a/comment())").execute(context);
+    new XQuery("delete node //a[position() mod 700 = 0]").execute(context);
+    compare();
+  }
+
+  /**
+   * Opens the database with and without memory mapping and compares all entries.
+   * @throws BaseXException database exception
+   */
+  private static void compare() throws BaseXException {
+    final String[] expected = nodes(false), mapped = nodes(true);
+    assertEquals(expected.length, mapped.length);
+    for(int pre = 0; pre < expected.length; pre++) {
+      assertEquals("pre " + pre, expected[pre], mapped[pre]);
+    }
+  }
+
+  /**
+   * Opens the database and returns a string representation of all nodes.
+   * @param mmap memory mapping
+   * @return nodes
+   * @throws BaseXException database exception
+   */
+  private static String[] nodes(final boolean mmap) throws BaseXException {
+    new Set(MainOptions.MMAP, mmap).execute(context);
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+
+    final Data data = context.data();
+    // table must be larger than a single block
+    assertTrue(data.meta.size << IO.NODEPOWER > IO.BLOCKSIZE);
+    final String[] nodes = new String[data.meta.size];
+    for(int pre = 0; pre < nodes.length; pre++) {
+      final int kind = data.kind(pre);
+      final TokenBuilder tb = new TokenBuilder();
+      tb.addExt("%/%/%/", kind, data.size(pre, kind), data.parent(pre, kind));
+      if(kind == Data.ELEM || kind == Data.ATTR) tb.add(data.name(pre, kind));
+      if(kind != Data.ELEM) tb.add('/').add(data.text(pre, kind != Data.ATTR));
+      nodes[pre] = tb.toString();
+    }
+    return nodes;
+  }
+}
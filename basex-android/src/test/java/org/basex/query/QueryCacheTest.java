@@ -0,0 +1,194 @@
+package org.basex.query;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.*;
+
+/**
+ * This class tests the cache for compiled queries.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCacheTest extends SandboxTest {
+  /**
+   * Enables the cache and creates the test database.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void init() throws BaseXException {
+    context.queries.close();
+    new Set(MainOptions.QUERYCACHE, 16).execute(context);
+    new CreateDB(NAME, "<a><b>1</b><b>2</b></a>").execute(context);
+  }
+
+  /**
+   * Drops the test database and disables the cache.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    assertEquals(0, context.queries.size());
+    new Set(MainOptions.QUERYCACHE, MainOptions.QUERYCACHE.value()).execute(context);
+  }
+
+  /**
+   * Evaluates a cached query several times.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void reuse() throws BaseXException {
+    final String query = "declare function local:f($x) { $x * 2 }; " +
+        "for $b in //b return local:f($b)";
+    for(int i = 0; i < 3; i++) {
+      assertEquals("2 4", new XQuery(query).execute(context));
+      assertEquals(1, context.queries.size());
+    }
+    assertEquals("1", new XQuery("//b[1]/text()").execute(context));
+    assertEquals(2, context.queries.size());
+  }
+
+  /**
+   * Checks that different bindings result in different cache entries.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void bind() throws BaseXException {
+    final String query = "declare variable $n external; //b[. = $n] + 1";
+    assertEquals("2", new XQuery(query).bind("n", "1").execute(context));
+    assertEquals("3", new XQuery(query).bind("n", "2").execute(context));
+    assertEquals("2", new XQuery(query).bind("n", "1").execute(context));
+    assertEquals(2, context.queries.size());
+  }
+
+  /**
+   * Checks that cached queries are recompiled after updates and index changes.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void invalidate() throws BaseXException {
+    final String count = "count(//b)", text = "//b[text() = '3']/text()";
+    assertEquals("2", new XQuery(count).execute(context));
+    assertEquals("", new XQuery(text).execute(context));
+    new XQuery("insert node <b>3</b> into /a").execute(context);
+    assertEquals("3", new XQuery(count).execute(context));
+    assertEquals("3", new XQuery(text).execute(context));
+    new CreateIndex("text").execute(context);
+    assertEquals("3", new XQuery(text).execute(context));
+    new DropIndex("text").execute(context);
+    assertEquals("3", new XQuery(text).execute(context));
+  }
+
+  /**
+   * Checks that databases referenced by cached queries can be dropped and altered.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void drop() throws BaseXException {
+    new Close().execute(context);
+    assertEquals("2", new XQuery("count(db:open('" + NAME + "')//b)").execute(context));
+    assertEquals(1, context.queries.size());
+    new AlterDB(NAME, NAME + '2').execute(context);
+    new AlterDB(NAME + '2', NAME).execute(context);
+    assertEquals(0, context.queries.size());
+  }
+
+  /**
+   * Checks that databases referenced by cached queries are only released if they are
+   * replaced, and not if it is only checked whether they are pinned.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void pinned() throws BaseXException {
+    new Close().execute(context);
+    assertEquals("2", new XQuery("count(db:open('" + NAME + "')//b)").execute(context));
+    assertTrue(context.pinned(NAME));
+    assertEquals(1, context.queries.size());
+    new CreateDB(NAME, "<a/>").execute(context);
+    assertEquals(0, context.queries.size());
+  }
+
+  /**
+   * Checks queries that will not be cached.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void uncached() throws BaseXException {
+    new XQuery("insert node <b>3</b> into /a").execute(context);
+    new XQuery("current-dateTime()").execute(context);
+    new XQuery("declare option db:chop 'false'; 1").execute(context);
+    assertEquals(0, context.queries.size());
+
+    new Set(MainOptions.QUERYCACHE, 0).execute(context);
+    new XQuery("1").execute(context);
+    assertEquals(0, context.queries.size());
+  }
+
+  /**
+   * Checks that queries with stateful functions are not cached.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void stateful() throws BaseXException {
+    final String list = "count(db:list())";
+    final int count = Integer.parseInt(new XQuery(list).execute(context));
+    new CreateDB(NAME + '2').execute(context);
+    new Open(NAME).execute(context);
+    try {
+      assertEquals(String.valueOf(count + 1), new XQuery(list).execute(context));
+    } finally {
+      new DropDB(NAME + '2').execute(context);
+    }
+
+    final String random = "declare variable $r := random:integer(1000000); $r";
+    final String first = new XQuery(random).execute(context);
+    String next = first;
+    for(int i = 0; i < 10 && next.equals(first); i++) {
+      next = new XQuery(random).execute(context);
+    }
+    assertFalse(first.equals(next));
+    assertEquals(0, context.queries.size());
+  }
+
+  /**
+   * Evaluates a cached query with query info in parallel and several runs.
+   * @throws Exception exception
+   */
+  @Test
+  public void concurrent() throws Exception {
+    final String query = "for $b in //b return $b * 2";
+    new Set(MainOptions.QUERYINFO, true).execute(context);
+    new Set(MainOptions.RUNS, 2).execute(context);
+    try {
+      final Throwable[] errors = new Throwable[1];
+      final Thread[] threads = new Thread[4];
+      for(int t = 0; t < threads.length; t++) {
+        threads[t] = new Thread() {
+          @Override
+          public void run() {
+            try {
+              for(int i = 0; i < 50; i++) {
+                final XQuery xq = new XQuery(query);
+                assertEquals("2 4", xq.execute(context));
+                assertTrue(xq.info(), xq.info().contains(query));
+              }
+            } catch(final Throwable th) {
+              errors[0] = th;
+            }
+          }
+        };
+        threads[t].start();
+      }
+      for(final Thread thread : threads) thread.join();
+      if(errors[0] != null) throw new AssertionError(errors[0]);
+      assertEquals(1, context.queries.size());
+    } finally {
+      new Set(MainOptions.QUERYINFO, false).execute(context);
+      new Set(MainOptions.RUNS, 1).execute(context);
+    }
+  }
+}
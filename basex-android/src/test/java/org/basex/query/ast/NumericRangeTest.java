@@ -0,0 +1,93 @@
+package org.basex.query.ast;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.expr.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests if numeric range queries are correctly evaluated with(out) the index.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class NumericRangeTest extends QueryPlanTest {
+  /** Range access in the query plan. */
+  private static final String RANGE = "exists(//" + Util.className(RangeAccess.class) + ')';
+
+  /**
+   * Creates the test database.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void init() throws BaseXException {
+    create();
+  }
+
+  /**
+   * Finishes the tests.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(MainOptions.UPDINDEX, false).execute(context);
+  }
+
+  /**
+   * Tests range queries.
+   */
+  @Test
+  public void range() {
+    check("count(//n[text() >= 990 and text() <= 999])", "10", RANGE);
+    check("count(//d[text() >= 990 and text() <= 999])", "9", RANGE);
+    check("count(//d[text() >= 10.5 and text() <= 20])", "10", RANGE);
+    check("count(//n[text() >= 1 and text() <= 1000])", "1000", RANGE);
+    check("count(//n[text() >= 2000 and text() <= 3000])", "0");
+    check("sum(//n[text() >= 1 and text() <= 4])", "10", RANGE);
+  }
+
+  /**
+   * Tests open ranges, which are only rewritten if few results are expected.
+   */
+  @Test
+  public void open() {
+    check("count(//n[text() >= 995])", "6", RANGE);
+    check("count(//d[text() <= 3])", "2", RANGE);
+    check("count(//n[text() >= 10])", "991", "empty(//" + Util.className(RangeAccess.class) + ')');
+  }
+
+  /**
+   * Tests range queries after updates.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void update() throws BaseXException {
+    new Set(MainOptions.UPDINDEX, true).execute(context);
+    create();
+    check("count(//n[text() >= 2 and text() <= 9])", "8", RANGE);
+    new XQuery("insert node <n>3</n> into /xml").execute(context);
+    new XQuery("delete node //n[. = 5]").execute(context);
+    check("count(//n[text() >= 2 and text() <= 9])", "8");
+    new Optimize().execute(context);
+    check("count(//n[text() >= 2 and text() <= 9])", "8", RANGE);
+    check("count(//n[text() >= 3 and text() <= 4])", "3", RANGE);
+  }
+
+  /**
+   * Creates the test database.
+   * @throws BaseXException database exception
+   */
+  private static void create() throws BaseXException {
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add("<xml>");
+    for(int i = 1000; i > 0; i--) {
+      tb.add("<n>").addInt(i).add("</n>");
+      tb.add("<d>").addInt(i).add(".5</d>");
+      tb.add("<x>x").addInt(i).add("</x>");
+    }
+    tb.add("</xml>");
+    new CreateDB(NAME, tb.toString()).execute(context);
+  }
+}
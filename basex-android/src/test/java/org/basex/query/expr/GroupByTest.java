@@ -0,0 +1,93 @@
+package org.basex.query.expr;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.*;
+import org.basex.query.util.*;
+import org.junit.*;
+
+/**
+ * Tests for the {@code group by} clause, which may write partitions to disk, and which
+ * aggregates values that are only counted or summed up.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class GroupByTest extends AdvancedQueryTest {
+  /** Resets the memory limit. */
+  @After
+  public void reset() {
+    context.options.set(MainOptions.GROUPMEM, MainOptions.GROUPMEM.value());
+  }
+
+  /** Groups tuples; the order of the values in a group must be preserved. */
+  @Test
+  public void values() {
+    compare("for $i in 1 to 200000 let $s := 'a' || $i group by $k := $i mod 70000 " +
+        "order by $k return $k || ':' || $s[1] || ':' || $s[last()] || ':' || count($s)");
+    compare("for $i in 1 to 100000 group by $a := $i mod 3, $b := string($i mod 20000) " +
+        "order by $a, $b return $b || ':' || string-join(subsequence($i, 1, 3) ! string(), ',')");
+    compare("for $i in 1 to 100000 let $e := if($i mod 3 = 0) then () else $i " +
+        "group by $k := if($i mod 5 = 0) then () else $i mod 30000 " +
+        "order by $k return $k || ':' || count($e) || ':' || $e[last()]");
+  }
+
+  /** Counts and sums up the values of the groups. */
+  @Test
+  public void aggregate() {
+    compare("for $i in 1 to 200000 let $d := $i div 2 group by $k := $i mod 70000 " +
+        "order by $k return count($i) + sum($d)");
+    compare("for $i in 1 to 200000 group by $k := $i mod 70000 " +
+        "where count($i) > 2 order by $k return sum($i)");
+    compare("for $i in 1 to 200000 let $d := xs:decimal($i) group by $k := $i mod 70000 " +
+        "order by sum($d) descending return count($i)");
+    query("for $i in 1 to 10 let $s := ($i, $i) group by $k := $i mod 2 " +
+        "order by $k return count($s) || ':' || sum($s)", "10:60 10:50");
+    query("for $i in 1 to 6 let $e := () group by $k := $i mod 2 " +
+        "return count($e) + sum($e)", "0 0");
+    query("for $i in 1 to 5 let $d := xs:dayTimeDuration('PT' || $i || 'S') " +
+        "group by $k := $i mod 2 order by $k return sum($d)", "PT6S PT9S");
+    query("for $i in 1 to 5 let $v := if($i = 3) then xs:untypedAtomic('3') else $i " +
+        "group by $k := $i mod 2 order by $k return sum($v)", "6 9");
+    error("for $i in 1 to 5 let $v := if($i = 3) then 'x' else $i " +
+        "group by $k := $i mod 2 return sum($v)", Err.FUNNUM);
+  }
+
+  /**
+   * Groups database nodes.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void nodes() throws BaseXException {
+    final StringBuilder sb = new StringBuilder("<a>");
+    for(int i = 0; i < 50000; i++) sb.append("<b k='").append(i % 20000).append("'>").
+      append(i * 7919 % 1000).append("</b>");
+    new CreateDB(NAME, sb.append("</a>").toString()).execute(context);
+    try {
+      compare("for $b in //b group by $k := $b/@k order by number($k) " +
+          "return $k || ':' || sum($b) || ':' || $b[last()]");
+      compare("for $b in //b group by $k := number($b) mod 100 order by $k " +
+          "return $k || ':' || count($b) || ':' || string-join($b/@k, ',')");
+      // constructed nodes will not be written to disk
+      compare("for $b in //b let $c := if(number($b/@k) < 15000) then $b else " +
+          "<c>{ $b/text() }</c> group by $k := string($b/@k) order by $k " +
+          "return $k || ':' || string-join($c, ',')");
+    } finally {
+      new DropDB(NAME).execute(context);
+    }
+  }
+
+  /**
+   * Compares the result of a query that is grouped in main memory with the result
+   * of a query that writes partitions to disk.
+   * @param query query
+   */
+  private static void compare(final String query) {
+    context.options.set(MainOptions.GROUPMEM, 0);
+    final String expected = query(query);
+    context.options.set(MainOptions.GROUPMEM, 1);
+    assertEquals(expected, query(query));
+  }
+}
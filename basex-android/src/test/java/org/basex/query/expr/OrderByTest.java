@@ -0,0 +1,111 @@
+package org.basex.query.expr;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.*;
+import org.junit.*;
+
+/**
+ * Tests for the {@code order by} clause, which may write sorted runs to disk.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class OrderByTest extends AdvancedQueryTest {
+  /** Resets the memory limit. */
+  @After
+  public void reset() {
+    context.options.set(MainOptions.SORTMEM, MainOptions.SORTMEM.value());
+  }
+
+  /** Sorts tuples with equal keys; the original order must be preserved. */
+  @Test
+  public void stable() {
+    final String values = "for $i in 1 to 100000 " +
+        "let $s := $i || string-join((1 to 50) ! 'abcdef') ";
+    final String sorted = query(values + "order by $i mod 100 return substring($s, 1, 6)");
+    assertEquals(sorted, query("for $m in 0 to 99 " + values +
+        "where $i mod 100 = $m return substring($s, 1, 6)"));
+    compare(values + "order by $i mod 100 return substring($s, 1, 6)");
+  }
+
+  /** Sorts tuples with multiple keys, empty sequences and NaN values. */
+  @Test
+  public void keys() {
+    final String values = "for $i in 1 to 50000 let $k := " +
+        "if($i mod 7 = 0) then () else if($i mod 11 = 0) then xs:double('NaN') " +
+        "else $i mod 13 * 1.5 ";
+    compare(values + "order by $k empty greatest, $i descending return $i");
+    compare(values + "order by $k descending empty least, $i return $i");
+    compare(values + "order by string($k), $i mod 3 descending return $i");
+    compare("for $i in 1 to 50000 order by xs:decimal($i mod 17) div 3, $i return $i");
+  }
+
+  /**
+   * Sorts tuples with nodes.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void nodes() throws BaseXException {
+    final StringBuilder sb = new StringBuilder("<a>");
+    for(int i = 0; i < 20000; i++) sb.append("<b id='").append(i).append("'>").
+      append(i * 7919 % 1000).append("</b>");
+    new CreateDB(NAME, sb.append("</a>").toString()).execute(context);
+    try {
+      compare("for $b in //b order by $b descending return $b/@id/string()");
+      compare("for $b in //b order by number($b) return $b");
+      // constructed nodes will not be written to disk
+      compare("for $b in //b let $c := <c>{ $b/text() }</c> order by $b return $c");
+    } finally {
+      new DropDB(NAME).execute(context);
+    }
+  }
+
+  /** Sorts tuples of which only the first ones are requested. */
+  @Test
+  public void limit() {
+    final String values = "for $i in 1 to 20000 let $k := " +
+        "if($i mod 7 = 0) then () else if($i mod 11 = 0) then xs:double('NaN') " +
+        "else $i mod 13 ";
+    limit(values + "order by $k return $i", "[position() <= 10]");
+    limit(values + "order by $k descending empty least return $i", "[position() < 100]");
+    limit(values + "order by $k empty greatest, $i descending return $i", "[3]");
+    limit(values + "order by $k descending return $i", "[position() = 5 to 7]");
+    limit(values + "order by string($k) return ($i, -$i)", "[position() <= 9]");
+    limit(values + "order by $k let $j := $i * 2 count $c return $c || ':' || $j",
+        "[position() <= 20]");
+    // results may be empty: all tuples will be sorted
+    limit(values + "order by $k return $k", "[position() <= 10]");
+    limit(values + "order by $k return $i[. mod 2 = 0]", "[position() <= 10]");
+    query("let $n := 4 return (" + values + "order by $k descending return $i)[$n]",
+        query("(" + values + "order by $k descending return $i)[4]"));
+    query("subsequence((" + values + "order by $k, $i descending return $i), 5, 10)",
+        query("data(" + values + "order by $k, $i descending return $i)[position() = 5 to 14]"));
+    query("(for $i in 1 to 10 order by $i mod 2 return $i)[position() <= 20]",
+        "2 4 6 8 10 1 3 5 7 9");
+  }
+
+  /**
+   * Compares the result of a query that is filtered by a positional predicate with
+   * the result of a query that sorts all tuples.
+   * @param query query
+   * @param pred positional predicate
+   */
+  private static void limit(final String query, final String pred) {
+    assertEquals(query("data(" + query + ')' + pred), query('(' + query + ')' + pred));
+  }
+
+  /**
+   * Compares the result of a query that is sorted in main memory with the result
+   * of a query that writes sorted runs to disk.
+   * @param query query
+   */
+  private static void compare(final String query) {
+    context.options.set(MainOptions.SORTMEM, 0);
+    final String expected = query(query);
+    context.options.set(MainOptions.SORTMEM, 1);
+    assertEquals(expected, query(query));
+  }
+}
@@ -0,0 +1,84 @@
+package org.basex.query.expr;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.*;
+import org.basex.query.util.*;
+import org.junit.*;
+
+/**
+ * Tests for {@code for} clauses that are evaluated in parallel.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelForTest extends AdvancedQueryTest {
+  /** Resets the number of threads. */
+  @After
+  public void reset() {
+    context.options.set(MainOptions.PARALLELFOR, MainOptions.PARALLELFOR.value());
+  }
+
+  /** Evaluates clauses in parallel; the order of the results must be preserved. */
+  @Test
+  public void order() {
+    compare("for $i in 1 to 10000 return $i * 2");
+    compare("for $i at $p in reverse(1 to 1000) let $j := $i * $p where $j mod 3 = 0 " +
+        "return $p || ':' || $j");
+    compare("for $i in 1 to 100 for $j in 1 to $i return $i + $j");
+    compare("for $i in 1 to 100 let $s := sum(for $j in 1 to 1000 return $j mod $i) " +
+        "order by $s descending, $i return $i");
+    compare("for $i in 1 to 1000 return <a>{ $i }</a>");
+    compare("declare variable $x := 5; for $i in 1 to 1000 return $i * $x");
+    compare("for $i in 1 to 1000 return (1 to 3) ! (. * $i)");
+    compare("for $i in (1, 'a', 2.5) return $i");
+    compare("for $i in 1 return $i");
+  }
+
+  /** Evaluates clauses in parallel by using a pragma. */
+  @Test
+  public void pragma() {
+    query("(# db:parallelfor 4 #) { sum(for $i in 1 to 10000 return $i) }", "50005000");
+    query("(# db:parallelfor 4 #) { for $i at $p in ('a', 'b', 'c') return $p || $i }",
+        "1a 2b 3c");
+  }
+
+  /** Propagates errors that are raised by parallel threads. */
+  @Test
+  public void error() {
+    context.options.set(MainOptions.PARALLELFOR, 4);
+    error("for $i in 1 to 1000 return if($i = 500) then error() else $i", Err.FUNERR1);
+    error("for $i in 1 to 1000 return $i + 'a'", Err.NONUMBER);
+  }
+
+  /**
+   * Queries database nodes in parallel.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void nodes() throws BaseXException {
+    final StringBuilder sb = new StringBuilder("<a>");
+    for(int i = 0; i < 5000; i++) sb.append("<b>").append(i * 7919 % 1000).append("</b>");
+    new CreateDB(NAME, sb.append("</a>").toString()).execute(context);
+    try {
+      compare("for $b in //b return $b/text() * 2");
+      compare("for $b in //b where $b/text() > 500 return $b");
+    } finally {
+      new DropDB(NAME).execute(context);
+    }
+  }
+
+  /**
+   * Compares the result of a query that is evaluated sequentially with the result
+   * of a query that is evaluated in parallel.
+   * @param query query
+   */
+  private static void compare(final String query) {
+    context.options.set(MainOptions.PARALLELFOR, 1);
+    final String expected = query(query);
+    context.options.set(MainOptions.PARALLELFOR, 4);
+    assertEquals(expected, query(query));
+  }
+}
@@ -0,0 +1,60 @@
+package org.basex.query.expr;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.*;
+import org.junit.*;
+
+/**
+ * Tests for paths with multiple descendant steps, which are evaluated as staircase joins.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class PathTest extends AdvancedQueryTest {
+  /**
+   * Creates the test database.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void init() throws BaseXException {
+    new CreateDB(NAME, "<r><a id='1'><b id='2'/><a id='3'><b id='4'><b id='5'/></b></a></a>" +
+        "<b id='6'/><a id='7'><c><b id='8'/></c></a></r>").execute(context);
+  }
+
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+  }
+
+  /** Descendant steps. */
+  @Test
+  public void descendant() {
+    query("//a//b/@id/string()", "2 4 5 8");
+    query("//a//b[b]/@id/string()", "4");
+    query("//a//b//b/@id/string()", "5");
+    query("//a/descendant-or-self::a/@id/string()", "1 3 7");
+    query("//a/descendant-or-self::*/@id/string()", "1 2 3 4 5 7 8");
+    query("(//a, //a)//b/@id/string()", "2 4 5 8");
+    query("reverse(//a)//b/@id/string()", "2 4 5 8");
+  }
+
+  /** Descendant steps with positional predicates. */
+  @Test
+  public void positional() {
+    query("//a/descendant::b[1]/@id/string()", "2 4 8");
+    query("//a/descendant::b[last()]/@id/string()", "5 8");
+    query("//a/descendant::b[position() > 1]/@id/string()", "4 5");
+  }
+
+  /** Descendant steps on main-memory fragments. */
+  @Test
+  public void fragments() {
+    query("count(<x><a><a><b/></a><b/></a></x>//a//b)", "2");
+    query("count((<a><b/></a>, //a[@id = '3'])//b)", "3");
+  }
+}
@@ -23,6 +23,37 @@ public final class FNMapTest extends AdvancedQueryTest {
     query(_MAP_SIZE.args(_MAP_NEW.args(_MAP_NEW.args("()"))), 0);
   }
 
+  /** Test method. */
+  @Test
+  public void newBulk() {
+    final String bulk = _MAP_NEW.args(" for $i in 1 to 10000 return " +
+        _MAP_ENTRY.args("$i", "$i * 2"));
+    query("let $m := " + bulk + " return (" + _MAP_SIZE.args("$m") + ", $m(5000), " +
+        SUM.args(_MAP_KEYS.args("$m")) + ')', "10000 10000 50005000");
+
+    // later bindings replace earlier ones
+    query("let $m := " + _MAP_NEW.args(" (" + _MAP_ENTRY.args(1, " 'a'") + ", " +
+        _MAP_ENTRY.args(" 1.0", " 'b'") + ", " + _MAP_ENTRY.args(" '1'", " 'c'") + ", " +
+        _MAP_ENTRY.args(" xs:float(1)", " 'd'") + ", " + _MAP_ENTRY.args(" <a>1</a>", " 'e'") +
+        ')') + " return (" + _MAP_SIZE.args("$m") + ", $m(1), $m('1'))", "2 d e");
+    query("{ 'a': 1, 'b': 2, 'a': 3 }('a')", 3);
+
+    // small and large maps are merged
+    query("let $m := " + _MAP_NEW.args(" (" +
+        _MAP_NEW.args(" for $i in 1 to 100 return " + _MAP_ENTRY.args("$i", " 'a'")) + ", " +
+        _MAP_ENTRY.args(1, " 'b'") + ", " +
+        _MAP_NEW.args(" for $i in 50 to 150 return " + _MAP_ENTRY.args("$i", " 'c'")) + ", " +
+        _MAP_ENTRY.args(150, " 'd'") + ')') +
+        " return (" + _MAP_SIZE.args("$m") + ", $m(1), $m(49), $m(50), $m(150))",
+        "150 b a c d");
+
+    // maps created in bulk and incrementally are equal
+    query(DEEP_EQUAL.args(_MAP_NEW.args(" for $i in 1 to 5000 return " +
+        _MAP_ENTRY.args(" string($i)", "$i")), "fold-left(1 to 5000, " + _MAP_NEW.args() +
+        ", function($m, $i) { " + _MAP_NEW.args("($m, " +
+        _MAP_ENTRY.args(" string($i)", "$i") + ')') + " })"), true);
+  }
+
   /** Test method. */
   @Test
   public void entry() {
@@ -0,0 +1,69 @@
+package org.basex.query.up;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.*;
+import org.junit.*;
+
+/**
+ * Tests for structural updates that are applied in bulk.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class BulkUpdateTest extends AdvancedQueryTest {
+  /** Updating query. */
+  private static final String UPDATE =
+    "for $b at $p in //b return (" +
+    "  if($p mod 3 = 0) then delete node $b" +
+    "  else if($p mod 3 = 1) then insert node <c>{ $p mod 7 }</c> into $b" +
+    "  else insert node (<d a='{ $p mod 5 }'/>, 'x') before $b" +
+    ")";
+  /** Queries that check the updated database. */
+  private static final String CHECK = "(" +
+    "count(//b), count(//c), count(//d), string(count(//c[text() = '3']))," +
+    "string(count(//d[@a = '4'])), serialize(/), //node()/db:node-id(.)," +
+    "//node()/db:node-pre(.)) ! string()";
+
+  /**
+   * Resets the options and drops the database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void tearDown() throws BaseXException {
+    new Set(MainOptions.MAINMEM, false).execute(context);
+    new Set(MainOptions.UPDINDEX, false).execute(context);
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Compares the results of bulk updates on main-memory and disk-based databases,
+   * and with updatable index structures.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void compare() throws BaseXException {
+    final String expected = run();
+    new Set(MainOptions.MAINMEM, true).execute(context);
+    assertEquals(expected, run());
+    new Set(MainOptions.MAINMEM, false).execute(context);
+    new Set(MainOptions.UPDINDEX, true).execute(context);
+    assertEquals(expected, run());
+  }
+
+  /**
+   * Creates a database, runs the updating query twice and returns the results.
+   * @return query results
+   * @throws BaseXException database exception
+   */
+  private static String run() throws BaseXException {
+    final StringBuilder sb = new StringBuilder("<a>");
+    for(int i = 0; i < 3000; i++) sb.append("<b>").append(i % 11).append("</b>");
+    new CreateDB(NAME, sb.append("</a>").toString()).execute(context);
+    new XQuery(UPDATE).execute(context);
+    new XQuery(UPDATE).execute(context);
+    return new XQuery(CHECK).execute(context);
+  }
+}
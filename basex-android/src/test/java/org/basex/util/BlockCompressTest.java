@@ -0,0 +1,72 @@
+package org.basex.util;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.basex.io.*;
+import org.junit.*;
+
+/**
+ * Class for testing the {@link BlockCompress} methods.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class BlockCompressTest {
+  /** Random generator. */
+  private final Random rnd = new Random(42);
+
+  /** Empty and short inputs. */
+  @Test
+  public void small() {
+    run(new byte[0]);
+    run(Token.token("a"));
+    run(Token.token("abcdabcdabcd"));
+  }
+
+  /** Random bytes. */
+  @Test
+  public void random() {
+    for(int i = 0; i < 100; i++) {
+      final byte[] b = new byte[rnd.nextInt(IO.CBLOCKSIZE)];
+      rnd.nextBytes(b);
+      run(b);
+    }
+  }
+
+  /** Long runs and overlapping matches. */
+  @Test
+  public void runs() {
+    final byte[] b = new byte[IO.CBLOCKSIZE];
+    Arrays.fill(b, (byte) 'x');
+    run(b);
+    for(int i = 0; i < b.length; i++) b[i] = (byte) (i % 3);
+    run(b);
+  }
+
+  /** Texts with a small alphabet. */
+  @Test
+  public void texts() {
+    for(int i = 0; i < 100; i++) {
+      final TokenBuilder tb = new TokenBuilder();
+      final int n = rnd.nextInt(5000);
+      for(int w = 0; w < n; w++) tb.add(" word").addLong(rnd.nextInt(200));
+      final byte[] b = tb.finish();
+      assertTrue(run(b) < b.length || b.length < 16);
+    }
+  }
+
+  /**
+   * Compresses and decompresses the specified bytes.
+   * @param bytes bytes
+   * @return size of the compressed bytes
+   */
+  private static int run(final byte[] bytes) {
+    final byte[] cpr = new BlockCompress().pack(bytes, bytes.length);
+    final byte[] pln = new byte[bytes.length];
+    assertEquals(bytes.length, BlockCompress.unpack(cpr, pln));
+    assertArrayEquals(bytes, pln);
+    return cpr.length;
+  }
+}